@@ -250,17 +250,56 @@ public final class Base32 {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
-		final int outputLength = (aInput.length * 8 + 4) / 5;
+		final char[] output = new char[(aInput.length * 8 + 4) / 5];
+		encode( aInput, 0, aInput.length, output, 0 );
+		return output;
+
+	} // END encode()
+
+
+	/**
+	 * Encode a range of a byte array into a base 32 sequence written to a
+	 * caller-supplied array
+	 * 
+	 * @param aInput
+	 *        the array of bytes on the range [0x00 - 0xff]
+	 * @param aOffset
+	 *        the index of the first byte of the range
+	 * @param aLength
+	 *        the number of bytes of the range
+	 * @param aOutput
+	 *        the array receiving the base 32 characters
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first character to write
+	 * @return the number of characters written, (aLength * 8 + 4) / 5
+	 * @throws XcodeException
+	 *         if the input is null or with length == 0, if aOutput is too small
+	 *         or the input cannot be convert to a base-32 string.
+	 */
+	public static int encode ( byte[] aInput, int aOffset, int aLength,
+			char[] aOutput, int aOutputOffset ) throws XcodeException {
+
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final int outputLength = (aLength * 8 + 4) / 5;
+		if ( aOutputOffset + outputLength > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
 
-		final char[] output = new char[outputLength];
-		int offset = 0;
+		final char[] output = aOutput;
+		int offset = aOutputOffset;
 		byte last = ZERO;
 		byte next = ZERO;
 
 		try {
-			for ( int i = 0; i < aInput.length; i++ ) {
+			for ( int i = 0; i < aLength; i++ ) {
 				last = next;
-				next = aInput[ i ];
+				next = aInput[ aOffset + i ];
 
 				//
 				// process the input as blocks of size 5 bytes
@@ -318,7 +357,7 @@ public final class Base32 {
 			// if the input size is not a multiple of 5 set the last base-32
 			// character
 			//
-			switch (aInput.length % 5) {
+			switch (aLength % 5) {
 			case 1:
 				//
 				// last 3 bits of byte 1
@@ -350,7 +389,7 @@ public final class Base32 {
 			throw XcodeError.BASE32_ENCODE_BIT_OVERFLOW();
 		}
 
-		return output;
+		return outputLength;
 
 	} // END encode()
 
@@ -374,27 +413,66 @@ public final class Base32 {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
+		final byte[] output = new byte[aInput.length * 5 / 8];
+		decode( aInput, 0, aInput.length, output, 0 );
+		return output;
+
+	} // END decode()
+
+
+	/**
+	 * Decode a range of a base 32 sequence into bytes written to a
+	 * caller-supplied array
+	 * 
+	 * @param aInput
+	 *        Base 32 encoded string
+	 * @param aOffset
+	 *        the index of the first character of the range
+	 * @param aLength
+	 *        the number of characters of the range
+	 * @param aOutput
+	 *        the array receiving the bytes
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first byte to write
+	 * @return the number of bytes written, aLength * 5 / 8
+	 * @throws XcodeException
+	 *         if the input is null or with length == 0, if aOutput is too small
+	 *         or the input cannot be convert to a native string.
+	 */
+	public static int decode ( char[] aInput, int aOffset, int aLength,
+			byte[] aOutput, int aOutputOffset ) throws XcodeException {
+
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
 		//
 		// check if the input is of the right size
 		//
 		// the only possible of sizes are (x * 8) + ( 2 or 4 or 5 or 7 or 8 )
 		//
-		final int mod8 = aInput.length % 8;
+		final int mod8 = aLength % 8;
 		if ( mod8 == 1 || mod8 == 3 || mod8 == 6 ) {
 			throw XcodeError.BASE32_DECODE_INVALID_SIZE();
 		}
 
-		final int outputLength = aInput.length * 5 / 8;
+		final int outputLength = aLength * 5 / 8;
+		if ( aOutputOffset + outputLength > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
 
-		final byte[] output = new byte[outputLength];
-		int outputOffset = 0;
-		int inputOffset = 0;
+		final byte[] output = aOutput;
+		int outputOffset = aOutputOffset;
+		int inputOffset = aOffset;
 		int target = 0;
 		byte cursor = ZERO;
 		byte delta = ZERO;
 
 		try {
-			while ( inputOffset < aInput.length ) {
+			while ( inputOffset < aOffset + aLength ) {
 				delta = ZERO;
 				switch (target % 5) {
 				case 0:
@@ -473,19 +551,21 @@ public final class Base32 {
 			throw XcodeError.BASE32_DECODE_BIT_OVERFLOW();
 		}
 
-		return output;
+		return outputLength;
 
 	} // END decode()
 
 
 	/**
+	 * Map five bits to their Base 32 character.
+	 * 
 	 * @param aInput
 	 *        a byte on the range [0x00 - 0xff]
 	 * @return a Base 32 byte on the range [a-z, 0-9]
 	 * @throws XcodeException
 	 *         if the input byte > 0x1F
 	 */
-	private static char map ( byte aInput ) throws XcodeException {
+	public static char map ( byte aInput ) throws XcodeException {
 		if ( aInput <= 0x19 ) {
 			return (char) (aInput + 0x61);
 		}
@@ -499,6 +579,8 @@ public final class Base32 {
 
 
 	/**
+	 * Map a Base 32 character to its five bits.
+	 * 
 	 * @param aInput
 	 *        a Base 32 byte on the range [a-z, 0-9]
 	 * @return a byte on the range [0x00 - 0xff]
@@ -507,7 +589,7 @@ public final class Base32 {
 	 *         0x32 or > ox7A
 	 */
 
-	private static byte demap ( char aInput ) throws XcodeException {
+	public static byte demap ( char aInput ) throws XcodeException {
 		if ( aInput >= 0x32 && aInput <= 0x37 ) {
 			return (byte) (aInput - 0x18);
 		}
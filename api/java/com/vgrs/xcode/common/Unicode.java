@@ -111,14 +111,65 @@ public class Unicode {
 
 		final char[] tmp = new char[aInput.length * 2];
 		char[] output;
-		char[] surrogate;
-		int output_offset = 0;
+		final int output_offset = decode( aInput, 0, aInput.length, tmp, 0 );
 
-		for ( final int element : aInput ) {
+		if ( output_offset != tmp.length ) {
+			output = new char[output_offset];
+			System.arraycopy( tmp, 0, output, 0, output_offset );
+			// Debug.log(" copied ["+tmp.length+"] to ["+output_offset+"]");
+		}
+		else {
+			output = tmp;
+			// Debug.log(" no copy ["+tmp.length+"] = ["+output_offset+"]");
+		}
+
+		return output;
+	}
+
+
+	/**
+	 * Decode a range of unicode to a character sequence written to a
+	 * caller-supplied array
+	 * 
+	 * @param aInput
+	 *        array of unicode
+	 * @param aOffset
+	 *        the index of the first unicode of the range
+	 * @param aLength
+	 *        the number of unicode of the range
+	 * @param aOutput
+	 *        the array receiving the characters
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first character to write
+	 * @return the number of characters written
+	 * @throws XcodeException
+	 *         if the array of unicode is null or empty, or aOutput is too small
+	 */
+	static public int decode ( int[] aInput, int aOffset, int aLength,
+			char[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		int output_offset = aOutputOffset;
+
+		for ( int i = aOffset; i < aOffset + aLength; i++ ) {
+			final int element = aInput[ i ];
 			if ( element > 0xFFFF ) {
-				surrogate = decode( element );
-				tmp[ output_offset++ ] = surrogate[ 0 ];
-				tmp[ output_offset++ ] = surrogate[ 1 ];
+				if ( element > 0x10ffff ) {
+					throw XcodeError.UNICODE_DECODE_INVALID_VALUE( " "
+							+ Integer.toString( element, 16 ) );
+				}
+				if ( output_offset + 2 > aOutput.length ) {
+					throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+				}
+				aOutput[ output_offset++ ] =
+						(char) ((element - 0x10000 >> 10) + 0xd800);
+				aOutput[ output_offset++ ] =
+						(char) ((element - 0x10000 & 0x3ff) + 0xdc00);
 			}
 			else {
 
@@ -137,21 +188,14 @@ public class Unicode {
 				 * XcodeError.UNICODE_SURROGATE_DECODE_ATTEMPTED(); }
 				 */
 
-				tmp[ output_offset++ ] = (char) element;
+				if ( output_offset >= aOutput.length ) {
+					throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+				}
+				aOutput[ output_offset++ ] = (char) element;
 			}
 		}
 
-		if ( output_offset != tmp.length ) {
-			output = new char[output_offset];
-			System.arraycopy( tmp, 0, output, 0, output_offset );
-			// Debug.log(" copied ["+tmp.length+"] to ["+output_offset+"]");
-		}
-		else {
-			output = tmp;
-			// Debug.log(" no copy ["+tmp.length+"] = ["+output_offset+"]");
-		}
-
-		return output;
+		return output_offset - aOutputOffset;
 	}
 
 
@@ -188,18 +232,7 @@ public class Unicode {
 
 		final int[] tmp = new int[aInput.length];
 		int[] output;
-		int output_offset = 0;
-
-		for ( int i = 0; i < aInput.length; i++ ) {
-			if ( i + 1 < aInput.length && Utf16.isHighSurrogate( aInput[ i ] )
-					&& Utf16.isLowSurrogate( aInput[ i + 1 ] ) ) {
-				tmp[ output_offset++ ] = encode( aInput[ i ], aInput[ i + 1 ] );
-				i++;
-			}
-			else {
-				tmp[ output_offset++ ] = aInput[ i ];
-			}
-		}
+		final int output_offset = encode( aInput, 0, aInput.length, tmp, 0 );
 
 		if ( output_offset != tmp.length ) {
 			output = new int[output_offset];
@@ -215,6 +248,55 @@ public class Unicode {
 	}
 
 
+	/**
+	 * Encode a range of a character sequence to unicode written to a
+	 * caller-supplied array
+	 * 
+	 * @param aInput
+	 *        a character sequence
+	 * @param aOffset
+	 *        the index of the first character of the range
+	 * @param aLength
+	 *        the number of characters of the range
+	 * @param aOutput
+	 *        the array receiving the unicode
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first unicode to write
+	 * @return the number of unicode written
+	 * @throws XcodeException
+	 *         if the character sequence is null or empty, or aOutput is too
+	 *         small
+	 */
+	static public int encode ( char[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final int end = aOffset + aLength;
+		int output_offset = aOutputOffset;
+
+		for ( int i = aOffset; i < end; i++ ) {
+			if ( output_offset >= aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			if ( i + 1 < end && Utf16.isHighSurrogate( aInput[ i ] )
+					&& Utf16.isLowSurrogate( aInput[ i + 1 ] ) ) {
+				aOutput[ output_offset++ ] = encode( aInput[ i ], aInput[ i + 1 ] );
+				i++;
+			}
+			else {
+				aOutput[ output_offset++ ] = aInput[ i ];
+			}
+		}
+
+		return output_offset - aOutputOffset;
+	}
+
+
 	/**
 	 * Assert that the specified value is a Unicode codepoint
 	 * 
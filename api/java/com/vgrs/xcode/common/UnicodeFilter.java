@@ -4,8 +4,11 @@
 
 package com.vgrs.xcode.common;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeSet;
 
 import com.vgrs.xcode.util.XcodeError;
@@ -182,6 +185,69 @@ public class UnicodeFilter implements Filter {
 	}
 
 
+	/**
+	 * @return the approximate number of bytes of heap held by the ranges and
+	 *         matrices of this filter
+	 */
+	public long getApproximateSize () {
+		// A Range and its TreeSet entry, and a UnicodeMatrix of 4096 chars
+		long size = this.ranges.size() * 64L;
+		for ( int plane = 0; plane < UNICODE_PLANES; plane++ ) {
+			if ( this.hasMatrix( plane ) ) {
+				size += 8192 + 32;
+			}
+		}
+		return size;
+	}
+
+
+	/**
+	 * @return the code points in this filter as a sorted list of ranges, none of
+	 *         which overlap or touch each other
+	 */
+	public List<Range> getRanges () {
+		final List<Range> pieces = new ArrayList<Range>();
+		for ( final Range range : this.ranges ) {
+			pieces.add( new Range( range.first, range.last ) );
+		}
+		for ( int plane = 0; plane < UNICODE_PLANES; plane++ ) {
+			if ( this.hasMatrix( plane ) ) {
+				int first = -1;
+				for ( int point = getFirstInPlane( plane ); point <= getLastInPlane( plane ); point++ ) {
+					if ( this.matrix[ plane ].test( point ) ) {
+						if ( first < 0 ) {
+							first = point;
+						}
+					}
+					else if ( first >= 0 ) {
+						pieces.add( new Range( first, point - 1 ) );
+						first = -1;
+					}
+				}
+				if ( first >= 0 ) {
+					pieces.add( new Range( first, getLastInPlane( plane ) ) );
+				}
+			}
+		}
+		Collections.sort( pieces );
+
+		final List<Range> out = new ArrayList<Range>();
+		Range previous = null;
+		for ( final Range current : pieces ) {
+			if ( previous != null && current.first - 1 <= previous.last ) {
+				if ( current.last > previous.last ) {
+					previous.last = current.last;
+				}
+			}
+			else {
+				out.add( current );
+				previous = current;
+			}
+		}
+		return out;
+	}
+
+
 	/**
 	 * Test for intersection between a single integer and the UnicodeFilter
 	 * 
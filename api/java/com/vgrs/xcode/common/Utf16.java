@@ -161,8 +161,23 @@ public class Utf16 {
 	 * @return true if all ints in the array are ASCII character, otherwise false.
 	 */
 	static public boolean isAscii ( int[] aCodePoints ) {
-		final int length = aCodePoints.length;
-		for ( int i = 0; i < length; i++ ) {
+		return isAscii( aCodePoints, 0, aCodePoints.length );
+	}
+
+
+	/**
+	 * Check if a range of an int array is an ASCII array
+	 * 
+	 * @param aCodePoints
+	 *        an int array
+	 * @param aOffset
+	 *        the index of the first int of the range
+	 * @param aLength
+	 *        the number of ints of the range
+	 * @return true if all ints in the range are ASCII character, otherwise false.
+	 */
+	static public boolean isAscii ( int[] aCodePoints, int aOffset, int aLength ) {
+		for ( int i = aOffset; i < aOffset + aLength; i++ ) {
 			if ( !isAscii( aCodePoints[ i ] ) ) {
 				return false;
 			}
@@ -399,14 +414,33 @@ public class Utf16 {
 	 * @return true if the int is standard 3 ASCII character, otherwise false
 	 */
 	static public boolean isStd3Ascii ( int[] aCodePoints ) {
-		if ( aCodePoints.length <= 0 ) {
+		return isStd3Ascii( aCodePoints, 0, aCodePoints.length );
+	}
+
+
+	/**
+	 * Check if a range of an int array is standard 3 ASCII, required by
+	 * IDNA.toAscii step #3
+	 * 
+	 * @param aCodePoints
+	 *        an int array
+	 * @param aOffset
+	 *        the index of the first int of the range
+	 * @param aLength
+	 *        the number of ints of the range
+	 * @return true if the ints in the range are standard 3 ASCII characters,
+	 *         otherwise false
+	 */
+	static public boolean isStd3Ascii ( int[] aCodePoints, int aOffset,
+			int aLength ) {
+		if ( aLength <= 0 ) {
 			return true;
 		}
-		if ( aCodePoints[ 0 ] == HYPHEN
-				|| aCodePoints[ aCodePoints.length - 1 ] == HYPHEN ) {
+		if ( aCodePoints[ aOffset ] == HYPHEN
+				|| aCodePoints[ aOffset + aLength - 1 ] == HYPHEN ) {
 			return false;
 		}
-		for ( int i = 0; i < aCodePoints.length; i++ ) {
+		for ( int i = aOffset; i < aOffset + aLength; i++ ) {
 			if ( isAscii( aCodePoints[ i ] ) && !isDnsCompatible( aCodePoints[ i ] ) ) {
 				return false;
 			}
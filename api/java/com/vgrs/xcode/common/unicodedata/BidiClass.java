@@ -0,0 +1,86 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enum for the Bidi_Class property values of Unicode code points, as listed in
+ * field 4 of "UnicodeData.txt".
+ */
+public enum BidiClass {
+
+	LEFT_TO_RIGHT("L"),
+	RIGHT_TO_LEFT("R"),
+	ARABIC_LETTER("AL"),
+	EUROPEAN_NUMBER("EN"),
+	EUROPEAN_SEPARATOR("ES"),
+	EUROPEAN_TERMINATOR("ET"),
+	ARABIC_NUMBER("AN"),
+	COMMON_SEPARATOR("CS"),
+	NONSPACING_MARK("NSM"),
+	BOUNDARY_NEUTRAL("BN"),
+	PARAGRAPH_SEPARATOR("B"),
+	SEGMENT_SEPARATOR("S"),
+	WHITE_SPACE("WS"),
+	OTHER_NEUTRAL("ON"),
+	LEFT_TO_RIGHT_EMBEDDING("LRE"),
+	LEFT_TO_RIGHT_OVERRIDE("LRO"),
+	RIGHT_TO_LEFT_EMBEDDING("RLE"),
+	RIGHT_TO_LEFT_OVERRIDE("RLO"),
+	POP_DIRECTIONAL_FORMAT("PDF");
+
+	/**
+	 * Map of the property value aliases to the enum constants
+	 */
+	private static final Map<String, BidiClass> VALUES =
+			new HashMap<String, BidiClass>();
+
+	static {
+		for ( final BidiClass value : BidiClass.values() ) {
+			VALUES.put( value.getValue(), value );
+		}
+	}
+
+	/**
+	 * the abbreviated property value, for example "AL"
+	 */
+	private final String value;
+
+
+	private BidiClass ( String aValue ) {
+		this.value = aValue;
+	}
+
+
+	/**
+	 * @return the abbreviated property value, for example "AL"
+	 */
+	public String getValue () {
+		return this.value;
+	}
+
+
+	/**
+	 * Utility method to find the BidiClass for an abbreviated property value.
+	 * 
+	 * @param aValue
+	 *        the abbreviation used in "UnicodeData.txt", for example "AL"
+	 * @return the BidiClass or null if not found.
+	 */
+	public static BidiClass getBidiClass ( String aValue ) {
+		return VALUES.get( aValue );
+	}
+}
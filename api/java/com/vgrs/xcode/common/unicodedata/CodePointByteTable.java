@@ -0,0 +1,115 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.vgrs.xcode.common.Unicode;
+
+/**
+ * A two-stage lookup table holding one byte for every Unicode code point. The
+ * code points are split into blocks of 128; the first stage maps each block to
+ * its values in the second stage, where identical blocks are stored only once.
+ * Since most blocks hold a single value, or repeat another block, the whole
+ * code space fits in a few tens of kilobytes and a lookup costs two array
+ * reads.
+ */
+final class CodePointByteTable {
+
+	static private final int SHIFT = 7;
+
+	static private final int BLOCK_SIZE = 1 << SHIFT;
+
+	static private final int MASK = BLOCK_SIZE - 1;
+
+	/**
+	 * Number of blocks covering the Unicode code space
+	 */
+	static final int BLOCKS = (Unicode.MAX >> SHIFT) + 1;
+
+	/**
+	 * The block number of each block of code points
+	 */
+	final char[] index;
+
+	/**
+	 * The distinct blocks, one after the other
+	 */
+	final byte[] data;
+
+
+	CodePointByteTable ( char[] aIndex, byte[] aData ) {
+		this.index = aIndex;
+		this.data = aData;
+	}
+
+
+	/**
+	 * Build a table from the value of every code point.
+	 *
+	 * @param aValues
+	 *        the value of each code point from 0 to Unicode.MAX
+	 * @return the table
+	 */
+	static CodePointByteTable compact ( byte[] aValues ) {
+		final char[] index = new char[BLOCKS];
+		final Map<ByteBuffer, Integer> blocks = new HashMap<ByteBuffer, Integer>();
+		final ByteBuffer data = ByteBuffer.allocate( aValues.length );
+		for ( int i = 0; i < BLOCKS; i++ ) {
+			final ByteBuffer block =
+					ByteBuffer.wrap( aValues, i << SHIFT, BLOCK_SIZE ).slice();
+			Integer number = blocks.get( block );
+			if ( number == null ) {
+				number = Integer.valueOf( blocks.size() );
+				blocks.put( block, number );
+				data.put( aValues, i << SHIFT, BLOCK_SIZE );
+			}
+			index[ i ] = (char) number.intValue();
+		}
+		final byte[] compacted = new byte[data.position()];
+		data.flip();
+		data.get( compacted );
+		return new CodePointByteTable( index, compacted );
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the value of the code point, or 0 if it is not a Unicode code
+	 *         point
+	 */
+	int get ( int aCodePoint ) {
+		if ( aCodePoint < 0 || aCodePoint > Unicode.MAX ) {
+			return 0;
+		}
+		return this.data[ this.index[ aCodePoint >> SHIFT ] << SHIFT
+				| aCodePoint & MASK ] & 0xff;
+	}
+
+
+	/**
+	 * @return the value of every code point from 0 to Unicode.MAX
+	 */
+	byte[] expand () {
+		final byte[] values = new byte[BLOCKS << SHIFT];
+		for ( int i = 0; i < BLOCKS; i++ ) {
+			System.arraycopy( this.data, this.index[ i ] << SHIFT, values,
+					i << SHIFT, BLOCK_SIZE );
+		}
+		return values;
+	}
+
+}
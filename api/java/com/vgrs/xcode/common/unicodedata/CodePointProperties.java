@@ -0,0 +1,310 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.vgrs.xcode.common.Unicode;
+
+/**
+ * An immutable two-stage lookup table holding, for every Unicode code point,
+ * the properties used to validate IDNA2008 labels packed into one
+ * <code>int</code>. The code points are split into blocks of 128 like in
+ * {@link CodePointByteTable}, and identical blocks are stored only once, so a
+ * single lookup of two array reads returns the IDNA2008 derived property, BIDI
+ * class, canonical combining class, joining type, script, combining mark flag
+ * and quick check values of a code point. The static methods of this class
+ * extract each of them from the packed value.
+ * <p>
+ * The packed value is laid out as follows, from the least significant bit:
+ *
+ * <pre>
+ * bits  0 -  2  IDNA2008 derived property, ordinal + 1 (0 if not a code point)
+ * bits  3 -  7  BIDI class ordinal + 1 (0 if not known to BidiClass)
+ * bits  8 - 15  canonical combining class
+ * bits 16 - 18  joining type, index in "UCDLRT"
+ * bits 19 - 25  script ordinal
+ * bit  26       combining mark
+ * bits 27 - 28  NFC quick check value
+ * bits 29 - 30  NFKC quick check value
+ * bit  31       listed in "UnicodeData.txt", with a canonical combining class
+ * </pre>
+ */
+public final class CodePointProperties {
+
+	/**
+	 * NFC and NFKC quick check values
+	 */
+	public static final int NFC_QC_YES = 0;
+
+	public static final int NFC_QC_MAYBE = 1;
+
+	public static final int NFC_QC_NO = 2;
+
+	public static final int NFKC_QC_YES = 0;
+
+	public static final int NFKC_QC_MAYBE = 1;
+
+	public static final int NFKC_QC_NO = 2;
+
+	static final int DERIVED_PROPERTY_SHIFT = 0;
+
+	static final int BIDI_CLASS_SHIFT = 3;
+
+	/**
+	 * The largest BIDI class ordinal plus one the packed value can hold
+	 */
+	static final int BIDI_CLASS_MASK = 0x1f;
+
+	static final int CANONICAL_CLASS_SHIFT = 8;
+
+	static final int JOINING_TYPE_SHIFT = 16;
+
+	static final int SCRIPT_SHIFT = 19;
+
+	/**
+	 * The largest script ordinal the packed value can hold
+	 */
+	static final int SCRIPT_MASK = 0x7f;
+
+	static final int COMBINING_MARK_SHIFT = 26;
+
+	static final int NFC_QC_SHIFT = 27;
+
+	static final int NFKC_QC_SHIFT = 29;
+
+	static final int LISTED_SHIFT = 31;
+
+	/**
+	 * The joining types, indexed by their code in the packed value
+	 */
+	static final String JOINING_TYPES = "UCDLRT";
+
+	static private final int SHIFT = 7;
+
+	static private final int BLOCK_SIZE = 1 << SHIFT;
+
+	static private final int MASK = BLOCK_SIZE - 1;
+
+	static private final int BLOCKS = (Unicode.MAX >> SHIFT) + 1;
+
+	static private final UnicodeCodePointCategory[] DERIVED_PROPERTIES =
+			UnicodeCodePointCategory.values();
+
+	static private final BidiClass[] BIDI_CLASSES = BidiClass.values();
+
+	static private final Script[] SCRIPTS = Script.values();
+
+	/**
+	 * The block number of each block of code points
+	 */
+	private final char[] index;
+
+	/**
+	 * The distinct blocks, one after the other
+	 */
+	private final int[] data;
+
+
+	private CodePointProperties ( char[] aIndex, int[] aData ) {
+		this.index = aIndex;
+		this.data = aData;
+	}
+
+
+	/**
+	 * Build a table from the packed value of every code point.
+	 *
+	 * @param aValues
+	 *        the packed value of each code point from 0 to Unicode.MAX
+	 * @return the table
+	 */
+	static CodePointProperties compact ( int[] aValues ) {
+		final char[] index = new char[BLOCKS];
+		final Map<IntBuffer, Integer> blocks = new HashMap<IntBuffer, Integer>();
+		final IntBuffer data = IntBuffer.allocate( aValues.length );
+		for ( int i = 0; i < BLOCKS; i++ ) {
+			final IntBuffer block =
+					IntBuffer.wrap( aValues, i << SHIFT, BLOCK_SIZE ).slice();
+			Integer number = blocks.get( block );
+			if ( number == null ) {
+				number = Integer.valueOf( blocks.size() );
+				blocks.put( block, number );
+				data.put( aValues, i << SHIFT, BLOCK_SIZE );
+			}
+			index[ i ] = (char) number.intValue();
+		}
+		final int[] compacted = new int[data.position()];
+		data.flip();
+		data.get( compacted );
+		return new CodePointProperties( index, compacted );
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the packed properties of the code point, or 0 if it is not a
+	 *         Unicode code point
+	 */
+	public int get ( int aCodePoint ) {
+		if ( aCodePoint < 0 || aCodePoint > Unicode.MAX ) {
+			return 0;
+		}
+		return this.data[ this.index[ aCodePoint >> SHIFT ] << SHIFT
+				| aCodePoint & MASK ];
+	}
+
+
+	/**
+	 * @return the number of distinct blocks of code points stored
+	 */
+	int getBlockCount () {
+		return this.data.length >> SHIFT;
+	}
+
+
+	/**
+	 * @return the approximate number of bytes of heap held by this table
+	 */
+	long getApproximateSize () {
+		return this.index.length * 2L + this.data.length * 4L;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the IDNA2008 derived property, or null if the value was not
+	 *         returned for a Unicode code point
+	 */
+	public static UnicodeCodePointCategory getDerivedProperty ( int aProperties ) {
+		final int derivedProperty = aProperties >>> DERIVED_PROPERTY_SHIFT & 0x7;
+		return derivedProperty == 0 ? null
+				: DERIVED_PROPERTIES[ derivedProperty - 1 ];
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return true if the IDNA2008 derived property is DISALLOWED or UNASSIGNED
+	 */
+	public static boolean isDisallowedOrUnassigned ( int aProperties ) {
+		final int derivedProperty = aProperties >>> DERIVED_PROPERTY_SHIFT & 0x7;
+		return derivedProperty == UnicodeCodePointCategory.DISALLOWED.ordinal() + 1
+				|| derivedProperty == UnicodeCodePointCategory.UNASSIGNED.ordinal() + 1;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return true if the IDNA2008 derived property is CONTEXTO or CONTEXTJ
+	 */
+	public static boolean isContextual ( int aProperties ) {
+		final int derivedProperty = aProperties >>> DERIVED_PROPERTY_SHIFT & 0x7;
+		return derivedProperty == UnicodeCodePointCategory.CONTEXTO.ordinal() + 1
+				|| derivedProperty == UnicodeCodePointCategory.CONTEXTJ.ordinal() + 1;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the BIDI class, or null if it is not known to {@link BidiClass}
+	 */
+	public static BidiClass getBidiClass ( int aProperties ) {
+		final int bidiClass = aProperties >>> BIDI_CLASS_SHIFT & BIDI_CLASS_MASK;
+		if ( bidiClass == 0 ) {
+			return null;
+		}
+		return BIDI_CLASSES[ bidiClass - 1 ];
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the canonical combining class
+	 */
+	public static int getCanonicalClass ( int aProperties ) {
+		return aProperties >>> CANONICAL_CLASS_SHIFT & 0xff;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the joining type, such as 'D' or 'T'
+	 */
+	public static char getJoiningType ( int aProperties ) {
+		return JOINING_TYPES.charAt( aProperties >>> JOINING_TYPE_SHIFT & 0x7 );
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the script
+	 */
+	public static Script getScript ( int aProperties ) {
+		return SCRIPTS[ aProperties >>> SCRIPT_SHIFT & SCRIPT_MASK ];
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return true if the general category is Mn, Mc or Me
+	 */
+	public static boolean isCombiningMark ( int aProperties ) {
+		return (aProperties >>> COMBINING_MARK_SHIFT & 0x1) != 0;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the NFC quick check value, one of NFC_QC_YES, NFC_QC_MAYBE and
+	 *         NFC_QC_NO
+	 */
+	public static int getNfcQuickCheck ( int aProperties ) {
+		return aProperties >>> NFC_QC_SHIFT & 0x3;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return the NFKC quick check value, one of NFKC_QC_YES, NFKC_QC_MAYBE and
+	 *         NFKC_QC_NO
+	 */
+	public static int getNfkcQuickCheck ( int aProperties ) {
+		return aProperties >>> NFKC_QC_SHIFT & 0x3;
+	}
+
+
+	/**
+	 * @param aProperties
+	 *        the packed properties of a code point
+	 * @return true if the code point is listed in "UnicodeData.txt", as
+	 *         reported by {@link UnicodeData#hasCanonicalClass(int)}
+	 */
+	public static boolean isListed ( int aProperties ) {
+		return aProperties >>> LISTED_SHIFT != 0;
+	}
+
+}
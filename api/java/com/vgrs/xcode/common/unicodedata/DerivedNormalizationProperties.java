@@ -17,19 +17,18 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Set;
-import java.util.StringTokenizer;
 
-import com.vgrs.xcode.common.Hex;
-import com.vgrs.xcode.util.Datafile;
-import com.vgrs.xcode.util.XcodeError;
+import com.vgrs.xcode.common.Range;
+import com.vgrs.xcode.common.UnicodeFilter;
+import com.vgrs.xcode.util.InitializationReport;
 import com.vgrs.xcode.util.XcodeException;
 
 /**
- * Class to load the data in "DerivedNormalizationProps.txt.gz" into GNU Trove
- * collections. The data in this class will be used to perform a quick check to
- * find out if a given set of Unicode code points are in NFC normalized form.
+ * Class to load the data in "DerivedNormalizationProps.txt.gz" into one
+ * UnicodeFilter per property. The data in this class will be used to perform a
+ * quick check to find out if a given set of Unicode code points are in NFC
+ * normalized form.
  * 
  * @author nchigurupati
  * @version 1.0 Jun 11, 2010
@@ -37,15 +36,18 @@ import com.vgrs.xcode.util.XcodeException;
 public class DerivedNormalizationProperties {
 
 	/**
-	 * A collection to hold a given code point and it's associated derived
-	 * normalized properties.
+	 * The code points having each of the NFC_QC, NFKC_QC and NFKC_CF properties,
+	 * indexed by the property numbers of {@link UnicodeDataConstants}. The
+	 * entries of other properties are null.
 	 */
-	private static final TIntObjectMap<Set<String>> DERIVED_NORMALIZATION_PROP_TABLE =
-			new TIntObjectHashMap<Set<String>>();
+	private static final UnicodeFilter[] DERIVED_NORMALIZATION_PROPERTIES =
+			new UnicodeFilter[UnicodeDataConstants.PROPERTY_COUNT];
 
 	static {
 		try {
+			final long start = InitializationReport.start();
 			init();
+			InitializationReport.step( "DerivedNormalizationProperties.init", start );
 		}
 		catch ( final XcodeException x ) {
 			throw new RuntimeException( x.getMessage() );
@@ -54,129 +56,64 @@ public class DerivedNormalizationProperties {
 
 
 	/**
-	 * @return <code>DERIVED_NORMALIZATION_PROP_TABLE</code>
+	 * @param aProperty
+	 *        one of the PROPERTY_NF* property numbers of
+	 *        {@link UnicodeDataConstants}
+	 * @return the code points having the property, or null if the property is
+	 *         not loaded by this class
 	 */
-	public static TIntObjectMap<Set<String>> getDerivedNormalizationPropTable () {
-		return DERIVED_NORMALIZATION_PROP_TABLE;
+	static UnicodeFilter getDerivedNormalizationProperty ( int aProperty ) {
+		return DERIVED_NORMALIZATION_PROPERTIES[ aProperty ];
 	}
 
 
 	/**
-	 * Reads the "DerivedNormalizationProps.txt.gz" and stores the code point
-	 * along with it's normalized form in
-	 * <code>DERIVED_NORMALIZATION_PROP_TABLE</code> data structure. Example line
-	 * of data from this file is below.
-	 * 
-	 * <pre>
-	 * 0340..0341 ; NFC_QC; N # Mn [2] COMBINING GRAVE TONE MARK..COMBINING ACUTE TONE MARK
+	 * Builds a table of every code point having one of the derived normalization
+	 * properties, along with the names of its properties. The table is built
+	 * anew on each call; use {@link UnicodeData#hasProperty(int, int)} for
+	 * lookups.
 	 * 
-	 * @throws XcodeException
+	 * @return the code points and their derived normalization properties
 	 */
-	private static void init () throws XcodeException {
-		Iterator<String> reader = null;
-		String line = null;
-		String codePointString = null;
-		String nfcProperty = null;
-		String derivedNormalizationProperty = null;
-		StringTokenizer st = null;
-		String property = null;
-
-		try {
-			reader =
-					Datafile
-							.getIterator( UnicodeDataConstants.DERIVED_NORMALIZATION_PROPS_DATA );
-
-			while ( reader.hasNext() ) {
-
-				line = reader.next();
-
-				if ( line == null ) {
-					break;
-				}
-				if ( line.length() == 0 ) {
-					continue;
-				}
-				if ( line.charAt( 0 ) == '#' ) {
-					continue;
-				}
-
-				property = null;
-				st =
-						new StringTokenizer( line,
-								UnicodeDataConstants.SEMI_COLON_DELIMITER );
-
-				if ( st.hasMoreTokens() ) {
-					codePointString = st.nextToken().trim();
-				}
-
-				if ( st.hasMoreTokens() ) {
-					nfcProperty = st.nextToken().trim();
-				}
-
-				/*
-				 * We are only parsing the following derived properties NFC_Quick_Check
-				 * (NFC_QC) NFKC_Quick_Check (NFKC_QC) NFKC_Casefold (NFKC_CF)
-				 */
-				if ( !nfcProperty.equals( UnicodeDataConstants.NFKC_QC )
-						&& !nfcProperty.equals( UnicodeDataConstants.NFC_QC )
-						&& !nfcProperty.equals( UnicodeDataConstants.NFKC_CF ) ) {
-					continue;
-				}
-
-				if ( st.hasMoreTokens() ) {
-					derivedNormalizationProperty = st.nextToken().trim();
-				}
-
-				st =
-						new StringTokenizer( derivedNormalizationProperty,
-								UnicodeDataConstants.TAB_DELIMITER );
-				if ( st.hasMoreTokens() ) {
-					property = st.nextToken();
-					property = property.trim();
-				}
-
-				codePointString = codePointString.replace( "..", " " );
-
-				final int[] codePoints = Hex.decodeInts( codePointString );
-				int start, end;
-
-				if ( codePoints.length == 2 ) {
-					start = codePoints[ 0 ];
-					end = codePoints[ 1 ];
-				}
-				else if ( codePoints.length == 1 ) {
-					start = codePoints[ 0 ];
-					end = start;
-				}
-				else {
-					line = ": \"" + line + "\"";
-					throw XcodeError.INVALID_FILE_FORMAT( line );
-				}
-
-				for ( int codePoint = start; codePoint <= end; codePoint++ ) {
-
-					Set<String> set = DERIVED_NORMALIZATION_PROP_TABLE.get( codePoint );
+	public static TIntObjectMap<Set<String>> getDerivedNormalizationPropTable () {
+		final TIntObjectMap<Set<String>> table =
+				new TIntObjectHashMap<Set<String>>();
+		for ( int i = 0; i < UnicodeDataConstants.PROPERTY_COUNT; i++ ) {
+			if ( DERIVED_NORMALIZATION_PROPERTIES[ i ] == null ) {
+				continue;
+			}
+			for ( final Range range : DERIVED_NORMALIZATION_PROPERTIES[ i ]
+					.getRanges() ) {
+				for ( int codePoint = range.first; codePoint <= range.last; codePoint++ ) {
+					Set<String> set = table.get( codePoint );
 					if ( set == null ) {
 						set = new HashSet<String>();
+						table.put( codePoint, set );
 					}
-					if ( property != null
-							&& (property.equals( "N" ) || property.equals( "M" )) ) {
-						set.add( nfcProperty + "_" + property );
-					}
-					else {
-						set.add( nfcProperty );
-					}
-					DERIVED_NORMALIZATION_PROP_TABLE.put( codePoint, set );
+					set.add( UnicodeDataConstants.PROPERTY_NAMES[ i ] );
 				}
 			}
 		}
-		catch ( final NumberFormatException x ) {
-			line = ": \"" + line + "\"";
-			throw XcodeError.INVALID_FILE_FORMAT( line );
-		}
-		catch ( final Exception x ) {
-			line = ": \"" + line + "\"";
-			throw XcodeError.INVALID_FILE_FORMAT( line );
-		}
+		return table;
+	}
+
+
+	/**
+	 * Reads the "DerivedNormalizationProps.txt.gz" and stores the code points
+	 * having each of the NFC_QC, NFKC_QC and NFKC_CF properties in
+	 * <code>DERIVED_NORMALIZATION_PROPERTIES</code>. Example line of data from
+	 * this file is below.
+	 * 
+	 * <pre>
+	 * 0340..0341 ; NFC_QC; N # Mn [2] COMBINING GRAVE TONE MARK..COMBINING ACUTE TONE MARK
+	 * </pre>
+	 * 
+	 * @throws XcodeException
+	 */
+	private static void init () throws XcodeException {
+		UnicodeDataFileUtil.loadBinaryProperties(
+				UnicodeDataConstants.DERIVED_NORMALIZATION_PROPS_DATA,
+				DERIVED_NORMALIZATION_PROPERTIES,
+				UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS );
 	}
 }
@@ -0,0 +1,114 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+
+import com.vgrs.xcode.common.Unicode;
+import com.vgrs.xcode.util.Datafile;
+
+/**
+ * Generates the "data/idna/DerivedProperties.txt" file at build time. The
+ * IDNA2008 derived property value (PVALID, CONTEXTO, CONTEXTJ, DISALLOWED or
+ * UNASSIGNED) of every Unicode code point is computed once from the Unicode
+ * data files and written as a table of contiguous ranges, which
+ * {@link UnicodeData} then loads directly on startup.
+ */
+public class DerivedPropertiesGenerator {
+
+	static public void usage () {
+		System.out
+				.println( "usage: java DerivedPropertiesGenerator <outputfile>" );
+	}
+
+
+	static public void main ( String args[] ) {
+		if ( args.length != 1 ) {
+			usage();
+			return;
+		}
+
+		// Force the derivation algorithm rather than reading a previous table
+		System.setProperty( UnicodeDataConstants.DERIVE_PROPERTIES_PROPERTY,
+				"true" );
+		try {
+			generate( new File( args[ 0 ] ) );
+		}
+		catch ( final Exception x ) {
+			x.printStackTrace();
+			System.exit( 1 );
+		}
+	}
+
+
+	static public String getHeader () {
+		String header = new String();
+		header += "# DerivedProperties.txt\n";
+		header += "#\n";
+		header +=
+				"# IDNA2008 derived property values (RFC 5892) of all Unicode code\n";
+		header +=
+				"# points. This file is constructed from the files in the data/unicode\n";
+		header += "# directory by DerivedPropertiesGenerator.  Do not modify.\n";
+		header += "#\n";
+		header +=
+				"# The checksum below covers the Unicode data files used. If they are\n";
+		header += "# replaced, the values are derived again at runtime.\n";
+		header += "#\n";
+		return header;
+	}
+
+
+	static public void generate ( File output ) throws Exception {
+		UnicodeData.init();
+		final long checksum =
+				Datafile.checksum( UnicodeDataConstants.DERIVED_PROPERTIES_SOURCE_DATA );
+		final int[] starts = UnicodeData.getDerivedPropertyStarts();
+		final UnicodeCodePointCategory[] values =
+				UnicodeData.getDerivedPropertyValues();
+
+		final BufferedWriter out =
+				new BufferedWriter( new OutputStreamWriter( new FileOutputStream(
+						output ), "US-ASCII" ) );
+		try {
+			out.write( getHeader() );
+			out.write( UnicodeDataConstants.CHECKSUM_COMMENT
+					+ String.format( "%08X", Long.valueOf( checksum ) ) + "\n#\n" );
+			for ( int i = 0; i < starts.length; i++ ) {
+				final int last =
+						i + 1 < starts.length ? starts[ i + 1 ] - 1 : Unicode.MAX;
+				out.write( generate( starts[ i ], last, values[ i ] ) );
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+
+	static public String generate ( int aFirst, int aLast,
+			UnicodeCodePointCategory aCategory ) {
+		String range = String.format( "%04X", Integer.valueOf( aFirst ) );
+		if ( aLast != aFirst ) {
+			range +=
+					UnicodeDataConstants.DOT_DOT_DELIMITER
+							+ String.format( "%04X", Integer.valueOf( aLast ) );
+		}
+		return String.format( "%-14s; %s\n", range, aCategory );
+	}
+
+}
@@ -0,0 +1,98 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enum for the General_Category property values of Unicode code points, as
+ * listed in field 2 of "UnicodeData.txt". Code points not listed in that file
+ * are UNASSIGNED.
+ */
+public enum GeneralCategory {
+
+	UPPERCASE_LETTER("Lu"),
+	LOWERCASE_LETTER("Ll"),
+	TITLECASE_LETTER("Lt"),
+	MODIFIER_LETTER("Lm"),
+	OTHER_LETTER("Lo"),
+	NONSPACING_MARK("Mn"),
+	SPACING_MARK("Mc"),
+	ENCLOSING_MARK("Me"),
+	DECIMAL_NUMBER("Nd"),
+	LETTER_NUMBER("Nl"),
+	OTHER_NUMBER("No"),
+	CONNECTOR_PUNCTUATION("Pc"),
+	DASH_PUNCTUATION("Pd"),
+	OPEN_PUNCTUATION("Ps"),
+	CLOSE_PUNCTUATION("Pe"),
+	INITIAL_PUNCTUATION("Pi"),
+	FINAL_PUNCTUATION("Pf"),
+	OTHER_PUNCTUATION("Po"),
+	MATH_SYMBOL("Sm"),
+	CURRENCY_SYMBOL("Sc"),
+	MODIFIER_SYMBOL("Sk"),
+	OTHER_SYMBOL("So"),
+	SPACE_SEPARATOR("Zs"),
+	LINE_SEPARATOR("Zl"),
+	PARAGRAPH_SEPARATOR("Zp"),
+	CONTROL("Cc"),
+	FORMAT("Cf"),
+	SURROGATE("Cs"),
+	PRIVATE_USE("Co"),
+	UNASSIGNED("Cn");
+
+	/**
+	 * Map of the property value aliases to the enum constants
+	 */
+	private static final Map<String, GeneralCategory> VALUES =
+			new HashMap<String, GeneralCategory>();
+
+	static {
+		for ( final GeneralCategory value : GeneralCategory.values() ) {
+			VALUES.put( value.getValue(), value );
+		}
+	}
+
+	/**
+	 * the abbreviated property value, for example "Lu"
+	 */
+	private final String value;
+
+
+	private GeneralCategory ( String aValue ) {
+		this.value = aValue;
+	}
+
+
+	/**
+	 * @return the abbreviated property value, for example "Lu"
+	 */
+	public String getValue () {
+		return this.value;
+	}
+
+
+	/**
+	 * Utility method to find the GeneralCategory for an abbreviated property value.
+	 * 
+	 * @param aValue
+	 *        the abbreviation used in "UnicodeData.txt", for example "Lu"
+	 * @return the GeneralCategory or null if not found.
+	 */
+	public static GeneralCategory getGeneralCategory ( String aValue ) {
+		return VALUES.get( aValue );
+	}
+}
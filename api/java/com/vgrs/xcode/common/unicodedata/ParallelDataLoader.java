@@ -0,0 +1,141 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import com.vgrs.xcode.util.XcodeError;
+import com.vgrs.xcode.util.XcodeException;
+
+/**
+ * Runs the tasks that load the Unicode data files. Each data file is parsed
+ * into its own collection, so the tasks are independent of each other and are
+ * run at the same time on a fork/join pool. {@link #run()} returns only once
+ * every task has finished, which acts as the barrier before the tables are
+ * combined.
+ * <p>
+ * Setting the "com.vgrs.xcode.unicodedata.parallelLoading" system property to
+ * false runs the tasks one after another on the calling thread instead, for
+ * environments where extra threads are not wanted.
+ */
+final class ParallelDataLoader {
+
+	private final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+
+	/**
+	 * @return true unless parallel loading has been switched off
+	 */
+	static boolean isParallel () {
+		return !"false".equalsIgnoreCase( System
+				.getProperty( UnicodeDataConstants.PARALLEL_LOADING_PROPERTY ) );
+	}
+
+
+	/**
+	 * Add a task to be run by the next call to {@link #run()}.
+	 * 
+	 * @param aTask
+	 *        the task loading one data file
+	 */
+	void add ( Callable<Void> aTask ) {
+		this.tasks.add( aTask );
+	}
+
+
+	/**
+	 * Run all the tasks added since the last call and wait for them to finish.
+	 * 
+	 * @throws XcodeException
+	 *         the first failure of any of the tasks
+	 */
+	void run () throws XcodeException {
+		try {
+			if ( this.tasks.size() < 2 || !isParallel() ) {
+				for ( final Callable<Void> task : this.tasks ) {
+					call( task );
+				}
+			}
+			else {
+				runParallel();
+			}
+		}
+		finally {
+			this.tasks.clear();
+		}
+	}
+
+
+	private void runParallel () throws XcodeException {
+		final int parallelism =
+				Math.min( this.tasks.size(), Runtime.getRuntime()
+						.availableProcessors() );
+		final ForkJoinPool pool = new ForkJoinPool( parallelism );
+		try {
+			final List<ForkJoinTask<Void>> running =
+					new ArrayList<ForkJoinTask<Void>>();
+			for ( final Callable<Void> task : this.tasks ) {
+				running.add( pool.submit( task ) );
+			}
+
+			// Barrier: wait for every task, then report the first failure
+			Throwable failure = null;
+			for ( final ForkJoinTask<Void> task : running ) {
+				try {
+					task.get();
+				}
+				catch ( final ExecutionException x ) {
+					if ( failure == null ) {
+						failure = x.getCause();
+					}
+				}
+				catch ( final InterruptedException x ) {
+					Thread.currentThread().interrupt();
+					throw XcodeError.IDNSDK_INITIALIZATION_ERROR( x.toString() );
+				}
+			}
+			if ( failure != null ) {
+				throw toXcodeException( failure );
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+
+	static private void call ( Callable<Void> aTask ) throws XcodeException {
+		try {
+			aTask.call();
+		}
+		catch ( final Exception x ) {
+			throw toXcodeException( x );
+		}
+	}
+
+
+	static private XcodeException toXcodeException ( Throwable aFailure ) {
+		for ( Throwable t = aFailure; t != null; t = t.getCause() ) {
+			if ( t instanceof XcodeException ) {
+				return (XcodeException) t;
+			}
+		}
+		return XcodeError.IDNSDK_INITIALIZATION_ERROR( aFailure.toString() );
+	}
+}
@@ -0,0 +1,163 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enum for the Script property values of Unicode code points, as listed in
+ * "Scripts.txt". Code points not listed in that file are UNKNOWN.
+ */
+public enum Script {
+
+	ARABIC("Arabic"),
+	ARMENIAN("Armenian"),
+	AVESTAN("Avestan"),
+	BALINESE("Balinese"),
+	BAMUM("Bamum"),
+	BATAK("Batak"),
+	BENGALI("Bengali"),
+	BOPOMOFO("Bopomofo"),
+	BRAHMI("Brahmi"),
+	BRAILLE("Braille"),
+	BUGINESE("Buginese"),
+	BUHID("Buhid"),
+	CANADIAN_ABORIGINAL("Canadian_Aboriginal"),
+	CARIAN("Carian"),
+	CHAM("Cham"),
+	CHEROKEE("Cherokee"),
+	COMMON("Common"),
+	COPTIC("Coptic"),
+	CUNEIFORM("Cuneiform"),
+	CYPRIOT("Cypriot"),
+	CYRILLIC("Cyrillic"),
+	DESERET("Deseret"),
+	DEVANAGARI("Devanagari"),
+	EGYPTIAN_HIEROGLYPHS("Egyptian_Hieroglyphs"),
+	ETHIOPIC("Ethiopic"),
+	GEORGIAN("Georgian"),
+	GLAGOLITIC("Glagolitic"),
+	GOTHIC("Gothic"),
+	GREEK("Greek"),
+	GUJARATI("Gujarati"),
+	GURMUKHI("Gurmukhi"),
+	HAN("Han"),
+	HANGUL("Hangul"),
+	HANUNOO("Hanunoo"),
+	HEBREW("Hebrew"),
+	HIRAGANA("Hiragana"),
+	IMPERIAL_ARAMAIC("Imperial_Aramaic"),
+	INHERITED("Inherited"),
+	INSCRIPTIONAL_PAHLAVI("Inscriptional_Pahlavi"),
+	INSCRIPTIONAL_PARTHIAN("Inscriptional_Parthian"),
+	JAVANESE("Javanese"),
+	KAITHI("Kaithi"),
+	KANNADA("Kannada"),
+	KATAKANA("Katakana"),
+	KAYAH_LI("Kayah_Li"),
+	KHAROSHTHI("Kharoshthi"),
+	KHMER("Khmer"),
+	LAO("Lao"),
+	LATIN("Latin"),
+	LEPCHA("Lepcha"),
+	LIMBU("Limbu"),
+	LINEAR_B("Linear_B"),
+	LISU("Lisu"),
+	LYCIAN("Lycian"),
+	LYDIAN("Lydian"),
+	MALAYALAM("Malayalam"),
+	MANDAIC("Mandaic"),
+	MEETEI_MAYEK("Meetei_Mayek"),
+	MONGOLIAN("Mongolian"),
+	MYANMAR("Myanmar"),
+	NEW_TAI_LUE("New_Tai_Lue"),
+	NKO("Nko"),
+	OGHAM("Ogham"),
+	OL_CHIKI("Ol_Chiki"),
+	OLD_ITALIC("Old_Italic"),
+	OLD_PERSIAN("Old_Persian"),
+	OLD_SOUTH_ARABIAN("Old_South_Arabian"),
+	OLD_TURKIC("Old_Turkic"),
+	ORIYA("Oriya"),
+	OSMANYA("Osmanya"),
+	PHAGS_PA("Phags_Pa"),
+	PHOENICIAN("Phoenician"),
+	REJANG("Rejang"),
+	RUNIC("Runic"),
+	SAMARITAN("Samaritan"),
+	SAURASHTRA("Saurashtra"),
+	SHAVIAN("Shavian"),
+	SINHALA("Sinhala"),
+	SUNDANESE("Sundanese"),
+	SYLOTI_NAGRI("Syloti_Nagri"),
+	SYRIAC("Syriac"),
+	TAGALOG("Tagalog"),
+	TAGBANWA("Tagbanwa"),
+	TAI_LE("Tai_Le"),
+	TAI_THAM("Tai_Tham"),
+	TAI_VIET("Tai_Viet"),
+	TAMIL("Tamil"),
+	TELUGU("Telugu"),
+	THAANA("Thaana"),
+	THAI("Thai"),
+	TIBETAN("Tibetan"),
+	TIFINAGH("Tifinagh"),
+	UGARITIC("Ugaritic"),
+	VAI("Vai"),
+	YI("Yi"),
+	UNKNOWN("Unknown");
+
+	/**
+	 * Map of the property value aliases to the enum constants
+	 */
+	private static final Map<String, Script> VALUES =
+			new HashMap<String, Script>();
+
+	static {
+		for ( final Script value : Script.values() ) {
+			VALUES.put( value.getValue(), value );
+		}
+	}
+
+	/**
+	 * the property value, for example "Old_Italic"
+	 */
+	private final String value;
+
+
+	private Script ( String aValue ) {
+		this.value = aValue;
+	}
+
+
+	/**
+	 * @return the property value, for example "Old_Italic"
+	 */
+	public String getValue () {
+		return this.value;
+	}
+
+
+	/**
+	 * Utility method to find the Script for a property value.
+	 * 
+	 * @param aValue
+	 *        the name used in "Scripts.txt", for example "Old_Italic"
+	 * @return the Script or null if not found.
+	 */
+	public static Script getScript ( String aValue ) {
+		return VALUES.get( aValue );
+	}
+}
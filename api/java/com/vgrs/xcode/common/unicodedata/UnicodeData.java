@@ -13,6 +13,11 @@
 
 package com.vgrs.xcode.common.unicodedata;
 
+import gnu.trove.impl.hash.THash;
+import gnu.trove.iterator.TIntCharIterator;
+import gnu.trove.iterator.TIntIntIterator;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntCharMap;
@@ -20,21 +25,25 @@ import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TLongIntMap;
 import gnu.trove.map.hash.TIntCharHashMap;
+import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.vgrs.xcode.common.Range;
 import com.vgrs.xcode.common.Unicode;
 import com.vgrs.xcode.common.UnicodeFilter;
 import com.vgrs.xcode.idna.Bidi;
 import com.vgrs.xcode.idna.Normalize;
-import com.vgrs.xcode.util.RangeCreator;
+import com.vgrs.xcode.util.InitializationReport;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
 
@@ -65,25 +74,12 @@ public class UnicodeData {
 	private static final TIntSet CONTEXTUAL_CODE_POINTS = new TIntHashSet();
 
 	/**
-	 * Collection to hold the code point and it's properties read from the
-	 * "PropList.txt.gz"
-	 */
-	private static TIntObjectMap<Set<String>> PROP_LIST_TABLE =
-			new TIntObjectHashMap<Set<String>>();
-
-	/**
-	 * Collection to hold the code point and it's properties read from the
-	 * "DerivedCoreProperties.txt.gz"
-	 */
-	private static TIntObjectMap<Set<String>> DERIVED_CORE_PROP_TABLE =
-			new TIntObjectHashMap<Set<String>>();
-
-	/**
-	 * Collection to hold the code point and it's properties read from the
-	 * "DerivedCoreProperties.txt.gz"
+	 * The code points having each binary property read from "PropList.txt.gz",
+	 * "DerivedCoreProperties.txt.gz" and "DerivedNormalizationProps.txt.gz",
+	 * indexed by the property numbers of {@link UnicodeDataConstants}
 	 */
-	private static TIntObjectMap<Set<String>> DERIVED_NORMALIZATION_PROP_TABLE =
-			null;
+	private static final UnicodeFilter[] PROPERTIES =
+			new UnicodeFilter[UnicodeDataConstants.PROPERTY_COUNT];
 	/**
 	 * Collection to hold the code point and it's properties read from the
 	 * "Blocks.txt.gz"
@@ -99,30 +95,52 @@ public class UnicodeData {
 			new TIntObjectHashMap<String>();
 
 	/**
-	 * Collection to hold the code point and it's properties read from the
-	 * "Scripts.txt.gz"
+	 * Table holding the script of each code point read from the
+	 * "Scripts.txt.gz", coded as the index of its alias in SCRIPT_ALIASES plus
+	 * one, or 0 if not listed
 	 */
-	private static final TIntObjectMap<String> SCRIPTS_TABLE =
-			new TIntObjectHashMap<String>();
+	private static CodePointByteTable SCRIPTS_TABLE;
+
+	/**
+	 * The aliases of the {@link Script} constants in order, followed by those of
+	 * the scripts of newer Unicode versions that the enum does not know
+	 */
+	private static String[] SCRIPT_ALIASES;
 
 	/**
 	 * Collection to hold the code point and it's properties read from the
 	 * "DerivedJoiningType.txt.gz"
 	 */
-	private static final TIntCharMap DERIVED_JOINING_TYPE_TABLE =
+	private static TIntCharMap DERIVED_JOINING_TYPE_TABLE =
 			new TIntCharHashMap();
 
 	/**
-	 * Collection to hold the code point and it's associated BIDI class specified
-	 * in "UnicodeData.txt.gz" field 5.
+	 * Table holding the BIDI class of each code point specified in
+	 * "UnicodeData.txt.gz" field 5, coded as the index of its alias in
+	 * BIDI_CLASS_ALIASES plus one, or 0 if not listed
+	 */
+	private static CodePointByteTable BIDI_CLASS_TABLE;
+
+	/**
+	 * The aliases of the {@link BidiClass} constants in order, followed by those
+	 * of the BIDI classes of newer Unicode versions that the enum does not know,
+	 * such as the isolates of Unicode 6.3
+	 */
+	private static String[] BIDI_CLASS_ALIASES;
+
+	/**
+	 * Table holding the {@link GeneralCategory} of each code point specified in
+	 * "UnicodeData.txt.gz" field 3, coded as its ordinal plus one, or 0 if not
+	 * listed
 	 */
-	private static TIntObjectMap<String> BIDI_CLASS_TABLE;
+	private static CodePointByteTable GENERAL_CATEGORY_TABLE;
 
 	/**
-	 * Collection to hold the code point and it's associated general category
-	 * specified in "UnicodeData.txt.gz" field 3.
+	 * The "First"/"Last" code point ranges of "UnicodeData.txt.gz", sorted by
+	 * code point. The code points of these ranges are not held by
+	 * UNICODE_DATA_POINTS; lookups in that table fall back to the ranges.
 	 */
-	private static TIntObjectMap<String> GENERAL_CATEGORY_TABLE;
+	private static UnicodeDataRange[] UNICODE_DATA_RANGES;
 
 	/**
 	 * The following four collections are used by {@link Normalize} class to
@@ -131,7 +149,12 @@ public class UnicodeData {
 	 */
 	private static TIntSet COMPATIBILITY_TABLE;
 
-	private static TIntIntMap CANONICAL_CLASS_TABLE;
+	/**
+	 * Table holding the canonical combining class of each code point specified
+	 * in "UnicodeData.txt.gz" field 4, including the code points of the ranges,
+	 * or 0 if not listed
+	 */
+	private static CodePointByteTable CANONICAL_CLASS_TABLE;
 
 	private static TLongIntMap COMPOSE_TABLE;
 
@@ -144,6 +167,12 @@ public class UnicodeData {
 	private static UnicodeFilter DISALLOWED_AND_UNASSIGNED_FILTER =
 			new UnicodeFilter( "Disallowed/Unassigned" );
 
+	/**
+	 * The properties used to validate IDNA2008 labels, packed into one int per
+	 * code point
+	 */
+	private static CodePointProperties CODE_POINT_PROPERTIES;
+
 	/**
 	 * A collection to hold the code points of letters, digits and hyphen.
 	 */
@@ -168,6 +197,41 @@ public class UnicodeData {
 	private static final TIntSet BACKWARD_COMPATIBLE_CODE_POINTS =
 			new TIntHashSet();
 
+	/**
+	 * Run length table of the IDNA2008 derived property values. The value in
+	 * DERIVED_PROPERTY_VALUES[i] applies to the code points from
+	 * DERIVED_PROPERTY_STARTS[i] up to the start of the next run. The table is
+	 * read from "data/idna/DerivedProperties.txt", or derived from the Unicode
+	 * data files if that file is not available.
+	 */
+	private static int[] DERIVED_PROPERTY_STARTS;
+
+	private static UnicodeCodePointCategory[] DERIVED_PROPERTY_VALUES;
+
+	/**
+	 * The enum constants, indexed by the codes held in GENERAL_CATEGORY_TABLE,
+	 * BIDI_CLASS_TABLE and SCRIPTS_TABLE minus one. The codes past the end of
+	 * BIDI_CLASSES and SCRIPTS stand for values the enums do not know.
+	 */
+	private static final GeneralCategory[] GENERAL_CATEGORIES =
+			GeneralCategory.values();
+
+	private static final BidiClass[] BIDI_CLASSES = BidiClass.values();
+
+	private static final Script[] SCRIPTS = Script.values();
+
+	/**
+	 * The property numbers of the properties read from
+	 * "DerivedNormalizationProps.txt.gz"
+	 */
+	private static final int[] NORMALIZATION_PROPERTIES = new int[] {
+			UnicodeDataConstants.PROPERTY_NFC_QC_N,
+			UnicodeDataConstants.PROPERTY_NFC_QC_M,
+			UnicodeDataConstants.PROPERTY_NFKC_QC_N,
+			UnicodeDataConstants.PROPERTY_NFKC_QC_M,
+			UnicodeDataConstants.PROPERTY_NFKC_CF
+	};
+
 	/**
 	 * boolean to indicate that this class has finished initialzing.
 	 */
@@ -194,7 +258,12 @@ public class UnicodeData {
 	static public synchronized void init () throws XcodeException {
 		if ( !INITIALIZED ) {
 			try {
+				final long start = InitializationReport.start();
 				buildLookupTables();
+				InitializationReport.step( "UnicodeData.init", start );
+				if ( InitializationReport.isEnabled() ) {
+					reportTables();
+				}
 			}
 			catch ( Throwable ex ) {
 				throw XcodeError.IDNSDK_INITIALIZATION_ERROR( ex.getMessage() );
@@ -209,27 +278,67 @@ public class UnicodeData {
 	 * @return boolean specifying if the given code point is a combining mark.
 	 */
 	public static boolean isCombiningMark ( final int aCodePoint ) {
-		return COMBINING_MARK.contains( aCodePoint );
+		return CodePointProperties.isCombiningMark( CODE_POINT_PROPERTIES
+				.get( aCodePoint ) );
+	}
+
+
+	/**
+	 * @return the table of the properties used to validate IDNA2008 labels,
+	 *         packed into one int per code point
+	 */
+	public static CodePointProperties getCodePointProperties () {
+		return CODE_POINT_PROPERTIES;
 	}
 
 
 	/**
+	 * Look up the IDNA2008 derived property, BIDI class, canonical combining
+	 * class, joining type, script, combining mark flag and NFC and NFKC quick
+	 * check values of a code point at once. Use the static methods of
+	 * {@link CodePointProperties} to extract each of them.
+	 * 
 	 * @param aCodePoint
-	 * @return the script for the given code point, or value of "Unknown" if not
-	 *         found
+	 * @return the packed properties of the code point, or 0 if it is not a
+	 *         Unicode code point
+	 */
+	public static int getProperties ( final int aCodePoint ) {
+		return CODE_POINT_PROPERTIES.get( aCodePoint );
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the script for the given code point, as read from
+	 *         "Scripts.txt.gz", or value of "Unknown" if not found
 	 */
 	public static String getScript ( final int aCodePoint ) {
-		final String script = SCRIPTS_TABLE.get( aCodePoint );
-		if ( script != null ) {
-			return script;
+		final int script = SCRIPTS_TABLE.get( aCodePoint );
+		if ( script == 0 ) {
+			return Script.UNKNOWN.getValue();
+		}
+		return SCRIPT_ALIASES[ script - 1 ];
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the script for the given code point, or {@link Script#UNKNOWN} if
+	 *         not found or not known to {@link Script}
+	 */
+	public static Script getScriptValue ( final int aCodePoint ) {
+		final int script = SCRIPTS_TABLE.get( aCodePoint );
+		if ( script == 0 || script > SCRIPTS.length ) {
+			return Script.UNKNOWN;
 		}
-		return UnicodeDataConstants.UNKNOWN_SCRIPT;
+		return SCRIPTS[ script - 1 ];
 	}
 
 
 	/**
 	 * @param aCodePoint
-	 * @return the BIDI class for the given code point, or "L" if not found
+	 * @return the BIDI class for the given code point, as read from
+	 *         "UnicodeData.txt.gz", or "L" if not found
 	 */
 	public static String getBidiClass ( final int aCodePoint ) {
 
@@ -242,25 +351,77 @@ public class UnicodeData {
 		 * point including unassigned code points is list in
 		 * http://www.unicode.org/Public/UNIDATA/extracted/DerivedBidiClass.txt
 		 */
-		final String bidiClass = BIDI_CLASS_TABLE.get( aCodePoint );
-		if ( bidiClass == null ) {
-			return Bidi.BIDI_L;
+		final int bidiClass = BIDI_CLASS_TABLE.get( aCodePoint );
+		if ( bidiClass == 0 ) {
+			return BidiClass.LEFT_TO_RIGHT.getValue();
 		}
-		return bidiClass;
+		return BIDI_CLASS_ALIASES[ bidiClass - 1 ];
 	}
 
 
 	/**
 	 * @param aCodePoint
-	 * @return the joining type for the given code point or "U" if not found
+	 * @return the BIDI class for the given code point, or
+	 *         {@link BidiClass#LEFT_TO_RIGHT} if not found, or null if not known
+	 *         to {@link BidiClass}, which the IDNA2008 BIDI rules reject
 	 */
-	public static char getJoiningType ( final int aCodePoint ) {
-		char joiningType = UnicodeDataConstants.UNDEFINED_JOINING_TYPE;
+	public static BidiClass getBidiClassValue ( final int aCodePoint ) {
+		final int bidiClass = getBidiClassOrdinal( aCodePoint );
+		if ( bidiClass < 0 ) {
+			return null;
+		}
+		return BIDI_CLASSES[ bidiClass ];
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the ordinal of the {@link BidiClass} of the given code point, or
+	 *         of {@link BidiClass#LEFT_TO_RIGHT} if not found, or -1 if not
+	 *         known to {@link BidiClass}
+	 */
+	public static int getBidiClassOrdinal ( final int aCodePoint ) {
+		return toBidiClassOrdinal( BIDI_CLASS_TABLE.get( aCodePoint ) );
+	}
+
 
-		if ( DERIVED_JOINING_TYPE_TABLE.containsKey( aCodePoint ) ) {
-			joiningType = DERIVED_JOINING_TYPE_TABLE.get( aCodePoint );
+	/**
+	 * @param aCode
+	 *        a code held in BIDI_CLASS_TABLE
+	 * @return the ordinal of the {@link BidiClass} it stands for, or -1 if it
+	 *         stands for a BIDI class the enum does not know
+	 */
+	private static int toBidiClassOrdinal ( int aCode ) {
+		if ( aCode == 0 ) {
+			return BidiClass.LEFT_TO_RIGHT.ordinal();
+		}
+		if ( aCode > BIDI_CLASSES.length ) {
+			return -1;
+		}
+		return aCode - 1;
+	}
+
+
+	/**
+	 * @param aCode
+	 *        a code held in SCRIPTS_TABLE
+	 * @return the ordinal of the {@link Script} it stands for
+	 */
+	private static int toScriptOrdinal ( int aCode ) {
+		if ( aCode == 0 || aCode > SCRIPTS.length ) {
+			return Script.UNKNOWN.ordinal();
 		}
-		return joiningType;
+		return aCode - 1;
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the joining type for the given code point or "U" if not found
+	 */
+	public static char getJoiningType ( final int aCodePoint ) {
+		return CodePointProperties.getJoiningType( CODE_POINT_PROPERTIES
+				.get( aCodePoint ) );
 	}
 
 
@@ -275,12 +436,19 @@ public class UnicodeData {
 	 */
 	public static void assertNoDisallowedOrUnassignedCodePoints (
 			final int[] aCodePoints ) throws XcodeException {
-		DISALLOWED_AND_UNASSIGNED_FILTER.assertNone( aCodePoints );
+		for ( final int codePoint : aCodePoints ) {
+			if ( isDisallowedOrUnassignedCodePoint( codePoint ) ) {
+				throw XcodeError.UNICODEFILTER_DOES_NOT_PASS( DISALLOWED_AND_UNASSIGNED_FILTER
+						.getPrefix()
+						+ " " + Integer.toString( codePoint, 16 ).toUpperCase() );
+			}
+		}
 	}
 
 
 	public static boolean isDisallowedOrUnassignedCodePoint ( int aCodePoint ) {
-		return DISALLOWED_AND_UNASSIGNED_FILTER.has( aCodePoint );
+		return CodePointProperties.isDisallowedOrUnassigned( CODE_POINT_PROPERTIES
+				.get( aCodePoint ) );
 	}
 
 
@@ -288,17 +456,16 @@ public class UnicodeData {
 	 * @param aCodePoints
 	 *        the Unicode code points
 	 * @return boolean indicating if the given set of code points are in
-	 *         Normalization Form C (NFC [Unicode-UAX15])
-	 * @throws XcodeException
+	 *         Normalization Form C (NFC [Unicode-UAX15]); false if they cannot
+	 *         be normalized
 	 */
 	public static boolean isNormalized ( final int[] aCodePoints ) {
 		try {
-			Normalize.execute( aCodePoints );
+			return Normalize.isNormalized( aCodePoints );
 		}
-		catch ( final Exception ex ) {
+		catch ( final XcodeException ex ) {
 			return false;
 		}
-		return true;
 	}
 
 
@@ -313,13 +480,47 @@ public class UnicodeData {
 	 */
 	public static void assertNormalized ( final int[] aCodePoints )
 			throws XcodeException {
-		final int[] normalizedCodePoints = Normalize.execute( aCodePoints );
-		if ( !Arrays.equals( normalizedCodePoints, aCodePoints ) ) {
+		if ( !Normalize.isNormalized( aCodePoints ) ) {
 			throw XcodeError.NORMALIZE_NOT_IN_NFC_FORM();
 		}
 	}
 
 
+	/**
+	 * Specifies if a code point has a binary property.
+	 * 
+	 * @param aCodePoint
+	 *        the Unicode code point
+	 * @param aProperty
+	 *        one of the PROPERTY_* property numbers of
+	 *        {@link UnicodeDataConstants}
+	 * @return true if the code point has the property
+	 * @throws XcodeException
+	 *         if the property number is not one of PROPERTY_*
+	 */
+	public static boolean hasProperty ( int aCodePoint, int aProperty )
+			throws XcodeException {
+		if ( aProperty < 0 || aProperty >= UnicodeDataConstants.PROPERTY_COUNT ) {
+			throw XcodeError.INVALID_ARGUMENT( "unknown property " + aProperty );
+		}
+		return inProperty( aCodePoint, aProperty );
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 *        the Unicode code point
+	 * @param aProperty
+	 *        one of the PROPERTY_* property numbers of
+	 *        {@link UnicodeDataConstants}
+	 * @return true if the code point has the property
+	 */
+	private static boolean inProperty ( int aCodePoint, int aProperty ) {
+		final UnicodeFilter property = PROPERTIES[ aProperty ];
+		return property != null && property.has( aCodePoint );
+	}
+
+
 	/**
 	 * This method performs a quick check to see if the given code points can be
 	 * normalized or not.
@@ -355,8 +556,6 @@ public class UnicodeData {
 		 * default value for Quick_Check properties
 		 */
 		for ( final int codePoint : aCodePoints ) {
-			final Set<String> value =
-					DERIVED_NORMALIZATION_PROP_TABLE.get( codePoint );
 
 			/*
 			 * First check: return 0 If we found a code point in the given set that
@@ -365,7 +564,7 @@ public class UnicodeData {
 			 * DerivedNormalizationProps.txt
 			 */
 
-			if ( value != null && value.contains( UnicodeDataConstants.NFC_QC_N ) ) {
+			if ( inProperty( codePoint, UnicodeDataConstants.PROPERTY_NFC_QC_N ) ) {
 				return UnicodeDataConstants.CANNOT_BE_NORMALIZED;
 			}
 
@@ -377,7 +576,7 @@ public class UnicodeData {
 			 * the NFKD form is always the same as the NFD form.
 			 */
 
-			if ( value != null && value.contains( UnicodeDataConstants.NFC_QC_M ) ) {
+			if ( inProperty( codePoint, UnicodeDataConstants.PROPERTY_NFC_QC_M ) ) {
 				return UnicodeDataConstants.NORMALIZATION_NEEDED;
 			}
 		}
@@ -393,12 +592,21 @@ public class UnicodeData {
 	 *         found
 	 */
 	public static int getCanonicalClass ( final int aCodePoint ) {
-		if ( CANONICAL_CLASS_TABLE.containsKey( aCodePoint ) ) {
-			return CANONICAL_CLASS_TABLE.get( aCodePoint );
-		}
-		else {
-			return 0;
-		}
+		return CANONICAL_CLASS_TABLE.get( aCodePoint );
+	}
+
+
+	/**
+	 * Checks to see if "UnicodeData.txt.gz" specifies a canonical combining
+	 * class for the code point, either individually or as part of a range.
+	 * 
+	 * @param aCodePoint
+	 * @return true if the code point has a canonical combining class
+	 */
+	public static boolean hasCanonicalClass ( final int aCodePoint ) {
+		// every code point listed has both a general category and a canonical
+		// combining class
+		return GENERAL_CATEGORY_TABLE.get( aCodePoint ) != 0;
 	}
 
 
@@ -412,7 +620,8 @@ public class UnicodeData {
 	 */
 	public static boolean hasContextualCodePoints ( int[] aCodePoints ) {
 		for ( final int codePoint : aCodePoints ) {
-			if ( CONTEXTUAL_CODE_POINTS.contains( codePoint ) ) {
+			if ( CodePointProperties.isContextual( CODE_POINT_PROPERTIES
+					.get( codePoint ) ) ) {
 				return true;
 			}
 		}
@@ -570,15 +779,13 @@ public class UnicodeData {
 	 */
 	private static boolean inUnassigned ( int aCodePoint ) {
 
-		boolean nonCharacterCodePoint = false;
+		final boolean nonCharacterCodePoint =
+				inProperty( aCodePoint,
+						UnicodeDataConstants.PROPERTY_NONCHARACTER_CODE_POINT );
 
-		final Set<String> set = PROP_LIST_TABLE.get( aCodePoint );
-		if ( set != null
-				&& set.contains( UnicodeDataConstants.NONCHARACTER_CODE_POINT ) ) {
-			nonCharacterCodePoint = true;
-		}
-
-		if ( !UNICODE_DATA_POINTS.contains( aCodePoint ) && !nonCharacterCodePoint ) {
+		if ( !UNICODE_DATA_POINTS.contains( aCodePoint )
+				&& UnicodeDataRange.find( UNICODE_DATA_RANGES, aCodePoint ) == null
+				&& !nonCharacterCodePoint ) {
 			return true;
 		}
 		else {
@@ -625,11 +832,7 @@ public class UnicodeData {
 	 * @return
 	 */
 	private static boolean inJoinControl ( int aCodePoint ) {
-		final Set<String> set = PROP_LIST_TABLE.get( aCodePoint );
-		if ( set != null && set.contains( "Join_Control" ) ) {
-			return true;
-		}
-		return false;
+		return inProperty( aCodePoint, UnicodeDataConstants.PROPERTY_JOIN_CONTROL );
 	}
 
 
@@ -661,14 +864,8 @@ public class UnicodeData {
 		 * (value.contains("NFKC_CF"))) return true;
 		 */
 
-		final Set<String> value = DERIVED_NORMALIZATION_PROP_TABLE.get( aCodePoint );
-		if ( value != null
-				&& (value.contains( UnicodeDataConstants.NFKC_QC_N ) || value
-						.contains( UnicodeDataConstants.NFKC_CF )) ) {
-			return true;
-		}
-
-		return false;
+		return inProperty( aCodePoint, UnicodeDataConstants.PROPERTY_NFKC_QC_N )
+				|| inProperty( aCodePoint, UnicodeDataConstants.PROPERTY_NFKC_CF );
 	}
 
 
@@ -686,22 +883,11 @@ public class UnicodeData {
 	 */
 	private static boolean inIgnorableProperties ( int aCodePoint ) {
 
-		Set<String> value = null;
-
-		value = DERIVED_CORE_PROP_TABLE.get( aCodePoint );
-		if ( value != null
-				&& value.contains( UnicodeDataConstants.DEFAULT_IGNORABLE_CODE_POINT ) ) {
-			return true;
-		}
-
-		value = PROP_LIST_TABLE.get( aCodePoint );
-		if ( value != null
-				&& (value.contains( UnicodeDataConstants.WHITE_SPACE ) || value
-						.contains( UnicodeDataConstants.NONCHARACTER_CODE_POINT )) ) {
-			return true;
-		}
-
-		return false;
+		return inProperty( aCodePoint,
+				UnicodeDataConstants.PROPERTY_DEFAULT_IGNORABLE_CODE_POINT )
+				|| inProperty( aCodePoint, UnicodeDataConstants.PROPERTY_WHITE_SPACE )
+				|| inProperty( aCodePoint,
+						UnicodeDataConstants.PROPERTY_NONCHARACTER_CODE_POINT );
 	}
 
 
@@ -763,16 +949,18 @@ public class UnicodeData {
 	 * @return boolean indicating if the code point is a letter or a digit
 	 */
 	private static boolean inLetterDigits ( int aCodePoint ) {
-		final String propertyValue = GENERAL_CATEGORY_TABLE.get( aCodePoint );
-		if ( propertyValue != null ) {
-			if ( propertyValue.equals( "Ll" ) || propertyValue.equals( "Lu" )
-					|| propertyValue.equals( "Lo" ) || propertyValue.equals( "Nd" )
-					|| propertyValue.equals( "Lm" ) || propertyValue.equals( "Mn" )
-					|| propertyValue.equals( "Mc" ) ) {
-				return true;
-			}
+		switch (getGeneralCategoryValue( aCodePoint )) {
+		case LOWERCASE_LETTER:
+		case UPPERCASE_LETTER:
+		case OTHER_LETTER:
+		case DECIMAL_NUMBER:
+		case MODIFIER_LETTER:
+		case NONSPACING_MARK:
+		case SPACING_MARK:
+			return true;
+		default:
+			return false;
 		}
-		return false;
 	}
 
 
@@ -781,35 +969,525 @@ public class UnicodeData {
 	 * IDNA2008 Protocol
 	 */
 	static private void buildLookupTables () throws XcodeException {
+		long start = InitializationReport.start();
+		final UnicodeDataSnapshot snapshot = UnicodeDataSnapshot.read();
+		InitializationReport.step( "UnicodeDataSnapshot.read", start );
+		if ( snapshot != null ) {
+			restoreSnapshot( snapshot );
+			start = InitializationReport.start();
+			collapseUnicodeData();
+			InitializationReport.step( "collapseUnicodeData", start );
+			return;
+		}
+
+		/*
+		 * The data files are independent of each other, so they are read at the
+		 * same time by a ParallelDataLoader. Its tasks run while this class is
+		 * still being initialized, so they must not use any of its members and
+		 * only fill the collections handed to them.
+		 */
+		final ParallelDataLoader loader = new ParallelDataLoader();
+		loader.add( loadUnicodeData() );
+		loader.add( loadDerivedNormalizationPropertiesData() );
+		loader.add( loadDerivedJoiningTypeData( DERIVED_JOINING_TYPE_TABLE ) );
+		final TIntObjectMap<String> scripts = new TIntObjectHashMap<String>();
+		loader.add( loadScriptsData( scripts ) );
+
+		/*
+		 * The derived property values are normally precomputed at build time by
+		 * DerivedPropertiesGenerator. The remaining data files are only needed to
+		 * derive them here when that table is unavailable or out of date, or when
+		 * derivation is explicitly requested.
+		 */
+		final boolean derive =
+				Boolean.getBoolean( UnicodeDataConstants.DERIVE_PROPERTIES_PROPERTY );
+		final TIntList derivedStarts = new TIntArrayList();
+		final List<UnicodeCodePointCategory> derivedValues =
+				new ArrayList<UnicodeCodePointCategory>();
+		final AtomicBoolean derivedCurrent = new AtomicBoolean( false );
+		loader.add( loadPropListData( PROPERTIES ) );
+		loader.add( loadDerivedCorePropertiesData( PROPERTIES ) );
+		if ( derive ) {
+			addDerivationLoaders( loader );
+		}
+		else {
+			loader.add( loadDerivedPropertiesData( derivedStarts, derivedValues,
+					derivedCurrent ) );
+		}
+		loader.run();
+
+		if ( !derive && !derivedCurrent.get() ) {
+			addDerivationLoaders( loader );
+			loader.run();
+		}
+
+		start = InitializationReport.start();
 		initializeUnicodeDataVariables();
-		loadLDH();
-		loadPropListData();
-		loadDerivedNormalizationPropertiesData();
-		loadBlocksData();
-		loadHangulSyllableTypeData();
-		loadDerivedJoiningTypeData();
-		loadScriptsData();
-		loadDerivedNormalizationPropertiesData();
-		loadDerivedCorePropertiesData();
+		final List<String> scriptAliases = new ArrayList<String>();
+		for ( final Script script : SCRIPTS ) {
+			scriptAliases.add( script.getValue() );
+		}
+		SCRIPTS_TABLE = buildScriptsTable( scripts, scriptAliases );
+		SCRIPT_ALIASES = scriptAliases.toArray( new String[scriptAliases.size()] );
+		InitializationReport.step( "initializeUnicodeDataVariables", start );
+		for ( final int property : NORMALIZATION_PROPERTIES ) {
+			PROPERTIES[ property ] =
+					DerivedNormalizationProperties
+							.getDerivedNormalizationProperty( property );
+		}
+		if ( derivedCurrent.get() ) {
+			DERIVED_PROPERTY_STARTS = derivedStarts.toArray();
+			DERIVED_PROPERTY_VALUES =
+					derivedValues.toArray( new UnicodeCodePointCategory[derivedValues
+							.size()] );
+		}
+		else {
+			loadLDH();
+			start = InitializationReport.start();
+			deriveCodePointProperties();
+			InitializationReport.step( "deriveCodePointProperties", start );
+		}
 
+		start = InitializationReport.start();
 		collapseUnicodeData();
+		InitializationReport.step( "collapseUnicodeData", start );
+		UnicodeDataLoader.nullifyUnicodeDataPointsTable();
+
+		if ( UnicodeDataSnapshot.getFile() != null ) {
+			start = InitializationReport.start();
+			createSnapshot().write();
+			InitializationReport.step( "UnicodeDataSnapshot.write", start );
+		}
 
 	} // END buildLookupTables()
 
 
+	/**
+	 * Adds the tasks loading the data files that are only needed to derive the
+	 * IDNA2008 derived property values at runtime.
+	 * 
+	 * @param aLoader
+	 *        the loader to add the tasks to
+	 */
+	private static void addDerivationLoaders ( ParallelDataLoader aLoader ) {
+		aLoader.add( loadBlocksData( BLOCKS_TABLE ) );
+		aLoader.add( loadHangulSyllableTypeData( HANGUL_SYLLABLE_TYPE_TABLE ) );
+	}
+
+
+	/**
+	 * Utility method to load the data in "data/unicode/UnicodeData.txt.gz" and
+	 * "data/unicode/CompositionExclusions.txt.gz" files, which is done by the
+	 * {@link UnicodeDataLoader} class when it is first used.
+	 * 
+	 * @return a task loading the files
+	 */
+	private static Callable<Void> loadUnicodeData () {
+		return new Callable<Void>() {
+			public Void call () {
+				final long start = InitializationReport.start();
+				UnicodeDataLoader.getUnicodeDataPoints();
+				InitializationReport.step( "loadUnicodeData", start );
+				return null;
+			}
+		};
+	}
+
+
 	/**
 	 * Data read from "data/unicode/UnicodeData.txt.gz" file by
 	 * {@link UnicodeDataLoader} class is stored in the variables below. This data
 	 * is then used by other classes to implement the IDNA2008 Protocol.
 	 */
-	private static void initializeUnicodeDataVariables () {
+	private static void initializeUnicodeDataVariables () throws XcodeException {
 		UNICODE_DATA_POINTS = UnicodeDataLoader.getUnicodeDataPoints();
-		BIDI_CLASS_TABLE = UnicodeDataLoader.getBidiClassTable();
-		CANONICAL_CLASS_TABLE = UnicodeDataLoader.getCanonicalClassTable();
 		COMPATIBILITY_TABLE = UnicodeDataLoader.getCompatibilityTable();
 		COMPOSE_TABLE = UnicodeDataLoader.getComposeTable();
 		DECOMPOSE_TABLE = UnicodeDataLoader.getDecomposeTable();
-		GENERAL_CATEGORY_TABLE = UnicodeDataLoader.getGeneralCategoryTable();
+		UNICODE_DATA_RANGES = UnicodeDataLoader.getUnicodeDataRanges();
+		CANONICAL_CLASS_TABLE =
+				buildCanonicalClassTable( UnicodeDataLoader.getCanonicalClassTable() );
+		GENERAL_CATEGORY_TABLE =
+				buildGeneralCategoryTable( UnicodeDataLoader.getGeneralCategoryTable() );
+		final List<String> bidiClassAliases = new ArrayList<String>();
+		for ( final BidiClass bidiClass : BIDI_CLASSES ) {
+			bidiClassAliases.add( bidiClass.getValue() );
+		}
+		BIDI_CLASS_TABLE =
+				buildBidiClassTable( UnicodeDataLoader.getBidiClassTable(),
+						bidiClassAliases );
+		BIDI_CLASS_ALIASES =
+				bidiClassAliases.toArray( new String[bidiClassAliases.size()] );
+	}
+
+
+	/**
+	 * Code the general categories read from "UnicodeData.txt.gz" into a
+	 * {@link CodePointByteTable}.
+	 * 
+	 * @param aTable
+	 *        the general category of the individually listed code points
+	 * @return the table
+	 * @throws XcodeException
+	 *         if a general category is not known. The set of General_Category
+	 *         values is closed by the Unicode stability policy, so this is not a
+	 *         valid "UnicodeData.txt" of any version.
+	 */
+	private static CodePointByteTable buildGeneralCategoryTable (
+			TIntObjectMap<String> aTable ) throws XcodeException {
+		final byte[] values = new byte[Unicode.MAX + 1];
+		final TIntObjectIterator<String> i = aTable.iterator();
+		while ( i.hasNext() ) {
+			i.advance();
+			values[ i.key() ] = toGeneralCategoryCode( i.value() );
+		}
+		for ( final UnicodeDataRange range : UNICODE_DATA_RANGES ) {
+			if ( range.generalCategory != null ) {
+				Arrays.fill( values, range.first, range.last + 1,
+						toGeneralCategoryCode( range.generalCategory ) );
+			}
+		}
+		return CodePointByteTable.compact( values );
+	}
+
+
+	private static byte toGeneralCategoryCode ( String aValue )
+			throws XcodeException {
+		final GeneralCategory category = GeneralCategory.getGeneralCategory( aValue );
+		if ( category == null ) {
+			throw XcodeError.INVALID_FILE_FORMAT( ": unknown general category \""
+					+ aValue + "\"" );
+		}
+		return (byte) (category.ordinal() + 1);
+	}
+
+
+	/**
+	 * Store the canonical combining classes read from "UnicodeData.txt.gz" into
+	 * a {@link CodePointByteTable}.
+	 * 
+	 * @param aTable
+	 *        the canonical combining class of the individually listed code
+	 *        points
+	 * @return the table
+	 */
+	private static CodePointByteTable buildCanonicalClassTable (
+			TIntIntMap aTable ) {
+		final byte[] values = new byte[Unicode.MAX + 1];
+		final TIntIntIterator i = aTable.iterator();
+		while ( i.hasNext() ) {
+			i.advance();
+			values[ i.key() ] = (byte) i.value();
+		}
+		for ( final UnicodeDataRange range : UNICODE_DATA_RANGES ) {
+			Arrays.fill( values, range.first, range.last + 1,
+					(byte) range.canonicalClass );
+		}
+		return CodePointByteTable.compact( values );
+	}
+
+
+	/**
+	 * Code the BIDI classes read from "UnicodeData.txt.gz" into a
+	 * {@link CodePointByteTable}.
+	 * 
+	 * @param aTable
+	 *        the BIDI class of the individually listed code points
+	 * @param aAliases
+	 *        the aliases of the {@link BidiClass} constants, to which those of
+	 *        the BIDI classes not known to the enum are added
+	 * @return the table
+	 * @throws XcodeException
+	 *         if there are too many BIDI classes to be coded
+	 */
+	private static CodePointByteTable buildBidiClassTable (
+			TIntObjectMap<String> aTable, List<String> aAliases )
+			throws XcodeException {
+		final byte[] values = new byte[Unicode.MAX + 1];
+		final TIntObjectIterator<String> i = aTable.iterator();
+		while ( i.hasNext() ) {
+			i.advance();
+			values[ i.key() ] = toBidiClassCode( i.value(), aAliases );
+		}
+		for ( final UnicodeDataRange range : UNICODE_DATA_RANGES ) {
+			if ( range.bidiClass != null ) {
+				Arrays.fill( values, range.first, range.last + 1,
+						toBidiClassCode( range.bidiClass, aAliases ) );
+			}
+		}
+		return CodePointByteTable.compact( values );
+	}
+
+
+	private static byte toBidiClassCode ( String aValue, List<String> aAliases )
+			throws XcodeException {
+		final BidiClass bidiClass = BidiClass.getBidiClass( aValue );
+		if ( bidiClass == null ) {
+			return toAliasCode( aValue, aAliases );
+		}
+		return (byte) (bidiClass.ordinal() + 1);
+	}
+
+
+	/**
+	 * Code a property value not known to its enum, such as a value added by a
+	 * newer Unicode version than the enum's.
+	 * 
+	 * @param aValue
+	 *        the property value alias
+	 * @param aAliases
+	 *        the aliases coded so far, to which aValue is added if missing
+	 * @return the index of aValue in aAliases plus one
+	 * @throws XcodeException
+	 *         if there are too many values to be coded in a byte
+	 */
+	private static byte toAliasCode ( String aValue, List<String> aAliases )
+			throws XcodeException {
+		int index = aAliases.indexOf( aValue );
+		if ( index < 0 ) {
+			index = aAliases.size();
+			if ( index >= 0xff ) {
+				throw XcodeError.INVALID_FILE_FORMAT( ": too many property values, \""
+						+ aValue + "\"" );
+			}
+			aAliases.add( aValue );
+		}
+		return (byte) (index + 1);
+	}
+
+
+	/**
+	 * Code the scripts read from "Scripts.txt.gz" into a
+	 * {@link CodePointByteTable}.
+	 * 
+	 * @param aTable
+	 *        the script of each listed code point
+	 * @param aAliases
+	 *        the aliases of the {@link Script} constants, to which those of the
+	 *        scripts not known to the enum are added
+	 * @return the table
+	 * @throws XcodeException
+	 *         if there are too many scripts to be coded
+	 */
+	private static CodePointByteTable buildScriptsTable (
+			TIntObjectMap<String> aTable, List<String> aAliases )
+			throws XcodeException {
+		final byte[] values = new byte[Unicode.MAX + 1];
+		final TIntObjectIterator<String> i = aTable.iterator();
+		while ( i.hasNext() ) {
+			i.advance();
+			final Script script = Script.getScript( i.value() );
+			values[ i.key() ] =
+					script == null ? toAliasCode( i.value(), aAliases )
+							: (byte) (script.ordinal() + 1);
+		}
+		return CodePointByteTable.compact( values );
+	}
+
+
+	/**
+	 * Expand a table of coded property values into a map from each listed code
+	 * point to its property value alias.
+	 * 
+	 * @param aTable
+	 *        the coded table
+	 * @param aValues
+	 *        the property value alias of each code minus one
+	 * @return the map
+	 */
+	private static TIntObjectMap<String> toPropertyValueMap (
+			CodePointByteTable aTable, String[] aValues ) {
+		final TIntObjectMap<String> map = new TIntObjectHashMap<String>();
+		final byte[] codes = aTable.expand();
+		for ( int codePoint = 0; codePoint < codes.length; codePoint++ ) {
+			if ( codes[ codePoint ] != 0 ) {
+				map.put( codePoint, aValues[ (codes[ codePoint ] & 0xff) - 1 ] );
+			}
+		}
+		return map;
+	}
+
+
+	/**
+	 * Applies the IDNA2008 derivation algorithm to every Unicode code point and
+	 * stores the result in the derived property run length table. This is the
+	 * slow path used by {@link DerivedPropertiesGenerator} at build time, and at
+	 * runtime only if the precomputed table is not available.
+	 */
+	private static void deriveCodePointProperties () {
+		final TIntList starts = new TIntArrayList();
+		final List<UnicodeCodePointCategory> values =
+				new ArrayList<UnicodeCodePointCategory>();
+		UnicodeCodePointCategory previous = null;
+		UnicodeCodePointCategory category = null;
+		for ( int unicodeCodePoint = Unicode.MIN; unicodeCodePoint <= Unicode.MAX; unicodeCodePoint++ ) {
+			category = internalGetCodePointDerivedProperty( unicodeCodePoint );
+			if ( category != previous ) {
+				starts.add( unicodeCodePoint );
+				values.add( category );
+				previous = category;
+			}
+		}
+		DERIVED_PROPERTY_STARTS = starts.toArray();
+		DERIVED_PROPERTY_VALUES =
+				values.toArray( new UnicodeCodePointCategory[values.size()] );
+	}
+
+
+	/**
+	 * Utility method to load the precomputed derived property values from
+	 * "data/idna/DerivedProperties.txt" file.
+	 * 
+	 * @param aStarts
+	 *        receives the first code point of each run
+	 * @param aValues
+	 *        receives the derived property value of each run
+	 * @param aCurrent
+	 *        set to true if the file was present and up to date
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadDerivedPropertiesData (
+			final TIntList aStarts, final List<UnicodeCodePointCategory> aValues,
+			final AtomicBoolean aCurrent ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+				aCurrent.set( UnicodeDataFileUtil.loadDerivedProperties(
+						UnicodeDataConstants.DERIVED_PROPERTIES_DATA,
+						UnicodeDataConstants.DERIVED_PROPERTIES_SOURCE_DATA, aStarts,
+						aValues ) );
+				InitializationReport.step( "loadDerivedPropertiesData", start );
+				return null;
+			}
+		};
+	}
+
+
+	/**
+	 * @return a snapshot of the tables built from the Unicode data files
+	 */
+	private static UnicodeDataSnapshot createSnapshot () {
+		final UnicodeDataSnapshot snapshot = new UnicodeDataSnapshot();
+		snapshot.generalCategoryTable = GENERAL_CATEGORY_TABLE;
+		snapshot.bidiClassTable = BIDI_CLASS_TABLE;
+		snapshot.bidiClassAliases = BIDI_CLASS_ALIASES;
+		snapshot.canonicalClassTable = CANONICAL_CLASS_TABLE;
+		snapshot.unicodeDataRanges = UNICODE_DATA_RANGES;
+		snapshot.compatibilityTable = COMPATIBILITY_TABLE;
+		snapshot.composeTable = COMPOSE_TABLE;
+		snapshot.decomposeTable = DECOMPOSE_TABLE;
+		snapshot.scriptsTable = SCRIPTS_TABLE;
+		snapshot.scriptAliases = SCRIPT_ALIASES;
+		snapshot.derivedJoiningTypeTable = DERIVED_JOINING_TYPE_TABLE;
+		snapshot.properties = PROPERTIES.clone();
+		snapshot.derivedPropertyStarts = DERIVED_PROPERTY_STARTS;
+		snapshot.derivedPropertyValues = DERIVED_PROPERTY_VALUES;
+		return snapshot;
+	}
+
+
+	/**
+	 * Initialize the tables from a snapshot instead of the Unicode data files.
+	 * 
+	 * @param aSnapshot
+	 *        the snapshot read by {@link UnicodeDataSnapshot#read()}
+	 */
+	private static void restoreSnapshot ( UnicodeDataSnapshot aSnapshot ) {
+		GENERAL_CATEGORY_TABLE = aSnapshot.generalCategoryTable;
+		BIDI_CLASS_TABLE = aSnapshot.bidiClassTable;
+		BIDI_CLASS_ALIASES = aSnapshot.bidiClassAliases;
+		CANONICAL_CLASS_TABLE = aSnapshot.canonicalClassTable;
+		UNICODE_DATA_RANGES = aSnapshot.unicodeDataRanges;
+		COMPATIBILITY_TABLE = aSnapshot.compatibilityTable;
+		COMPOSE_TABLE = aSnapshot.composeTable;
+		DECOMPOSE_TABLE = aSnapshot.decomposeTable;
+		SCRIPTS_TABLE = aSnapshot.scriptsTable;
+		SCRIPT_ALIASES = aSnapshot.scriptAliases;
+		DERIVED_JOINING_TYPE_TABLE = aSnapshot.derivedJoiningTypeTable;
+		System.arraycopy( aSnapshot.properties, 0, PROPERTIES, 0,
+				PROPERTIES.length );
+		DERIVED_PROPERTY_STARTS = aSnapshot.derivedPropertyStarts;
+		DERIVED_PROPERTY_VALUES = aSnapshot.derivedPropertyValues;
+	}
+
+
+	/**
+	 * Records the number of entries and approximate retained heap of each table
+	 * in the {@link InitializationReport}.
+	 */
+	private static void reportTables () {
+		reportTable( "GENERAL_CATEGORY_TABLE", GENERAL_CATEGORY_TABLE );
+		reportTable( "BIDI_CLASS_TABLE", BIDI_CLASS_TABLE );
+		reportTable( "SCRIPTS_TABLE", SCRIPTS_TABLE );
+		reportTable( "CANONICAL_CLASS_TABLE", CANONICAL_CLASS_TABLE );
+		InitializationReport.table( "UNICODE_DATA_RANGES",
+				UNICODE_DATA_RANGES.length, UNICODE_DATA_RANGES.length * 48L );
+		InitializationReport.table( "COMPATIBILITY_TABLE",
+				COMPATIBILITY_TABLE.size(), getHashSize( COMPATIBILITY_TABLE,
+						COMPATIBILITY_TABLE.size(), 4 ) );
+		InitializationReport.table( "COMPOSE_TABLE", COMPOSE_TABLE.size(),
+				getHashSize( COMPOSE_TABLE, COMPOSE_TABLE.size(), 8 + 4 ) );
+		long decompositions = 0;
+		for ( final int[] decomposition : DECOMPOSE_TABLE.valueCollection() ) {
+			decompositions += 16 + decomposition.length * 4;
+		}
+		InitializationReport.table( "DECOMPOSE_TABLE", DECOMPOSE_TABLE.size(),
+				getHashSize( DECOMPOSE_TABLE, DECOMPOSE_TABLE.size(), 4 + 4 )
+						+ decompositions );
+		InitializationReport.table( "DERIVED_JOINING_TYPE_TABLE",
+				DERIVED_JOINING_TYPE_TABLE.size(), getHashSize(
+						DERIVED_JOINING_TYPE_TABLE, DERIVED_JOINING_TYPE_TABLE.size(),
+						4 + 2 ) );
+		for ( int i = 0; i < PROPERTIES.length; i++ ) {
+			if ( PROPERTIES[ i ] != null ) {
+				InitializationReport.table( "PROPERTIES "
+						+ UnicodeDataConstants.PROPERTY_NAMES[ i ], PROPERTIES[ i ]
+						.getRanges().size(), PROPERTIES[ i ].getApproximateSize() );
+			}
+		}
+		InitializationReport.table( "DERIVED_PROPERTY_STARTS",
+				DERIVED_PROPERTY_STARTS.length, DERIVED_PROPERTY_STARTS.length * 8L );
+		InitializationReport.table( "CONTEXTUAL_CODE_POINTS",
+				CONTEXTUAL_CODE_POINTS.size(), getHashSize( CONTEXTUAL_CODE_POINTS,
+						CONTEXTUAL_CODE_POINTS.size(), 4 ) );
+		InitializationReport.table( "COMBINING_MARK", COMBINING_MARK.size(),
+				getHashSize( COMBINING_MARK, COMBINING_MARK.size(), 4 ) );
+		InitializationReport.table( "DISALLOWED_AND_UNASSIGNED_FILTER",
+				DISALLOWED_AND_UNASSIGNED_FILTER.getRanges().size(),
+				DISALLOWED_AND_UNASSIGNED_FILTER.getApproximateSize() );
+		InitializationReport.table( "CODE_POINT_PROPERTIES",
+				CODE_POINT_PROPERTIES.getBlockCount(), CODE_POINT_PROPERTIES
+						.getApproximateSize() );
+	}
+
+
+	/**
+	 * @param aName
+	 * @param aTable
+	 *        a table to record in the {@link InitializationReport}, with the
+	 *        number of distinct blocks as its entries
+	 */
+	private static void reportTable ( String aName, CodePointByteTable aTable ) {
+		InitializationReport.table( aName, aTable.data.length >> 7,
+				aTable.index.length * 2L + aTable.data.length );
+	}
+
+
+	/**
+	 * @param aTable
+	 *        a Trove hash table
+	 * @param aSize
+	 *        the number of entries of the table
+	 * @param aBytesPerEntry
+	 *        the size of the key and value of an entry
+	 * @return the approximate retained heap of the table, whose slots hold a key,
+	 *         a value and a state byte
+	 */
+	private static long getHashSize ( Object aTable, int aSize,
+			int aBytesPerEntry ) {
+		final int slots =
+				aTable instanceof THash ? ((THash) aTable).capacity() : aSize;
+		return (long) slots * (aBytesPerEntry + 1);
 	}
 
 
@@ -824,102 +1502,249 @@ public class UnicodeData {
 	 * @throws XcodeException
 	 */
 	private static void collapseUnicodeData () throws XcodeException {
-		// List to hold DISALLOWED/UNASSIGNED code points
-		final TIntList disallowedAndUnassignedPoints = new TIntArrayList();
-		UnicodeCodePointCategory category = null;
-		String property = null;
-		for ( int unicodeCodePoint = Unicode.MIN; unicodeCodePoint <= Unicode.MAX; unicodeCodePoint++ ) {
-			category = internalGetCodePointDerivedProperty( unicodeCodePoint );
-			switch (category) {
+		// List to hold DISALLOWED/UNASSIGNED code point ranges
+		final List<Range> prohibitedRanges = new ArrayList<Range>();
+		for ( int i = 0; i < DERIVED_PROPERTY_STARTS.length; i++ ) {
+			final int first = DERIVED_PROPERTY_STARTS[ i ];
+			final int last =
+					i + 1 < DERIVED_PROPERTY_STARTS.length ? DERIVED_PROPERTY_STARTS[ i + 1 ] - 1
+							: Unicode.MAX;
+			switch (DERIVED_PROPERTY_VALUES[ i ]) {
 			case PVALID:
 				break;
 			case CONTEXTO:
-				CONTEXTUAL_CODE_POINTS.add( unicodeCodePoint );
-				break;
 			case CONTEXTJ:
-				CONTEXTUAL_CODE_POINTS.add( unicodeCodePoint );
+				for ( int codePoint = first; codePoint <= last; codePoint++ ) {
+					CONTEXTUAL_CODE_POINTS.add( codePoint );
+				}
 				break;
 			default:
-				disallowedAndUnassignedPoints.add( unicodeCodePoint );
+				prohibitedRanges.add( new Range( first, last ) );
 			}
-			property = GENERAL_CATEGORY_TABLE.get( unicodeCodePoint );
-			if ( property != null ) {
-				if ( property.equals( UnicodeDataConstants.GENERAL_CATEGORY_ME )
-						|| property.equals( UnicodeDataConstants.GENERAL_CATEGORY_MC )
-						|| property.equals( UnicodeDataConstants.GENERAL_CATEGORY_MN ) ) {
-					COMBINING_MARK.add( unicodeCodePoint );
+		}
+
+		// Combining marks only need the code points listed in UnicodeData.txt
+		final byte[] generalCategories = GENERAL_CATEGORY_TABLE.expand();
+		for ( int codePoint = 0; codePoint < generalCategories.length; codePoint++ ) {
+			if ( generalCategories[ codePoint ] != 0 ) {
+				switch (GENERAL_CATEGORIES[ generalCategories[ codePoint ] - 1 ]) {
+				case ENCLOSING_MARK:
+				case SPACING_MARK:
+				case NONSPACING_MARK:
+					COMBINING_MARK.add( codePoint );
+					break;
+				default:
+					break;
 				}
 			}
-
 		}
+
 		// Store all the DISALLOWED/UNASSIGNED code points into one Unicode Filter.
-		final Collection<Range> prohibitedRanges =
-				RangeCreator.createRanges( disallowedAndUnassignedPoints );
+		long start = InitializationReport.start();
 		DISALLOWED_AND_UNASSIGNED_FILTER.add( prohibitedRanges );
+		InitializationReport.step( "UnicodeFilter.compile "
+				+ DISALLOWED_AND_UNASSIGNED_FILTER.getPrefix(), start );
+
+		start = InitializationReport.start();
+		buildCodePointProperties();
+		InitializationReport.step( "buildCodePointProperties", start );
 
 		// nullify unneeded data strucutres to conserve memory
-		UnicodeDataLoader.nullifyUnicodeDataPointsTable();
 		UNICODE_DATA_POINTS = null;
 		BLOCKS_TABLE = null;
 		HANGUL_SYLLABLE_TYPE_TABLE = null;
-		DERIVED_CORE_PROP_TABLE = null;
-		PROP_LIST_TABLE = null;
 	}
 
 
 	/**
-	 * Utility method to load the data in "data/unicode/HangulSyllableType.txt.gz"
-	 * file.
+	 * Packs the IDNA2008 derived property, BIDI class, canonical combining class,
+	 * joining type, script, combining mark flag, quick check values and
+	 * "UnicodeData.txt" listing of every code point into CODE_POINT_PROPERTIES,
+	 * once the tables holding them have been built.
 	 * 
 	 * @throws XcodeException
-	 */
-	private static void loadHangulSyllableTypeData () throws XcodeException {
+	 *         if a BIDI class, script or joining type has no code in the packed
+	 *         value
+	 */
+	private static void buildCodePointProperties () throws XcodeException {
+		final int[] values = new int[Unicode.MAX + 1];
+
+		final byte[] bidiClasses = BIDI_CLASS_TABLE.expand();
+		final byte[] scripts = SCRIPTS_TABLE.expand();
+		for ( int codePoint = 0; codePoint <= Unicode.MAX; codePoint++ ) {
+			final int bidiClass = toBidiClassOrdinal( bidiClasses[ codePoint ] & 0xff );
+			final int script = toScriptOrdinal( scripts[ codePoint ] & 0xff );
+			if ( bidiClass + 1 > CodePointProperties.BIDI_CLASS_MASK ) {
+				throw XcodeError.INVALID_FILE_FORMAT( ": BIDI class \""
+						+ BIDI_CLASSES[ bidiClass ].getValue()
+						+ "\" has no code in the packed properties" );
+			}
+			if ( script > CodePointProperties.SCRIPT_MASK ) {
+				throw XcodeError.INVALID_FILE_FORMAT( ": script \""
+						+ SCRIPTS[ script ].getValue()
+						+ "\" has no code in the packed properties" );
+			}
+			values[ codePoint ] =
+					bidiClass + 1 << CodePointProperties.BIDI_CLASS_SHIFT
+							| script << CodePointProperties.SCRIPT_SHIFT;
+		}
+
+		for ( int i = 0; i < DERIVED_PROPERTY_STARTS.length; i++ ) {
+			final int last =
+					i + 1 < DERIVED_PROPERTY_STARTS.length ? DERIVED_PROPERTY_STARTS[ i + 1 ] - 1
+							: Unicode.MAX;
+			final int derivedProperty =
+					DERIVED_PROPERTY_VALUES[ i ].ordinal() + 1 << CodePointProperties.DERIVED_PROPERTY_SHIFT;
+			for ( int codePoint = DERIVED_PROPERTY_STARTS[ i ]; codePoint <= last; codePoint++ ) {
+				values[ codePoint ] |= derivedProperty;
+			}
+		}
+
+		final byte[] canonicalClasses = CANONICAL_CLASS_TABLE.expand();
+		final byte[] generalCategories = GENERAL_CATEGORY_TABLE.expand();
+		for ( int codePoint = 0; codePoint <= Unicode.MAX; codePoint++ ) {
+			if ( generalCategories[ codePoint ] != 0 ) {
+				values[ codePoint ] |=
+						(canonicalClasses[ codePoint ] & 0xff) << CodePointProperties.CANONICAL_CLASS_SHIFT
+								| 1 << CodePointProperties.LISTED_SHIFT;
+			}
+		}
+
+		final TIntCharIterator joiningTypes = DERIVED_JOINING_TYPE_TABLE.iterator();
+		while ( joiningTypes.hasNext() ) {
+			joiningTypes.advance();
+			final int joiningType =
+					CodePointProperties.JOINING_TYPES.indexOf( joiningTypes.value() );
+			if ( joiningType < 0 ) {
+				throw XcodeError.INVALID_FILE_FORMAT( ": unknown joining type \""
+						+ joiningTypes.value() + "\"" );
+			}
+			values[ joiningTypes.key() ] |=
+					joiningType << CodePointProperties.JOINING_TYPE_SHIFT;
+		}
 
-		// Only load code points with property of (L,V or T)
-		final Set<String> hangulJamoType = new HashSet<String>();
-		hangulJamoType.add( "L" );
-		hangulJamoType.add( "V" );
-		hangulJamoType.add( "T" );
+		final TIntIterator combiningMarks = COMBINING_MARK.iterator();
+		while ( combiningMarks.hasNext() ) {
+			values[ combiningMarks.next() ] |=
+					1 << CodePointProperties.COMBINING_MARK_SHIFT;
+		}
 
-		UnicodeDataFileUtil.loadCodePointAndCategoryMap(
-				UnicodeDataConstants.HANGUL_SYLLABLE_TYPE_DATA,
-				HANGUL_SYLLABLE_TYPE_TABLE,
-				UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS, hangulJamoType );
+		addQuickCheck( values, UnicodeDataConstants.PROPERTY_NFC_QC_M,
+				CodePointProperties.NFC_QC_MAYBE << CodePointProperties.NFC_QC_SHIFT );
+		addQuickCheck( values, UnicodeDataConstants.PROPERTY_NFC_QC_N,
+				CodePointProperties.NFC_QC_NO << CodePointProperties.NFC_QC_SHIFT );
+		addQuickCheck( values, UnicodeDataConstants.PROPERTY_NFKC_QC_M,
+				CodePointProperties.NFKC_QC_MAYBE << CodePointProperties.NFKC_QC_SHIFT );
+		addQuickCheck( values, UnicodeDataConstants.PROPERTY_NFKC_QC_N,
+				CodePointProperties.NFKC_QC_NO << CodePointProperties.NFKC_QC_SHIFT );
+
+		CODE_POINT_PROPERTIES = CodePointProperties.compact( values );
 	}
 
 
 	/**
-	 * Utility method to load data from "data/unicode/Blocks.txt.gz" file.
-	 * 
-	 * @throws XcodeException
+	 * @param aValues
+	 *        the packed properties of every code point
+	 * @param aProperty
+	 *        the NFC_QC or NFKC_QC property number
+	 * @param aQuickCheck
+	 *        the quick check value of the code points having the property,
+	 *        shifted to its place in the packed properties
 	 */
-	private static void loadBlocksData () throws XcodeException {
+	private static void addQuickCheck ( int[] aValues, int aProperty,
+			int aQuickCheck ) {
+		if ( PROPERTIES[ aProperty ] == null ) {
+			return;
+		}
+		for ( final Range range : PROPERTIES[ aProperty ].getRanges() ) {
+			for ( int codePoint = range.first; codePoint <= range.last; codePoint++ ) {
+				aValues[ codePoint ] |= aQuickCheck;
+			}
+		}
+	}
 
-		// Only load blocks data for blocks in {Combining Diacritical Marks for
-		// Symbols, Musical Symbols, Ancient Greek Musical Notation}
 
-		final Set<String> blocksToload = new HashSet<String>();
-		blocksToload
-				.add( UnicodeDataConstants.COMBINING_DIACRITICAL_MARKS_FOR_SYMBOLS );
-		blocksToload.add( UnicodeDataConstants.MUSICAL_SYMBOLS );
-		blocksToload.add( UnicodeDataConstants.ANCIENT_GREEK_MUSICAL_NOTATION );
+	/**
+	 * Utility method to load the data in "data/unicode/HangulSyllableType.txt.gz"
+	 * file.
+	 * 
+	 * @param aTable
+	 *        the table to load the data into
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadHangulSyllableTypeData (
+			final TIntObjectMap<String> aTable ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+
+				// Only load code points with property of (L,V or T)
+				final Set<String> hangulJamoType = new HashSet<String>();
+				hangulJamoType.add( "L" );
+				hangulJamoType.add( "V" );
+				hangulJamoType.add( "T" );
+
+				UnicodeDataFileUtil.loadCodePointAndCategoryMap(
+						UnicodeDataConstants.HANGUL_SYLLABLE_TYPE_DATA, aTable,
+						UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS, hangulJamoType );
+				InitializationReport.step( "loadHangulSyllableTypeData", start );
+				return null;
+			}
+		};
+	}
 
-		UnicodeDataFileUtil.loadCodePointAndCategoryMap(
-				UnicodeDataConstants.BLOCKS_DATA, BLOCKS_TABLE,
-				UnicodeDataConstants.SEMI_COLON_DELIMITER, blocksToload );
 
+	/**
+	 * Utility method to load data from "data/unicode/Blocks.txt.gz" file.
+	 * 
+	 * @param aTable
+	 *        the table to load the data into
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadBlocksData (
+			final TIntObjectMap<String> aTable ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+
+				// Only load blocks data for blocks in {Combining Diacritical Marks for
+				// Symbols, Musical Symbols, Ancient Greek Musical Notation}
+
+				final Set<String> blocksToload = new HashSet<String>();
+				blocksToload
+						.add( UnicodeDataConstants.COMBINING_DIACRITICAL_MARKS_FOR_SYMBOLS );
+				blocksToload.add( UnicodeDataConstants.MUSICAL_SYMBOLS );
+				blocksToload.add( UnicodeDataConstants.ANCIENT_GREEK_MUSICAL_NOTATION );
+
+				UnicodeDataFileUtil.loadCodePointAndCategoryMap(
+						UnicodeDataConstants.BLOCKS_DATA, aTable,
+						UnicodeDataConstants.SEMI_COLON_DELIMITER, blocksToload );
+				InitializationReport.step( "loadBlocksData", start );
+				return null;
+			}
+		};
 	}
 
 
 	/**
 	 * Utility method to load data from "data/unicode/Scripts.txt.gz" file.
 	 * 
-	 * @throws XcodeException
-	 */
-	private static void loadScriptsData () throws XcodeException {
-		UnicodeDataFileUtil.loadCodePointAndCategoryMap(
-				UnicodeDataConstants.SCRIPTS_DATA, SCRIPTS_TABLE,
-				UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS, null );
+	 * @param aTable
+	 *        the table to load the data into
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadScriptsData (
+			final TIntObjectMap<String> aTable ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+				UnicodeDataFileUtil.loadCodePointAndCategoryMap(
+						UnicodeDataConstants.SCRIPTS_DATA, aTable,
+						UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS, null );
+				InitializationReport.step( "loadScriptsData", start );
+				return null;
+			}
+		};
 	}
 
 
@@ -927,27 +1752,42 @@ public class UnicodeData {
 	 * Utility method to load data from "data/unicode/DerivedJoiningType.txt.gz"
 	 * file.
 	 * 
-	 * @throws XcodeException
-	 */
-	private static void loadDerivedJoiningTypeData () throws XcodeException {
-		UnicodeDataFileUtil.loadCodePointAndCategoryCharMap(
-				UnicodeDataConstants.DERIVED_JOINING_TYPE_DATA,
-				DERIVED_JOINING_TYPE_TABLE,
-				UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS, null );
-
+	 * @param aTable
+	 *        the table to load the data into
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadDerivedJoiningTypeData (
+			final TIntCharMap aTable ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+				UnicodeDataFileUtil.loadCodePointAndCategoryCharMap(
+						UnicodeDataConstants.DERIVED_JOINING_TYPE_DATA, aTable,
+						UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS, null );
+				InitializationReport.step( "loadDerivedJoiningTypeData", start );
+				return null;
+			}
+		};
 	}
 
 
 	/**
-	 * Initialize with data read from
-	 * "data/unicode/DerivedNormalizationProps.txt.gz" file.
+	 * Utility method to load data from
+	 * "data/unicode/DerivedNormalizationProps.txt.gz" file, which is done by the
+	 * {@link DerivedNormalizationProperties} class when it is first used.
 	 * 
-	 * @throws XcodeException
-	 */
-	private static void loadDerivedNormalizationPropertiesData ()
-			throws XcodeException {
-		DERIVED_NORMALIZATION_PROP_TABLE =
-				DerivedNormalizationProperties.getDerivedNormalizationPropTable();
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadDerivedNormalizationPropertiesData () {
+		return new Callable<Void>() {
+			public Void call () {
+				final long start = InitializationReport.start();
+				DerivedNormalizationProperties
+						.getDerivedNormalizationProperty( UnicodeDataConstants.PROPERTY_NFC_QC_N );
+				InitializationReport.step( "loadDerivedNormalizationPropertiesData", start );
+				return null;
+			}
+		};
 	}
 
 
@@ -955,26 +1795,73 @@ public class UnicodeData {
 	 * Utility method to load data from
 	 * "data/unicode/DerivedCoreProperties.txt.gz" file.
 	 * 
-	 * @throws XcodeException
-	 */
-	private static void loadDerivedCorePropertiesData () throws XcodeException {
-		UnicodeDataFileUtil
-				.loadCodePointAndCategorySet(
-						UnicodeDataConstants.DERIVED_CORE_PROPERTIES_DATA,
-						DERIVED_CORE_PROP_TABLE,
+	 * @param aProperties
+	 *        the property filters to load the data into
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadDerivedCorePropertiesData (
+			final UnicodeFilter[] aProperties ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+				UnicodeDataFileUtil.loadBinaryProperties(
+						UnicodeDataConstants.DERIVED_CORE_PROPERTIES_DATA, aProperties,
 						UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS );
+				InitializationReport.step( "loadDerivedCorePropertiesData", start );
+				return null;
+			}
+		};
 	}
 
 
 	/**
 	 * Utility method to load data from "data/unicode/PropList.txt.gz" file.
 	 * 
-	 * @throws XcodeException
+	 * @param aProperties
+	 *        the property filters to load the data into
+	 * @return a task loading the file
+	 */
+	private static Callable<Void> loadPropListData (
+			final UnicodeFilter[] aProperties ) {
+		return new Callable<Void>() {
+			public Void call () throws XcodeException {
+				final long start = InitializationReport.start();
+				UnicodeDataFileUtil.loadBinaryProperties(
+						UnicodeDataConstants.PROP_LIST_DATA, aProperties,
+						UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS );
+				InitializationReport.step( "loadPropListData", start );
+				return null;
+			}
+		};
+	}
+
+
+	/**
+	 * Returns the starting code point of each run in the derived property table
+	 * 
+	 * @return the derived property run starts
 	 */
-	private static void loadPropListData () throws XcodeException {
-		UnicodeDataFileUtil.loadCodePointAndCategorySet(
-				UnicodeDataConstants.PROP_LIST_DATA, PROP_LIST_TABLE,
-				UnicodeDataConstants.SEMI_COLON_TAB_DELIMITERS );
+	static int[] getDerivedPropertyStarts () {
+		if ( !INITIALIZED ) {
+			throw new IllegalStateException(
+					"UnicodeData has not initialized properly." );
+		}
+		return DERIVED_PROPERTY_STARTS.clone();
+	}
+
+
+	/**
+	 * Returns the derived property value of each run in the derived property
+	 * table
+	 * 
+	 * @return the derived property run values
+	 */
+	static UnicodeCodePointCategory[] getDerivedPropertyValues () {
+		if ( !INITIALIZED ) {
+			throw new IllegalStateException(
+					"UnicodeData has not initialized properly." );
+		}
+		return DERIVED_PROPERTY_VALUES.clone();
 	}
 
 
@@ -985,7 +1872,7 @@ public class UnicodeData {
 	 * @return the canonical combining class value
 	 */
 	public static final int getCanonicalCombiningClass ( int aCodePoint ) {
-		return CANONICAL_CLASS_TABLE.get( aCodePoint );
+		return getCanonicalClass( aCodePoint );
 	}
 
 
@@ -1004,7 +1891,9 @@ public class UnicodeData {
 
 
 	/**
-	 * Returns the canonicalClassTable
+	 * Returns a copy of the canonicalClassTable, including the code points of
+	 * the ranges in "UnicodeData.txt.gz". Use {@link #getCanonicalClass(int)}
+	 * and {@link #hasCanonicalClass(int)} for lookups.
 	 * 
 	 * @return the canonicalClassTable
 	 */
@@ -1013,12 +1902,19 @@ public class UnicodeData {
 			throw new IllegalStateException(
 					"UnicodeData has not initialized properly." );
 		}
-		return CANONICAL_CLASS_TABLE;
+		final TIntIntMap canonicalClassTable = new TIntIntHashMap();
+		for ( int codePoint = 0; codePoint <= Unicode.MAX; codePoint++ ) {
+			if ( hasCanonicalClass( codePoint ) ) {
+				canonicalClassTable.put( codePoint, getCanonicalClass( codePoint ) );
+			}
+		}
+		return canonicalClassTable;
 	}
 
 
 	/**
-	 * Returns the composeTable
+	 * Returns the composeTable. Precomposed Hangul syllables are not in the table;
+	 * {@link Normalize} handles them arithmetically.
 	 * 
 	 * @return the composeTable
 	 */
@@ -1032,7 +1928,8 @@ public class UnicodeData {
 
 
 	/**
-	 * Returns the decomposeTable
+	 * Returns the decomposeTable. Precomposed Hangul syllables are not in the table;
+	 * {@link Normalize} handles them arithmetically.
 	 * 
 	 * @return the decomposeTable
 	 */
@@ -1055,7 +1952,27 @@ public class UnicodeData {
 			throw new IllegalStateException(
 					"UnicodeData has not initialized properly." );
 		}
-		return GENERAL_CATEGORY_TABLE.get( aCodePoint );
+		final int generalCategory = GENERAL_CATEGORY_TABLE.get( aCodePoint );
+		if ( generalCategory == 0 ) {
+			return null;
+		}
+		return GENERAL_CATEGORIES[ generalCategory - 1 ].getValue();
+	}
+
+
+	/**
+	 * @param aCodePoint
+	 * @return the general category of the code point as specified in
+	 *         UnicodeData.txt, or {@link GeneralCategory#UNASSIGNED} if it is not
+	 *         listed there
+	 */
+	public static final GeneralCategory getGeneralCategoryValue (
+			final int aCodePoint ) {
+		final int generalCategory = GENERAL_CATEGORY_TABLE.get( aCodePoint );
+		if ( generalCategory == 0 ) {
+			return GeneralCategory.UNASSIGNED;
+		}
+		return GENERAL_CATEGORIES[ generalCategory - 1 ];
 	}
 
 
@@ -1084,7 +2001,7 @@ public class UnicodeData {
 					"UnicodeData has not initialized properly." );
 		}
 		final TIntObjectMap<String> scriptsTable =
-				new TIntObjectHashMap<String>( SCRIPTS_TABLE );
+				toPropertyValueMap( SCRIPTS_TABLE, SCRIPT_ALIASES );
 		return scriptsTable;
 	}
 
@@ -1116,7 +2033,7 @@ public class UnicodeData {
 					"UnicodeData has not initialized properly." );
 		}
 		final TIntObjectMap<String> bidiClassTable =
-				new TIntObjectHashMap<String>( BIDI_CLASS_TABLE );
+				toPropertyValueMap( BIDI_CLASS_TABLE, BIDI_CLASS_ALIASES );
 		return bidiClassTable;
 	}
 
@@ -1131,8 +2048,12 @@ public class UnicodeData {
 			throw new IllegalStateException(
 					"UnicodeData has not initialized properly." );
 		}
+		final String[] values = new String[GENERAL_CATEGORIES.length];
+		for ( int i = 0; i < values.length; i++ ) {
+			values[ i ] = GENERAL_CATEGORIES[ i ].getValue();
+		}
 		final TIntObjectMap<String> generalCategoryTable =
-				new TIntObjectHashMap<String>( GENERAL_CATEGORY_TABLE );
+				toPropertyValueMap( GENERAL_CATEGORY_TABLE, values );
 		return generalCategoryTable;
 	}
 
@@ -47,6 +47,8 @@ public class UnicodeDataConstants {
 	public static final String NFKC_QC = "NFKC_QC";
 	public static final String NFKC_QC_N = "NFKC_QC_N";
 
+	public static final String NFKC_QC_M = "NFKC_QC_M";
+
 	/**
 	 * Normalized input or not
 	 */
@@ -95,6 +97,49 @@ public class UnicodeDataConstants {
 
 	public static final String BLOCKS_DATA = "data/unicode/Blocks.txt.gz";
 
+	/**
+	 * IDNA2008 derived property values, precomputed at build time by
+	 * {@link DerivedPropertiesGenerator}
+	 */
+	public static final String DERIVED_PROPERTIES_DATA =
+			"data/idna/DerivedProperties.txt";
+
+	/**
+	 * Unicode data files the IDNA2008 derived property values are computed from
+	 */
+	public static final String[] DERIVED_PROPERTIES_SOURCE_DATA = new String[] {
+			UNICODE_DATA, PROP_LIST_DATA, DERIVED_NORMALIZATION_PROPS_DATA,
+			DERIVED_CORE_PROPERTIES_DATA, HANGUL_SYLLABLE_TYPE_DATA, BLOCKS_DATA
+	};
+
+	/**
+	 * All data files the tables in {@link UnicodeData} are built from
+	 */
+	public static final String[] UNICODE_DATA_FILES = new String[] {
+			UNICODE_DATA, COMPOSITION_EXCLUSIONS_DATA, SCRIPTS_DATA, PROP_LIST_DATA,
+			DERIVED_JOINING_TYPE_DATA, DERIVED_NORMALIZATION_PROPS_DATA,
+			DERIVED_CORE_PROPERTIES_DATA, HANGUL_SYLLABLE_TYPE_DATA, BLOCKS_DATA,
+			DERIVED_PROPERTIES_DATA
+	};
+
+	/**
+	 * Comment in "data/idna/DerivedProperties.txt" holding the checksum of the
+	 * files it was generated from
+	 */
+	public static final String CHECKSUM_COMMENT = "# Checksum: ";
+
+	/**
+	 * System properties
+	 */
+	public static final String DERIVE_PROPERTIES_PROPERTY =
+			"com.vgrs.xcode.unicodedata.deriveProperties";
+
+	public static final String SNAPSHOT_PROPERTY =
+			"com.vgrs.xcode.unicodedata.snapshot";
+
+	public static final String PARALLEL_LOADING_PROPERTY =
+			"com.vgrs.xcode.unicodedata.parallelLoading";
+
 	/**
 	 * Constants used for while parsing Unicode data files.
 	 */
@@ -106,6 +151,29 @@ public class UnicodeDataConstants {
 	public static final String DEFAULT_IGNORABLE_CODE_POINT =
 			"Default_Ignorable_Code_Point";
 
+	public static final String JOIN_CONTROL = "Join_Control";
+
+	/**
+	 * Binary properties, used with {@link UnicodeData#hasProperty(int, int)}.
+	 * PROPERTY_NAMES holds the name of each property, indexed by its number.
+	 */
+	public static final int PROPERTY_WHITE_SPACE = 0;
+	public static final int PROPERTY_NONCHARACTER_CODE_POINT = 1;
+	public static final int PROPERTY_JOIN_CONTROL = 2;
+	public static final int PROPERTY_DEFAULT_IGNORABLE_CODE_POINT = 3;
+	public static final int PROPERTY_NFC_QC_N = 4;
+	public static final int PROPERTY_NFC_QC_M = 5;
+	public static final int PROPERTY_NFKC_QC_N = 6;
+	public static final int PROPERTY_NFKC_QC_M = 7;
+	public static final int PROPERTY_NFKC_CF = 8;
+	public static final int PROPERTY_COUNT = 9;
+
+	public static final String[] PROPERTY_NAMES = new String[] {
+			WHITE_SPACE, NONCHARACTER_CODE_POINT, JOIN_CONTROL,
+			DEFAULT_IGNORABLE_CODE_POINT, NFC_QC_N, NFC_QC_M, NFKC_QC_N, NFKC_QC_M,
+			NFKC_CF
+	};
+
 	public static final String ANCIENT_GREEK_MUSICAL_NOTATION =
 			"Ancient Greek Musical Notation";
 
@@ -13,6 +13,7 @@
 
 package com.vgrs.xcode.common.unicodedata;
 
+import gnu.trove.list.TIntList;
 import gnu.trove.map.TIntCharMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.set.TIntSet;
@@ -26,6 +27,8 @@ import java.util.StringTokenizer;
 
 import com.vgrs.xcode.common.Hex;
 import com.vgrs.xcode.common.Range;
+import com.vgrs.xcode.common.Unicode;
+import com.vgrs.xcode.common.UnicodeFilter;
 import com.vgrs.xcode.util.Datafile;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
@@ -191,6 +194,107 @@ public class UnicodeDataFileUtil {
 	}
 
 
+	/**
+	 * Loads the binary properties listed in
+	 * {@link UnicodeDataConstants#PROPERTY_NAMES} into one UnicodeFilter per
+	 * property, stored at the index of the property number. Properties with a
+	 * quick check value of "N" or "M" are loaded under the property name with
+	 * the value appended, such as "NFC_QC_N". Properties not listed are ignored,
+	 * and so are the entries of aProperties for properties absent from the file.
+	 * 
+	 * @param aFileName
+	 *        The file from which to load the properties
+	 * @param aProperties
+	 *        The filters of each property, indexed by property number
+	 * @param delimiters
+	 *        The delimiters to tokenize the data read from the data file in
+	 *        order.
+	 * @throws XcodeException
+	 */
+	public static void loadBinaryProperties ( String aFileName,
+			UnicodeFilter[] aProperties, String[] delimiters )
+			throws XcodeException {
+
+		final List<List<Range>> ranges = new ArrayList<List<Range>>();
+		for ( int i = 0; i < UnicodeDataConstants.PROPERTY_COUNT; i++ ) {
+			ranges.add( null );
+		}
+
+		Iterator<String> reader = null;
+		String line = null;
+
+		try {
+			reader = Datafile.getIterator( aFileName );
+			StringTokenizer st = null;
+
+			while ( reader.hasNext() ) {
+
+				line = reader.next().trim();
+				if ( line.isEmpty() || line.charAt( 0 ) == '#' ) {
+					continue;
+				}
+
+				st = new StringTokenizer( line, delimiters[ 0 ] );
+				final String codePointsToken = st.nextToken().trim();
+				String property =
+						new StringTokenizer( st.nextToken(), delimiters[ 1 ] )
+								.nextToken();
+				if ( st.hasMoreTokens() ) {
+					final String value =
+							new StringTokenizer( st.nextToken(), delimiters[ 1 ] )
+									.nextToken();
+					if ( value.equals( "N" ) || value.equals( "M" ) ) {
+						property = property + "_" + value;
+					}
+				}
+
+				final int number = getPropertyNumber( property );
+				if ( number < 0 ) {
+					continue;
+				}
+
+				final int[] codePoints =
+						Hex.decodeInts( codePointsToken.replace(
+								UnicodeDataConstants.DOT_DOT_DELIMITER, " " ) );
+				if ( ranges.get( number ) == null ) {
+					ranges.set( number, new ArrayList<Range>() );
+				}
+				ranges.get( number ).add(
+						new Range( codePoints[ 0 ], codePoints[ codePoints.length - 1 ] ) );
+
+			} // END while()
+		}
+		catch ( final Throwable x ) {
+			handleException( x, line );
+		}
+
+		for ( int i = 0; i < UnicodeDataConstants.PROPERTY_COUNT; i++ ) {
+			if ( ranges.get( i ) != null ) {
+				final UnicodeFilter filter =
+						new UnicodeFilter( UnicodeDataConstants.PROPERTY_NAMES[ i ] );
+				filter.add( ranges.get( i ) );
+				aProperties[ i ] = filter;
+			}
+		}
+	}
+
+
+	/**
+	 * @param aName
+	 *        the name of a binary property
+	 * @return the number of the property, or -1 if it is not one of
+	 *         {@link UnicodeDataConstants#PROPERTY_NAMES}
+	 */
+	static int getPropertyNumber ( String aName ) {
+		for ( int i = 0; i < UnicodeDataConstants.PROPERTY_COUNT; i++ ) {
+			if ( UnicodeDataConstants.PROPERTY_NAMES[ i ].equals( aName ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+
 	/**
 	 * Loads a code point and it's corresponding property into a
 	 * <code>TIntObjectMap<String></code>. Data read from the file is tokenized
@@ -441,6 +545,7 @@ public class UnicodeDataFileUtil {
 			throw XcodeError.INVALID_FILE_FORMAT( line );
 		}
 		catch ( final Exception x ) {
+			Datafile.checkReadError( x );
 			line = ": \"" + line + "\"";
 			throw XcodeError.INVALID_FILE_FORMAT( line );
 		}
@@ -449,6 +554,86 @@ public class UnicodeDataFileUtil {
 	}
 
 
+	/**
+	 * Loads the IDNA2008 derived property values precomputed by
+	 * {@link DerivedPropertiesGenerator} as a run length table. The file has to
+	 * cover the whole code space with contiguous ranges, for example:
+	 * 
+	 * <pre>
+	 * 0000..002C    ; DISALLOWED
+	 * 002D          ; PVALID
+	 * </pre>
+	 * 
+	 * @param aFileName
+	 *        The file from which to load the derived property values.
+	 * @param aSourceFileNames
+	 *        The Unicode data files the values were derived from. Their checksum
+	 *        has to match the one recorded in the file.
+	 * @param aStarts
+	 *        Receives the first code point of each run.
+	 * @param aValues
+	 *        Receives the derived property value of each run.
+	 * @return false if the file does not exist or the checksum does not match,
+	 *         in which case nothing is loaded.
+	 * @throws XcodeException
+	 */
+	public static boolean loadDerivedProperties ( String aFileName,
+			String[] aSourceFileNames, TIntList aStarts,
+			List<UnicodeCodePointCategory> aValues ) throws XcodeException {
+
+		if ( !Datafile.exists( aFileName ) ) {
+			return false;
+		}
+		final String checksum =
+				UnicodeDataConstants.CHECKSUM_COMMENT
+						+ String.format( "%08X", Long.valueOf( Datafile
+								.checksum( aSourceFileNames ) ) );
+
+		Iterator<String> reader = null;
+		String line = null;
+		StringTokenizer st = null;
+		boolean current = false;
+		int next = Unicode.MIN;
+
+		try {
+			reader = Datafile.getIterator( aFileName );
+			while ( reader.hasNext() ) {
+				line = reader.next().trim();
+				if ( line.equals( checksum ) ) {
+					current = true;
+				}
+				if ( line.isEmpty() || line.charAt( 0 ) == '#' ) {
+					continue;
+				}
+				if ( !current ) {
+					return false;
+				}
+
+				st = new StringTokenizer( line, UnicodeDataConstants.SEMI_COLON_DELIMITER );
+				final int[] codePoints =
+						Hex.decodeInts( st.nextToken().trim().replace(
+								UnicodeDataConstants.DOT_DOT_DELIMITER, " " ) );
+
+				// Runs must be contiguous and cover the whole code space
+				if ( codePoints[ 0 ] != next ) {
+					throw XcodeError.INVALID_FILE_FORMAT();
+				}
+				next = codePoints[ codePoints.length - 1 ] + 1;
+				aStarts.add( codePoints[ 0 ] );
+				aValues.add( UnicodeCodePointCategory.valueOf( st.nextToken().trim() ) );
+			}
+		}
+		catch ( final Throwable x ) {
+			handleException( x, line );
+		}
+
+		if ( next != Unicode.MAX + 1 ) {
+			throw XcodeError.INVALID_FILE_FORMAT( ": '" + aFileName + "'" );
+		}
+		return current;
+	}
+
+
 	/**
 	 * Utility method to throw an exception encountered while reading and parsing
 	 * data files.
@@ -460,6 +645,7 @@ public class UnicodeDataFileUtil {
 	 */
 	private static void handleException ( Throwable aException, String line )
 			throws XcodeException {
+		Datafile.checkReadError( aException );
 		final String formattedLine = ": \"" + line + "\"";
 		throw XcodeError.INVALID_FILE_FORMAT( aException.getMessage()
 				+ formattedLine );
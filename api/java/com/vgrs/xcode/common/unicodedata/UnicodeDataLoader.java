@@ -22,12 +22,15 @@ import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.set.TIntSet;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import com.vgrs.xcode.common.Hex;
 import com.vgrs.xcode.common.Unicode;
 import com.vgrs.xcode.idna.Normalize;
 import com.vgrs.xcode.util.Datafile;
+import com.vgrs.xcode.util.InitializationReport;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
 
@@ -38,7 +41,9 @@ import com.vgrs.xcode.util.XcodeException;
  * the code point. This information is then used to implement the IDNA2008
  * Protocol and also by the [@link Normalize} class to perform NFKC
  * normalization as required by the IDNA2008 Protocol. The general category and
- * the BIDI class is also stored for each assigned code point.
+ * the BIDI class is also stored for each assigned code point. Code points
+ * listed as a "First"/"Last" range, such as the CJK ideographs, are stored as
+ * {@link UnicodeDataRange} objects instead of individual entries.
  * 
  * @author nchigurupati
  * @version 1.0 Jun 14, 2010
@@ -95,9 +100,19 @@ public final class UnicodeDataLoader {
 	private static final TIntObjectMap<String> BIDI_CLASS_TABLE =
 			new TIntObjectHashMap<String>();
 
+	/**
+	 * The ranges of assigned Unicode code points, in code point order. Their
+	 * code points are not held in UNICODE_DATA_POINTS, GENERAL_CATEGORY_TABLE,
+	 * CANONICAL_CLASS_TABLE or BIDI_CLASS_TABLE.
+	 */
+	private static final List<UnicodeDataRange> UNICODE_DATA_RANGES =
+			new ArrayList<UnicodeDataRange>();
+
 	static {
 		try {
+			final long start = InitializationReport.start();
 			init();
+			InitializationReport.step( "UnicodeDataLoader.init", start );
 		}
 		catch ( final XcodeException e ) {
 			throw new RuntimeException( e.getMessage() );
@@ -114,7 +129,6 @@ public final class UnicodeDataLoader {
 	private static void init () throws XcodeException {
 		loadExclusionChars();
 		loadUnicodeData();
-		loadHangulDecompositions();
 	}
 
 
@@ -203,7 +217,6 @@ public final class UnicodeDataLoader {
 					}
 
 					unicodeChar = Integer.parseInt( codePoint, 16 );
-					UNICODE_DATA_POINTS.add( unicodeChar );
 				}
 
 				//
@@ -212,6 +225,7 @@ public final class UnicodeDataLoader {
 
 				nextSemicolonIndx = line.indexOf( ';', semicolonIndx + 1 );
 				if ( nextSemicolonIndx == -1 ) {
+					UNICODE_DATA_POINTS.add( unicodeChar );
 					continue;
 				}
 
@@ -220,11 +234,14 @@ public final class UnicodeDataLoader {
 					if ( !isEmpty( token ) ) {
 						if ( token.indexOf( ", First" ) != -1 ) {
 							// handle ranges in the file UnicodeData.txt
-							handleUnicodeDataRanges( line, reader );
+							if ( handleUnicodeDataRanges( line, reader ) ) {
+								continue;
+							}
 						}
 
 					}
 				}
+				UNICODE_DATA_POINTS.add( unicodeChar );
 
 				//
 				// token 2: General_Category
@@ -354,6 +371,7 @@ public final class UnicodeDataLoader {
 			throw XcodeError.INVALID_FILE_FORMAT( line );
 		}
 		catch ( final Exception x ) {
+			Datafile.checkReadError( x );
 			line = ": \"" + line + "\"";
 			throw XcodeError.INVALID_FILE_FORMAT( line );
 		}
@@ -373,17 +391,24 @@ public final class UnicodeDataLoader {
 	 * 4E00;<CJK Ideograph, First>;Lo;0;L;;;;;N;;;;; 9FC3;
 	 * <p>
 	 * <CJK Ideograph, Last>;Lo;0;L;;;;;N;;;;;
+	 * <p>
+	 * The general category, canonical combining class and BIDI class of the
+	 * range are stored once as a {@link UnicodeDataRange} rather than for every
+	 * code point in it.
+	 * 
+	 * @return true if the range was read, false if the next line does not end
+	 *         the range
 	 */
-	private static void handleUnicodeDataRanges ( String aFirstTokenRangeLine,
-			Iterator<String> aReader ) throws XcodeException {
+	private static boolean handleUnicodeDataRanges (
+			String aFirstTokenRangeLine, Iterator<String> aReader )
+			throws XcodeException {
 
 		String line = null;
 		String token = null;
 		String codePoint = null;
 		String codePointLast = null;
 		int[] mapseq = null;
-		final int unicodeChar = -1;
-		int canonicalClass = -1;
+		int canonicalClass = 0;
 		int semicolonIndx = -1;
 		int semicolonIndxLast = -1;
 
@@ -396,6 +421,8 @@ public final class UnicodeDataLoader {
 		boolean fCompat = false;
 		int[] input_decoded = null;
 		String lastTokenRangeLine = null;
+		String generalCategory = null;
+		String bidiClass = null;
 
 		while ( aReader.hasNext() ) {
 
@@ -404,7 +431,7 @@ public final class UnicodeDataLoader {
 		}
 
 		if ( lastTokenRangeLine.indexOf( ", Last" ) == -1 ) {
-			return;
+			return false;
 		}
 
 		line = aFirstTokenRangeLine;
@@ -415,41 +442,38 @@ public final class UnicodeDataLoader {
 
 		semicolonIndx = line.indexOf( ';' );
 		if ( semicolonIndx == -1 ) {
-			return; // skip blank line
+			return false; // skip blank line
 		}
 
 		//
 		// token 0: codepoint
 		//
-		if ( semicolonIndx != 0 ) {
-			codePoint = line.substring( 0, semicolonIndx );
+		if ( semicolonIndx == 0 ) {
+			return false;
+		}
+		codePoint = line.substring( 0, semicolonIndx );
 
-			if ( isEmpty( codePoint ) ) {
-				return;
-			}
+		if ( isEmpty( codePoint ) ) {
+			return false;
+		}
 
-			semicolonIndxLast = lastTokenRangeLine.indexOf( ';' );
-			if ( semicolonIndxLast == -1 ) {
-				return; // skip blank line
-			}
+		semicolonIndxLast = lastTokenRangeLine.indexOf( ';' );
+		if ( semicolonIndxLast <= 0 ) {
+			return false; // skip blank line
+		}
 
-			if ( semicolonIndxLast != 0 ) {
-				codePointLast = lastTokenRangeLine.substring( 0, semicolonIndxLast );
-				input = codePoint + " " + codePointLast;
+		codePointLast = lastTokenRangeLine.substring( 0, semicolonIndxLast );
+		input = codePoint + " " + codePointLast;
 
-				try {
-					input_decoded = Hex.decodeInts( input );
-				}
-				catch ( final XcodeException x ) {
-					input_decoded = Unicode.encode( input.toCharArray() );
-				}
-			}
+		try {
+			input_decoded = Hex.decodeInts( input );
+		}
+		catch ( final XcodeException x ) {
+			input_decoded = Unicode.encode( input.toCharArray() );
+		}
 
-			if ( input_decoded.length > 1 ) {
-				for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
-					UNICODE_DATA_POINTS.add( j );
-				}
-			}
+		if ( input_decoded.length < 2 ) {
+			return false;
 		}
 
 		//
@@ -458,7 +482,9 @@ public final class UnicodeDataLoader {
 
 		nextSemicolonIndx = line.indexOf( ';', semicolonIndx + 1 );
 		if ( nextSemicolonIndx == -1 ) {
-			return;
+			addUnicodeDataRange( input_decoded, generalCategory, canonicalClass,
+					bidiClass );
+			return true;
 		}
 
 		//
@@ -467,19 +493,16 @@ public final class UnicodeDataLoader {
 		semicolonIndx = nextSemicolonIndx;
 		nextSemicolonIndx = line.indexOf( ';', semicolonIndx + 1 );
 		if ( nextSemicolonIndx == -1 ) {
-			return;
+			addUnicodeDataRange( input_decoded, generalCategory, canonicalClass,
+					bidiClass );
+			return true;
 		}
 
 		if ( nextSemicolonIndx - semicolonIndx > 1 ) {
 			token = line.substring( semicolonIndx + 1, nextSemicolonIndx );
 			if ( !isEmpty( token ) ) {
-				if ( input_decoded.length > 1 ) {
-					for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
-						GENERAL_CATEGORY_TABLE.put( j, token );
-					}
-				}
+				generalCategory = token;
 			}
-
 		}
 
 		//
@@ -488,7 +511,9 @@ public final class UnicodeDataLoader {
 		semicolonIndx = nextSemicolonIndx;
 		nextSemicolonIndx = line.indexOf( ';', semicolonIndx + 1 );
 		if ( nextSemicolonIndx == -1 ) {
-			return;
+			addUnicodeDataRange( input_decoded, generalCategory, canonicalClass,
+					bidiClass );
+			return true;
 		}
 
 		if ( nextSemicolonIndx - semicolonIndx > 1 ) {
@@ -504,12 +529,6 @@ public final class UnicodeDataLoader {
 				if ( canonicalClass != (canonicalClass & 0xFF) ) {
 					throw XcodeError.NORMALIZE_BAD_CANONICALCLASS_ERROR();
 				}
-
-				if ( input_decoded.length > 1 ) {
-					for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
-						CANONICAL_CLASS_TABLE.put( j, canonicalClass );
-					}
-				}
 			}
 		}
 
@@ -519,29 +538,31 @@ public final class UnicodeDataLoader {
 		semicolonIndx = nextSemicolonIndx;
 		nextSemicolonIndx = line.indexOf( ';', semicolonIndx + 1 );
 		if ( nextSemicolonIndx == -1 ) {
-			return;
+			addUnicodeDataRange( input_decoded, generalCategory, canonicalClass,
+					bidiClass );
+			return true;
 		}
 
 		if ( nextSemicolonIndx - semicolonIndx > 1 ) {
 			token = line.substring( semicolonIndx + 1, nextSemicolonIndx );
 
 			if ( !isEmpty( token ) ) {
-				if ( input_decoded.length > 1 ) {
-					for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
-						BIDI_CLASS_TABLE.put( j, token );
-					}
-				}
+				bidiClass = token;
 			}
 		}
 
+		addUnicodeDataRange( input_decoded, generalCategory, canonicalClass,
+				bidiClass );
+
 		//
 		// token 5: decomposition, Decomposition_Type in angle brackets and
-		// Decomposition_Mapping
+		// Decomposition_Mapping. No range in UnicodeData.txt has one, but if it
+		// did it would still be stored for every code point.
 		//
 		semicolonIndx = nextSemicolonIndx;
 		nextSemicolonIndx = line.indexOf( ';', semicolonIndx + 1 );
 		if ( nextSemicolonIndx == -1 ) {
-			return;
+			return true;
 		}
 
 		if ( nextSemicolonIndx - semicolonIndx > 1 ) {
@@ -549,10 +570,8 @@ public final class UnicodeDataLoader {
 
 			if ( token.charAt( 0 ) == '<' ) {
 
-				if ( input_decoded.length > 1 ) {
-					for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
-						COMPATIBILITY_TABLE.add( j );
-					}
+				for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
+					COMPATIBILITY_TABLE.add( j );
 				}
 
 				gtIndex = token.indexOf( '>' );
@@ -576,16 +595,14 @@ public final class UnicodeDataLoader {
 				throw XcodeError.NORMALIZE_BAD_DECOMPSEQUENCE_ERROR();
 			}
 
-			if ( input_decoded.length > 1 ) {
-				for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
-					DECOMPOSE_TABLE.put( j, mapseq );
-				}
+			for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
+				DECOMPOSE_TABLE.put( j, mapseq );
 			}
 
 			//
 			// store composition pairs
 			//
-			if ( !fCompat && !EXCLUDED_TABLE.contains( unicodeChar ) ) {
+			if ( !fCompat ) {
 				if ( mapseq.length > 1 ) {
 					first = mapseq[ 0 ];
 					second = mapseq[ 1 ];
@@ -598,66 +615,25 @@ public final class UnicodeDataLoader {
 
 				// The key is a construction of the first two values in
 				// mapseq
-
-				if ( input_decoded.length > 1 ) {
-					for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
+				for ( int j = input_decoded[ 0 ]; j <= input_decoded[ 1 ]; j++ ) {
+					if ( !EXCLUDED_TABLE.contains( j ) ) {
 						COMPOSE_TABLE.put( pair, j );
 					}
 				}
 
 			}
 		}
-
+		return true;
 	}
 
 
 	/**
-	 * Load Hangul decompositions to be used by {@link Normalize} class
+	 * Store a range of code points read from UnicodeData.txt
 	 */
-	private static void loadHangulDecompositions () {
-
-		int[] mapseq = null;
-		int unicodeChar = -1;
-		int first = 0;
-		int second = 0;
-		long pair = -1;
-		int sIndex = -1;
-		int tIndex = -1;
-		int nCount = -1;
-		int sCount = -1;
-
-		//
-		// Hangul decompositions
-		//
-		nCount = UnicodeDataConstants.V_COUNT * UnicodeDataConstants.T_COUNT; // 588
-		sCount = UnicodeDataConstants.L_COUNT * nCount; // 11172
-		for ( sIndex = 0; sIndex < sCount; ++sIndex ) {
-			tIndex = sIndex % UnicodeDataConstants.T_COUNT;
-
-			if ( tIndex != 0 ) { // triple
-				first = UnicodeDataConstants.S_BASE + sIndex - tIndex;
-				second = UnicodeDataConstants.T_BASE + tIndex;
-			}
-			else {
-				first = UnicodeDataConstants.L_BASE + sIndex / nCount;
-				second =
-						UnicodeDataConstants.V_BASE + sIndex % nCount
-								/ UnicodeDataConstants.T_COUNT;
-			}
-
-			mapseq = new int[2];
-			mapseq[ 0 ] = first;
-			mapseq[ 1 ] = second;
-
-			pair = (long) first << 32 | second;
-
-			unicodeChar = sIndex + UnicodeDataConstants.S_BASE;
-
-			DECOMPOSE_TABLE.put( unicodeChar, mapseq );
-			COMPOSE_TABLE.put( pair, unicodeChar );
-
-		} // END for()
-
+	private static void addUnicodeDataRange ( int[] aRange,
+			String aGeneralCategory, int aCanonicalClass, String aBidiClass ) {
+		UNICODE_DATA_RANGES.add( new UnicodeDataRange( aRange[ 0 ], aRange[ 1 ],
+				aGeneralCategory, aCanonicalClass, aBidiClass ) );
 	}
 
 
@@ -749,6 +725,17 @@ public final class UnicodeDataLoader {
 	}
 
 
+	/**
+	 * Returns the unicodeDataRanges
+	 * 
+	 * @return the unicodeDataRanges, sorted by code point
+	 */
+	protected static UnicodeDataRange[] getUnicodeDataRanges () {
+		return UNICODE_DATA_RANGES
+				.toArray( new UnicodeDataRange[UNICODE_DATA_RANGES.size()] );
+	}
+
+
 	/**
 	 * Once the derived property of each Unicode code point is calculated, the
 	 * UNICODE_DATA_POINTS data structure is no longer needed. Null out this data
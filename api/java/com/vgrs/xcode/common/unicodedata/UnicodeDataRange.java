@@ -0,0 +1,80 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import com.vgrs.xcode.common.Range;
+
+/**
+ * A block of code points listed in "data/unicode/UnicodeData.txt.gz" by a pair
+ * of "&lt;..., First&gt;" and "&lt;..., Last&gt;" entries, such as the CJK
+ * ideographs, the Hangul syllables or the private use areas. Every code point
+ * of the block shares the general category, canonical combining class and BIDI
+ * class of the First entry, so the block is stored once instead of once per
+ * code point.
+ */
+final class UnicodeDataRange extends Range {
+
+	/**
+	 * The general category of every code point in the range
+	 */
+	final String generalCategory;
+
+	/**
+	 * The canonical combining class of every code point in the range
+	 */
+	final int canonicalClass;
+
+	/**
+	 * The BIDI class of every code point in the range
+	 */
+	final String bidiClass;
+
+
+	UnicodeDataRange ( int aFirst, int aLast, String aGeneralCategory,
+			int aCanonicalClass, String aBidiClass ) {
+		super( aFirst, aLast );
+		this.generalCategory = aGeneralCategory;
+		this.canonicalClass = aCanonicalClass;
+		this.bidiClass = aBidiClass;
+	}
+
+
+	/**
+	 * Find the range holding a code point.
+	 *
+	 * @param aRanges
+	 *        ranges sorted by their first code point, none overlapping
+	 * @param aCodePoint
+	 * @return the range containing the code point, or null if there is none
+	 */
+	static UnicodeDataRange find ( UnicodeDataRange[] aRanges, int aCodePoint ) {
+		int low = 0;
+		int high = aRanges.length - 1;
+		while ( low <= high ) {
+			final int middle = (low + high) >>> 1;
+			final UnicodeDataRange range = aRanges[ middle ];
+			if ( aCodePoint < range.first ) {
+				high = middle - 1;
+			}
+			else if ( aCodePoint > range.last ) {
+				low = middle + 1;
+			}
+			else {
+				return range;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,592 @@
+/**************************************************************************
+ *                                                                        *
+ * The information in this document is proprietary to VeriSign, Inc.      *
+ * It may not be used, reproduced or disclosed without the written        *
+ * approval of VeriSign.                                                  *
+ *                                                                        *
+ * VERISIGN PROPRIETARY & CONFIDENTIAL INFORMATION                        *
+ *                                                                        *
+ *                                                                        *
+ * Copyright (c) 2010 VeriSign, Inc.  All rights reserved.                *
+ *                                                                        *
+ *************************************************************************/
+
+package com.vgrs.xcode.common.unicodedata;
+
+import gnu.trove.iterator.TIntCharIterator;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.iterator.TLongIntIterator;
+import gnu.trove.map.TIntCharMap;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TIntCharHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+import com.vgrs.xcode.common.Range;
+import com.vgrs.xcode.common.UnicodeFilter;
+import com.vgrs.xcode.util.Datafile;
+import com.vgrs.xcode.util.XcodeException;
+
+/**
+ * A binary snapshot of the tables held by {@link UnicodeData}. Building those
+ * tables means decompressing and parsing several Unicode data files. When a
+ * snapshot file is configured, either with {@link #setFile(File)} or with the
+ * "com.vgrs.xcode.unicodedata.snapshot" system property, the tables are written
+ * to that file after they are first built, and later startups memory map the
+ * file and read the tables straight from it.
+ * <p>
+ * The file starts with a header holding a magic number, the snapshot format
+ * version, a checksum of the Unicode data files the tables were built from and
+ * a CRC-32 of the table data. A snapshot that fails any of these checks is
+ * ignored, and rewritten once the tables have been built from the data files
+ * again. Replacing the Unicode data files on the classpath therefore rebuilds
+ * the snapshot automatically.
+ */
+public final class UnicodeDataSnapshot {
+
+	/**
+	 * "IDNS" in ASCII
+	 */
+	static private final int MAGIC = 0x49444E53;
+
+	/**
+	 * Incremented whenever the layout of the snapshot changes
+	 */
+	static private final int VERSION = 7;
+
+	/**
+	 * Size of the header: magic, version, source checksum, data length and data
+	 * checksum
+	 */
+	static private final int HEADER_LENGTH = 4 + 4 + 8 + 4 + 8;
+
+	/**
+	 * String dictionary index written in place of a null string
+	 */
+	static private final int NO_STRING = 0xffff;
+
+	/**
+	 * The snapshot file, or null if snapshots are disabled
+	 */
+	static private File FILE = null;
+
+	static {
+		final String file = System.getProperty( UnicodeDataConstants.SNAPSHOT_PROPERTY );
+		if ( file != null && file.length() > 0 ) {
+			FILE = new File( file );
+		}
+	}
+
+	/**
+	 * The tables held by {@link UnicodeData}
+	 */
+	CodePointByteTable generalCategoryTable;
+
+	CodePointByteTable bidiClassTable;
+
+	String[] bidiClassAliases;
+
+	CodePointByteTable canonicalClassTable;
+
+	UnicodeDataRange[] unicodeDataRanges;
+
+	TIntSet compatibilityTable;
+
+	TLongIntMap composeTable;
+
+	TIntObjectMap<int[]> decomposeTable;
+
+	CodePointByteTable scriptsTable;
+
+	String[] scriptAliases;
+
+	TIntCharMap derivedJoiningTypeTable;
+
+	UnicodeFilter[] properties;
+
+	int[] derivedPropertyStarts;
+
+	UnicodeCodePointCategory[] derivedPropertyValues;
+
+
+	/**
+	 * Enable snapshots, storing them in the given file. This must be called
+	 * before {@link UnicodeData} is first used.
+	 *
+	 * @param aFile
+	 *        The snapshot file, or null to disable snapshots
+	 */
+	static public synchronized void setFile ( File aFile ) {
+		FILE = aFile;
+	}
+
+
+	/**
+	 * @return The snapshot file, or null if snapshots are disabled
+	 */
+	static public synchronized File getFile () {
+		return FILE;
+	}
+
+
+	/**
+	 * Read the snapshot from the configured file.
+	 *
+	 * @return The tables in the snapshot, or null if snapshots are disabled or
+	 *         the file is missing, corrupt or out of date
+	 */
+	static UnicodeDataSnapshot read () {
+		final File file = getFile();
+		if ( file == null || !file.isFile() ) {
+			return null;
+		}
+		try {
+			final long source = getSourceChecksum();
+			final RandomAccessFile raf = new RandomAccessFile( file, "r" );
+			try {
+				final FileChannel channel = raf.getChannel();
+				final ByteBuffer in =
+						channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+				if ( in.remaining() < HEADER_LENGTH || in.getInt() != MAGIC
+						|| in.getInt() != VERSION || in.getLong() != source ) {
+					return null;
+				}
+				final int length = in.getInt();
+				final long crc = in.getLong();
+				if ( in.remaining() != length ) {
+					return null;
+				}
+				final CRC32 check = new CRC32();
+				check.update( in.duplicate() );
+				if ( check.getValue() != crc ) {
+					return null;
+				}
+				return new Reader( in ).readSnapshot();
+			}
+			finally {
+				raf.close();
+			}
+		}
+		catch ( final Exception x ) {
+			// A snapshot is only a cache; fall back to the data files
+			return null;
+		}
+	}
+
+
+	/**
+	 * Write the snapshot to the configured file. The data is written to a
+	 * temporary file that is then renamed, so that concurrent readers never see
+	 * a partial snapshot. Failures are ignored, since the tables can always be
+	 * built from the Unicode data files.
+	 */
+	void write () {
+		final File file = getFile();
+		if ( file == null ) {
+			return;
+		}
+		File temp = null;
+		try {
+			final Writer data = new Writer();
+			data.writeSnapshot( this );
+			final byte[] body = data.toByteArray();
+			final CRC32 crc = new CRC32();
+			crc.update( body, 0, body.length );
+
+			final File directory = file.getAbsoluteFile().getParentFile();
+			temp = File.createTempFile( file.getName(), ".tmp", directory );
+			final DataOutputStream out =
+					new DataOutputStream( new FileOutputStream( temp ) );
+			try {
+				out.writeInt( MAGIC );
+				out.writeInt( VERSION );
+				out.writeLong( getSourceChecksum() );
+				out.writeInt( body.length );
+				out.writeLong( crc.getValue() );
+				out.write( body );
+			}
+			finally {
+				out.close();
+			}
+			if ( !temp.renameTo( file ) ) {
+				file.delete();
+				temp.renameTo( file );
+			}
+		}
+		catch ( final Exception x ) {
+			// A snapshot is only a cache; the tables are already built
+		}
+		finally {
+			if ( temp != null && temp.exists() ) {
+				temp.delete();
+			}
+		}
+	}
+
+
+	/**
+	 * @return The checksum of the data files the tables are built from
+	 * @throws XcodeException
+	 *         If any of the data files cannot be read
+	 */
+	static private long getSourceChecksum () throws XcodeException {
+		final List<String> files = new ArrayList<String>();
+		for ( final String file : UnicodeDataConstants.UNICODE_DATA_FILES ) {
+			if ( Datafile.exists( file ) ) {
+				files.add( file );
+			}
+		}
+		return Datafile.checksum( files.toArray( new String[files.size()] ) );
+	}
+
+	/**
+	 * Serializes the tables. Strings are stored once in a dictionary and
+	 * referenced by index.
+	 */
+	static private final class Writer {
+
+		private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		private final DataOutputStream out = new DataOutputStream( this.bytes );
+
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+
+		byte[] toByteArray () throws IOException {
+			this.out.flush();
+			return this.bytes.toByteArray();
+		}
+
+
+		void writeSnapshot ( UnicodeDataSnapshot aSnapshot ) throws IOException {
+			writeDictionary( aSnapshot );
+			writeByteTable( aSnapshot.generalCategoryTable );
+			writeByteTable( aSnapshot.bidiClassTable );
+			writeStrings( aSnapshot.bidiClassAliases );
+			writeByteTable( aSnapshot.canonicalClassTable );
+			writeUnicodeDataRanges( aSnapshot.unicodeDataRanges );
+			writeIntSet( aSnapshot.compatibilityTable );
+			writeLongIntMap( aSnapshot.composeTable );
+			writeIntArrayMap( aSnapshot.decomposeTable );
+			writeByteTable( aSnapshot.scriptsTable );
+			writeStrings( aSnapshot.scriptAliases );
+			writeIntCharMap( aSnapshot.derivedJoiningTypeTable );
+			this.out.writeInt( aSnapshot.properties.length );
+			for ( final UnicodeFilter property : aSnapshot.properties ) {
+				writeFilter( property );
+			}
+
+			this.out.writeInt( aSnapshot.derivedPropertyStarts.length );
+			for ( int i = 0; i < aSnapshot.derivedPropertyStarts.length; i++ ) {
+				this.out.writeInt( aSnapshot.derivedPropertyStarts[ i ] );
+				this.out.writeByte( aSnapshot.derivedPropertyValues[ i ].ordinal() );
+			}
+		}
+
+
+		private void writeDictionary ( UnicodeDataSnapshot aSnapshot )
+				throws IOException {
+			final Set<String> all = new TreeSet<String>();
+			all.addAll( Arrays.asList( aSnapshot.bidiClassAliases ) );
+			all.addAll( Arrays.asList( aSnapshot.scriptAliases ) );
+			for ( final UnicodeDataRange range : aSnapshot.unicodeDataRanges ) {
+				if ( range.generalCategory != null ) {
+					all.add( range.generalCategory );
+				}
+				if ( range.bidiClass != null ) {
+					all.add( range.bidiClass );
+				}
+			}
+
+			this.out.writeInt( all.size() );
+			for ( final String string : all ) {
+				this.strings.put( string, Integer.valueOf( this.strings.size() ) );
+				this.out.writeShort( string.length() );
+				this.out.writeChars( string );
+			}
+		}
+
+
+		private void writeByteTable ( CodePointByteTable aTable )
+				throws IOException {
+			for ( final char block : aTable.index ) {
+				this.out.writeChar( block );
+			}
+			this.out.writeInt( aTable.data.length );
+			this.out.write( aTable.data );
+		}
+
+
+		private void writeUnicodeDataRanges ( UnicodeDataRange[] aRanges )
+				throws IOException {
+			this.out.writeInt( aRanges.length );
+			for ( final UnicodeDataRange range : aRanges ) {
+				this.out.writeInt( range.first );
+				this.out.writeInt( range.last );
+				writeString( range.generalCategory );
+				this.out.writeInt( range.canonicalClass );
+				writeString( range.bidiClass );
+			}
+		}
+
+
+		private void writeString ( String aString ) throws IOException {
+			this.out.writeShort( aString == null ? NO_STRING : this.strings.get(
+					aString ).intValue() );
+		}
+
+
+		private void writeStrings ( String[] aStrings ) throws IOException {
+			this.out.writeInt( aStrings.length );
+			for ( final String string : aStrings ) {
+				writeString( string );
+			}
+		}
+
+
+		private void writeFilter ( UnicodeFilter aFilter ) throws IOException {
+			this.out.writeBoolean( aFilter != null );
+			if ( aFilter == null ) {
+				return;
+			}
+			this.out.writeShort( aFilter.getPrefix().length() );
+			this.out.writeChars( aFilter.getPrefix() );
+			final List<Range> ranges = aFilter.getRanges();
+			this.out.writeInt( ranges.size() );
+			for ( final Range range : ranges ) {
+				this.out.writeInt( range.first );
+				this.out.writeInt( range.last );
+			}
+		}
+
+
+		private void writeIntArrayMap ( TIntObjectMap<int[]> aMap )
+				throws IOException {
+			this.out.writeInt( aMap.size() );
+			final TIntObjectIterator<int[]> i = aMap.iterator();
+			while ( i.hasNext() ) {
+				i.advance();
+				this.out.writeInt( i.key() );
+				this.out.writeShort( i.value().length );
+				for ( final int value : i.value() ) {
+					this.out.writeInt( value );
+				}
+			}
+		}
+
+
+		private void writeIntCharMap ( TIntCharMap aMap ) throws IOException {
+			this.out.writeInt( aMap.size() );
+			final TIntCharIterator i = aMap.iterator();
+			while ( i.hasNext() ) {
+				i.advance();
+				this.out.writeInt( i.key() );
+				this.out.writeChar( i.value() );
+			}
+		}
+
+
+		private void writeLongIntMap ( TLongIntMap aMap ) throws IOException {
+			this.out.writeInt( aMap.size() );
+			final TLongIntIterator i = aMap.iterator();
+			while ( i.hasNext() ) {
+				i.advance();
+				this.out.writeLong( i.key() );
+				this.out.writeInt( i.value() );
+			}
+		}
+
+
+		private void writeIntSet ( TIntSet aSet ) throws IOException {
+			this.out.writeInt( aSet.size() );
+			final TIntIterator i = aSet.iterator();
+			while ( i.hasNext() ) {
+				this.out.writeInt( i.next() );
+			}
+		}
+	}
+
+	/**
+	 * Reads the tables back from a mapped snapshot, in the order the
+	 * {@link Writer} stored them.
+	 */
+	static private final class Reader {
+
+		private final ByteBuffer in;
+
+		private String[] strings;
+
+
+		Reader ( ByteBuffer aInput ) {
+			this.in = aInput;
+		}
+
+
+		UnicodeDataSnapshot readSnapshot () throws XcodeException {
+			readDictionary();
+			final UnicodeDataSnapshot snapshot = new UnicodeDataSnapshot();
+			snapshot.generalCategoryTable = readByteTable();
+			snapshot.bidiClassTable = readByteTable();
+			snapshot.bidiClassAliases = readStrings();
+			snapshot.canonicalClassTable = readByteTable();
+			snapshot.unicodeDataRanges = readUnicodeDataRanges();
+			snapshot.compatibilityTable = readIntSet();
+			snapshot.composeTable = readLongIntMap();
+			snapshot.decomposeTable = readIntArrayMap();
+			snapshot.scriptsTable = readByteTable();
+			snapshot.scriptAliases = readStrings();
+			snapshot.derivedJoiningTypeTable = readIntCharMap();
+			snapshot.properties = new UnicodeFilter[this.in.getInt()];
+			for ( int i = 0; i < snapshot.properties.length; i++ ) {
+				snapshot.properties[ i ] = readFilter();
+			}
+
+			final UnicodeCodePointCategory[] categories =
+					UnicodeCodePointCategory.values();
+			final int runs = this.in.getInt();
+			snapshot.derivedPropertyStarts = new int[runs];
+			snapshot.derivedPropertyValues = new UnicodeCodePointCategory[runs];
+			for ( int i = 0; i < runs; i++ ) {
+				snapshot.derivedPropertyStarts[ i ] = this.in.getInt();
+				snapshot.derivedPropertyValues[ i ] = categories[ this.in.get() ];
+			}
+			return snapshot;
+		}
+
+
+		private void readDictionary () {
+			this.strings = new String[this.in.getInt()];
+			for ( int i = 0; i < this.strings.length; i++ ) {
+				final char[] chars = new char[this.in.getShort()];
+				for ( int j = 0; j < chars.length; j++ ) {
+					chars[ j ] = this.in.getChar();
+				}
+				this.strings[ i ] = new String( chars );
+			}
+		}
+
+
+		private CodePointByteTable readByteTable () {
+			final char[] index = new char[CodePointByteTable.BLOCKS];
+			this.in.asCharBuffer().get( index );
+			this.in.position( this.in.position() + index.length * 2 );
+			final byte[] data = new byte[this.in.getInt()];
+			this.in.get( data );
+			return new CodePointByteTable( index, data );
+		}
+
+
+		private UnicodeDataRange[] readUnicodeDataRanges () {
+			final UnicodeDataRange[] ranges = new UnicodeDataRange[this.in.getInt()];
+			for ( int i = 0; i < ranges.length; i++ ) {
+				final int first = this.in.getInt();
+				final int last = this.in.getInt();
+				final String generalCategory = readString();
+				final int canonicalClass = this.in.getInt();
+				ranges[ i ] =
+						new UnicodeDataRange( first, last, generalCategory,
+								canonicalClass, readString() );
+			}
+			return ranges;
+		}
+
+
+		private String readString () {
+			final int index = this.in.getShort() & 0xffff;
+			return index == NO_STRING ? null : this.strings[ index ];
+		}
+
+
+		private String[] readStrings () {
+			final String[] strings = new String[this.in.getInt()];
+			for ( int i = 0; i < strings.length; i++ ) {
+				strings[ i ] = readString();
+			}
+			return strings;
+		}
+
+
+		private UnicodeFilter readFilter () throws XcodeException {
+			if ( this.in.get() == 0 ) {
+				return null;
+			}
+			final char[] prefix = new char[this.in.getShort()];
+			for ( int i = 0; i < prefix.length; i++ ) {
+				prefix[ i ] = this.in.getChar();
+			}
+			final int size = this.in.getInt();
+			final List<Range> ranges = new ArrayList<Range>( size );
+			for ( int i = 0; i < size; i++ ) {
+				ranges.add( new Range( this.in.getInt(), this.in.getInt() ) );
+			}
+			final UnicodeFilter filter = new UnicodeFilter( new String( prefix ) );
+			filter.add( ranges );
+			return filter;
+		}
+
+
+		private TIntObjectMap<int[]> readIntArrayMap () {
+			final int size = this.in.getInt();
+			final TIntObjectMap<int[]> map = new TIntObjectHashMap<int[]>( size );
+			for ( int i = 0; i < size; i++ ) {
+				final int key = this.in.getInt();
+				final int[] value = new int[this.in.getShort()];
+				this.in.asIntBuffer().get( value );
+				this.in.position( this.in.position() + value.length * 4 );
+				map.put( key, value );
+			}
+			return map;
+		}
+
+
+		private TIntCharMap readIntCharMap () {
+			final int size = this.in.getInt();
+			final TIntCharMap map = new TIntCharHashMap( size );
+			for ( int i = 0; i < size; i++ ) {
+				map.put( this.in.getInt(), this.in.getChar() );
+			}
+			return map;
+		}
+
+
+		private TLongIntMap readLongIntMap () {
+			final int size = this.in.getInt();
+			final TLongIntMap map = new TLongIntHashMap( size );
+			for ( int i = 0; i < size; i++ ) {
+				map.put( this.in.getLong(), this.in.getInt() );
+			}
+			return map;
+		}
+
+
+		private TIntSet readIntSet () {
+			final int size = this.in.getInt();
+			final TIntSet set = new TIntHashSet( size );
+			for ( int i = 0; i < size; i++ ) {
+				set.add( this.in.getInt() );
+			}
+			return set;
+		}
+	}
+}
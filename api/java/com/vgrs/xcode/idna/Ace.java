@@ -7,6 +7,8 @@ package com.vgrs.xcode.idna;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.StringTokenizer;
 
 import com.vgrs.xcode.common.UnicodeTokenizer;
@@ -22,11 +24,22 @@ public abstract class Ace {
 
 	static public final boolean DEFAULT_USE_STD_3_ASCII_RULES = true;
 
+	/**
+	 * The largest length of a label in a DNS wire format name
+	 */
+	static final int MAX_WIRE_LABEL_LENGTH = 63;
+
 	/**
 	 * Prefix for this Ace
 	 */
 	private final String prefix;
 
+	/**
+	 * The prefix with each character folded by {@link #foldCase(char)}, against
+	 * which labels are matched without regard to case
+	 */
+	private final char[] foldedPrefix;
+
 	/**
 	 * A flag indicating whether the validation algorithm will use the STD 3 ASCII
 	 * Rules. These rules assert that an IDN contain only letter, digits and
@@ -46,10 +59,22 @@ public abstract class Ace {
 	 */
 	public Ace ( String aPrefix, boolean aUseStd3AsciiRules ) {
 		this.prefix = aPrefix;
+		this.foldedPrefix = aPrefix.toCharArray();
+		for ( int i = 0; i < this.foldedPrefix.length; i++ ) {
+			this.foldedPrefix[ i ] = foldCase( this.foldedPrefix[ i ] );
+		}
 		this.useStd3AsciiRules = aUseStd3AsciiRules;
 	}
 
 
+	/**
+	 * @return the prefix for this Ace
+	 */
+	public String getPrefix () {
+		return this.prefix;
+	}
+
+
 	/**
 	 * Encode an entire domain using the Ace algorithm.
 	 * 
@@ -151,13 +176,16 @@ public abstract class Ace {
 		}
 
 		// idna draft: ToAscii Step #5 <updated=2003.09.25/>
-		if ( hasPrefix( aInput ) ) {
+		if ( startsWithPrefix( aInput, 0, aInput.length ) ) {
 			throw XcodeError.ACE_ENCODE_PREFIX_FOUND();
 		}
 
 		// idna draft: ToAscii Step #6,7
-		return new String( this.prefix + new String( internalEncode( aInput ) ) )
-				.toCharArray();
+		final char[] encoded = internalEncode( aInput );
+		final char[] output = new char[this.foldedPrefix.length + encoded.length];
+		final int length = putPrefix( output, 0 );
+		System.arraycopy( encoded, 0, output, length, encoded.length );
+		return output;
 	}
 
 
@@ -165,6 +193,133 @@ public abstract class Ace {
 			throws XcodeException;
 
 
+	/**
+	 * Encode a single domain label using the Ace algorithm into a
+	 * caller-supplied array, which lets a caller encoding many labels reuse the
+	 * same arrays. The result is the same as {@link #encode(int[])}.
+	 *
+	 * @param aInput
+	 *        An int array holding the domain label
+	 * @param aOffset
+	 *        the index of the first code point of the label
+	 * @param aLength
+	 *        the number of code points of the label
+	 * @param aOutput
+	 *        the array receiving the Ace encoded label
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first character to write
+	 * @return the number of characters written
+	 * @throws XcodeException
+	 *         in the same cases as {@link #encode(int[])}, or when aOutput is
+	 *         too small
+	 */
+	public int encode ( int[] aInput, int aOffset, int aLength, char[] aOutput,
+			int aOutputOffset ) throws XcodeException {
+		if ( aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+
+		if ( !checkEncode( aInput, aOffset, aLength ) ) {
+			if ( aOutputOffset + aLength > aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			for ( int i = 0; i < aLength; i++ ) {
+				aOutput[ aOutputOffset + i ] = (char) aInput[ aOffset + i ];
+			}
+			return aLength;
+		}
+
+		// idna draft: ToAscii Step #6,7
+		final int length = putPrefix( aOutput, aOutputOffset );
+		return length
+				+ internalEncode( aInput, aOffset, aLength, aOutput, aOutputOffset
+						+ length );
+	}
+
+
+	/**
+	 * Check a single domain label before it is encoded.
+	 *
+	 * @param aInput
+	 *        An int array holding the domain label
+	 * @param aOffset
+	 *        the index of the first code point of the label
+	 * @param aLength
+	 *        the number of code points of the label
+	 * @return true if the label must be encoded, false if it is all ASCII and
+	 *         is used as is
+	 * @throws XcodeException
+	 *         when the input is null or empty or the input contains non-standard
+	 *         3 ASCII character or already starts with the prefix
+	 */
+	protected boolean checkEncode ( int[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		// idna draft: ToAscii Step #3
+		if ( this.useStd3AsciiRules
+				&& !Utf16.isStd3Ascii( aInput, aOffset, aLength ) ) {
+			throw XcodeError.ACE_ENCODE_NOT_STD3ASCII();
+		}
+
+		// idna draft: ToAscii Step #4
+		if ( Utf16.isAscii( aInput, aOffset, aLength ) ) {
+			return false;
+		}
+
+		// idna draft: ToAscii Step #5 <updated=2003.09.25/>
+		if ( startsWithPrefix( aInput, aOffset, aLength ) ) {
+			throw XcodeError.ACE_ENCODE_PREFIX_FOUND();
+		}
+		return true;
+	}
+
+
+	/**
+	 * Write the prefix for this Ace into a caller-supplied array.
+	 *
+	 * @return the number of characters written
+	 * @throws XcodeException
+	 *         when aOutput is too small
+	 */
+	protected int putPrefix ( char[] aOutput, int aOutputOffset )
+			throws XcodeException {
+		final int length = this.foldedPrefix.length;
+		if ( aOutputOffset + length > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		this.prefix.getChars( 0, length, aOutput, aOutputOffset );
+		return length;
+	}
+
+
+	/**
+	 * Ace specific encoding of a range of code points into a caller-supplied
+	 * array. This implementation copies the result of
+	 * {@link #internalEncode(int[])}; subclasses override it to encode straight
+	 * into the array.
+	 *
+	 * @return the number of characters written
+	 * @throws XcodeException
+	 */
+	protected int internalEncode ( int[] aInput, int aOffset, int aLength,
+			char[] aOutput, int aOutputOffset ) throws XcodeException {
+		final int[] input = new int[aLength];
+		System.arraycopy( aInput, aOffset, input, 0, aLength );
+		final char[] output = internalEncode( input );
+		if ( aOutputOffset + output.length > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		System.arraycopy( output, 0, aOutput, aOutputOffset, output.length );
+		return output.length;
+	}
+
+
 	/**
 	 * Decode a single domain label using the Ace algorithm.
 	 * 
@@ -184,15 +339,12 @@ public abstract class Ace {
 
 		// Decarations
 		int[] output = null;
-		final String inputString = new String( aInput );
+		final int prefixLength = this.foldedPrefix.length;
 
 		// idna draft: ToUnicode Step #3-5
-		if ( aInput.length > this.prefix.length()
-				&& inputString.substring( 0, this.prefix.length() ).equalsIgnoreCase(
-						this.prefix ) ) {
-			final char[] inputArray =
-					inputString.substring( this.prefix.length() ).toCharArray();
-			output = internalDecode( inputArray );
+		if ( hasPrefix( aInput, 0, aInput.length ) ) {
+			output =
+					internalDecode( aInput, prefixLength, aInput.length - prefixLength );
 		}
 		else {
 			output = Utf16.expand( aInput );
@@ -218,21 +370,467 @@ public abstract class Ace {
 
 
 	/**
-	 * Checks if the given input contains the prefix for this Ace.
+	 * Ace specific decoding of a range of characters, such as the part of a
+	 * label following the prefix. This implementation copies the range for
+	 * {@link #internalDecode(char[])}; subclasses override it to decode the
+	 * range in place.
 	 * 
 	 * @param aInput
-	 *        an array of Unicode code points.
-	 * @return true if the given array of Unicode code points contain the prefix.
+	 *        a UTF16 character array holding the characters to decode
+	 * @param aOffset
+	 *        the index of the first character to decode
+	 * @param aLength
+	 *        the number of characters to decode
+	 * @return decoded Unicode code points
+	 * @throws XcodeException
+	 */
+	protected int[] internalDecode ( char[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		return internalDecode( Arrays.copyOfRange( aInput, aOffset, aOffset
+				+ aLength ) );
+	}
+
+
+	/**
+	 * Decode a single domain label using the Ace algorithm into a
+	 * caller-supplied array, which lets a caller decoding many labels reuse the
+	 * same arrays. The result is the same as {@link #decode(char[])}.
+	 *
+	 * @param aInput
+	 *        A char array holding the encoded domain label
+	 * @param aOffset
+	 *        the index of the first character of the label
+	 * @param aLength
+	 *        the number of characters of the label
+	 * @param aOutput
+	 *        the array receiving the Unicode code points
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first code point to write
+	 * @return the number of code points written
+	 * @throws XcodeException
+	 *         in the same cases as {@link #decode(char[])}, or when aOutput is
+	 *         too small
 	 */
-	private boolean hasPrefix ( int[] aInput ) {
-		final int length = this.prefix.length();
-		if ( aInput.length < length ) {
+	public int decode ( char[] aInput, int aOffset, int aLength, int[] aOutput,
+			int aOutputOffset ) throws XcodeException {
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final int length;
+		final int prefixLength = this.foldedPrefix.length;
+
+		// idna draft: ToUnicode Step #3-5
+		if ( hasPrefix( aInput, aOffset, aLength ) ) {
+			length =
+					internalDecode( aInput, aOffset + prefixLength, aLength
+							- prefixLength, aOutput, aOutputOffset );
+		}
+		else {
+			if ( aOutputOffset + aLength > aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			for ( int i = 0; i < aLength; i++ ) {
+				aOutput[ aOutputOffset + i ] = aInput[ aOffset + i ];
+			}
+			length = aLength;
+		}
+		checkDecoded( aOutput, aOutputOffset, length );
+
+		return length;
+	}
+
+
+	/**
+	 * Decode an entire domain held as ASCII bytes, such as a name read from a
+	 * DNS message in presentation format, without converting it to chars first.
+	 * Each byte is read as the character of the same value, and labels are
+	 * delimited by the ASCII full stop. The result is the same as
+	 * {@link #domainDecode(char[])} for the same characters.
+	 * 
+	 * @param aInput
+	 *        A byte array holding the domain name
+	 * @param aOffset
+	 *        the index of the first byte of the domain name
+	 * @param aLength
+	 *        the number of bytes of the domain name
+	 * @return An int array with unicode codepoints
+	 * @throws XcodeException
+	 *         when the input is null or empty
+	 */
+	public int[] domainDecode ( byte[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final TIntList output = new TIntArrayList( aLength );
+		final int[] label = new int[aLength];
+		final int end = aOffset + aLength;
+		int start = aOffset;
+		for ( int i = aOffset; i <= end; i++ ) {
+			if ( i == end || aInput[ i ] == Idna.ACE_DELIMITER ) {
+				if ( i > start ) {
+					output.add( label, 0, decode( aInput, start, i - start, label, 0 ) );
+				}
+				if ( i < end ) {
+					output.add( Idna.ACE_DELIMITER );
+				}
+				start = i + 1;
+			}
+		}
+
+		return output.toArray();
+	}
+
+
+	/**
+	 * Decode an entire domain held as ASCII bytes, from the position of a buffer
+	 * to its limit, like {@link #domainDecode(byte[], int, int)}. The position
+	 * of the buffer is moved to its limit. The bytes of a buffer backed by an
+	 * accessible array are read in place.
+	 * 
+	 * @param aInput
+	 *        A buffer holding the domain name
+	 * @return An int array with unicode codepoints
+	 * @throws XcodeException
+	 *         when the input is null or empty
+	 */
+	public int[] domainDecode ( ByteBuffer aInput ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final int length = aInput.remaining();
+		final int[] output;
+		if ( aInput.hasArray() ) {
+			output =
+					domainDecode( aInput.array(), aInput.arrayOffset()
+							+ aInput.position(), length );
+			aInput.position( aInput.limit() );
+		}
+		else {
+			final byte[] input = new byte[length];
+			aInput.get( input );
+			output = domainDecode( input, 0, length );
+		}
+		return output;
+	}
+
+
+	/**
+	 * Decode an entire domain in DNS wire format, a sequence of labels each
+	 * preceded by its length in one byte, up to the empty label of the root.
+	 * The decoded labels are delimited by the ASCII full stop, without a final
+	 * one for the root, so that the result is the same as
+	 * {@link #domainDecode(char[])} for the name in presentation format. The
+	 * name is read from the position of the buffer, which is moved past the
+	 * root label. Compressed names, in which a label is replaced by a pointer,
+	 * must be expanded by the caller.
+	 * 
+	 * @param aInput
+	 *        A buffer holding the domain name
+	 * @return An int array with unicode codepoints, empty for the root
+	 * @throws XcodeException
+	 *         when the input is null or is not a valid uncompressed name
+	 */
+	public int[] domainDecodeWire ( ByteBuffer aInput ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+
+		final TIntList output = new TIntArrayList();
+		final int[] label = new int[MAX_WIRE_LABEL_LENGTH];
+		final byte[] input =
+				aInput.hasArray() ? aInput.array() : new byte[MAX_WIRE_LABEL_LENGTH];
+		for ( int length; (length = nextWireLabel( aInput )) > 0; ) {
+			if ( !output.isEmpty() ) {
+				output.add( Idna.ACE_DELIMITER );
+			}
+			output.add( label, 0, decode( input, getWireLabel( aInput, length,
+					input ), length, label, 0 ) );
+		}
+
+		return output.toArray();
+	}
+
+
+	/**
+	 * Read the length of the next label of a name in DNS wire format, and check
+	 * that the label is in the buffer.
+	 * 
+	 * @return the length of the label, 0 for the root label
+	 * @throws XcodeException
+	 *         if the name is truncated or the length is not that of a label
+	 */
+	static int nextWireLabel ( ByteBuffer aInput ) throws XcodeException {
+		if ( !aInput.hasRemaining() ) {
+			throw XcodeError.INVALID_ARGUMENT( "truncated name" );
+		}
+		final int length = aInput.get() & 0xff;
+		if ( (length & 0xc0) == 0xc0 ) {
+			throw XcodeError.INVALID_ARGUMENT( "compressed name" );
+		}
+		if ( length > MAX_WIRE_LABEL_LENGTH ) {
+			throw XcodeError.INVALID_ARGUMENT( "invalid label length " + length );
+		}
+		if ( aInput.remaining() < length ) {
+			throw XcodeError.INVALID_ARGUMENT( "truncated name" );
+		}
+		return length;
+	}
+
+
+	/**
+	 * Move the position of a buffer past the label which starts there.
+	 * 
+	 * @param aInput
+	 *        the buffer
+	 * @param aLength
+	 *        the length of the label
+	 * @param aScratch
+	 *        the array backing the buffer, or an array of MAX_WIRE_LABEL_LENGTH
+	 *        bytes receiving a copy of the label if the buffer is not backed by
+	 *        an accessible array
+	 * @return the index of the label in aScratch
+	 */
+	static int getWireLabel ( ByteBuffer aInput, int aLength, byte[] aScratch ) {
+		if ( aInput.hasArray() ) {
+			final int offset = aInput.arrayOffset() + aInput.position();
+			aInput.position( aInput.position() + aLength );
+			return offset;
+		}
+		aInput.get( aScratch, 0, aLength );
+		return 0;
+	}
+
+
+	/**
+	 * Decode a single domain label held as ASCII bytes into a caller-supplied
+	 * array, without converting it to chars first. Each byte is read as the
+	 * character of the same value, and the result is the same as
+	 * {@link #decode(char[], int, int, int[], int)} for the same characters.
+	 * 
+	 * @param aInput
+	 *        A byte array holding the encoded domain label
+	 * @param aOffset
+	 *        the index of the first byte of the label
+	 * @param aLength
+	 *        the number of bytes of the label
+	 * @param aOutput
+	 *        the array receiving the Unicode code points
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first code point to write
+	 * @return the number of code points written
+	 * @throws XcodeException
+	 *         in the same cases as {@link #decode(char[])}, or when aOutput is
+	 *         too small
+	 */
+	public int decode ( byte[] aInput, int aOffset, int aLength, int[] aOutput,
+			int aOutputOffset ) throws XcodeException {
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final int length;
+		final int prefixLength = this.foldedPrefix.length;
+
+		// idna draft: ToUnicode Step #3-5
+		if ( hasPrefix( aInput, aOffset, aLength ) ) {
+			length =
+					internalDecode( aInput, aOffset + prefixLength, aLength
+							- prefixLength, aOutput, aOutputOffset );
+		}
+		else {
+			if ( aOutputOffset + aLength > aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			for ( int i = 0; i < aLength; i++ ) {
+				aOutput[ aOutputOffset + i ] = aInput[ aOffset + i ] & 0xff;
+			}
+			length = aLength;
+		}
+		checkDecoded( aOutput, aOutputOffset, length );
+
+		return length;
+	}
+
+
+	/**
+	 * Ace specific decoding of a range of ASCII bytes into a caller-supplied
+	 * array. This implementation converts the bytes to chars for
+	 * {@link #internalDecode(char[], int, int, int[], int)}; subclasses
+	 * override it to decode the bytes in place.
+	 * 
+	 * @return the number of code points written
+	 * @throws XcodeException
+	 */
+	protected int internalDecode ( byte[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		final char[] input = new char[aLength];
+		for ( int i = 0; i < aLength; i++ ) {
+			input[ i ] = (char) (aInput[ aOffset + i ] & 0xff);
+		}
+		return internalDecode( input, 0, aLength, aOutput, aOutputOffset );
+	}
+
+
+	/**
+	 * Check a single domain label after it is decoded.
+	 *
+	 * @throws XcodeException
+	 *         when the label contains non-standard 3 ASCII character
+	 */
+	protected void checkDecoded ( int[] aOutput, int aOutputOffset, int aLength )
+			throws XcodeException {
+		if ( this.useStd3AsciiRules
+				&& !Utf16.isStd3Ascii( aOutput, aOutputOffset, aLength ) ) {
+			throw XcodeError.ACE_DECODE_NOT_STD3ASCII();
+		}
+	}
+
+
+	/**
+	 * Ace specific decoding of a range of characters into a caller-supplied
+	 * array. This implementation copies the result of
+	 * {@link #internalDecode(char[])}; subclasses override it to decode straight
+	 * into the array.
+	 *
+	 * @return the number of code points written
+	 * @throws XcodeException
+	 */
+	protected int internalDecode ( char[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		final char[] input = new char[aLength];
+		System.arraycopy( aInput, aOffset, input, 0, aLength );
+		final int[] output = internalDecode( input );
+		if ( aOutputOffset + output.length > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		System.arraycopy( output, 0, aOutput, aOutputOffset, output.length );
+		return output.length;
+	}
+
+
+	/**
+	 * Checks if a range of code points starts with the prefix for this Ace,
+	 * ignoring case like {@link String#equalsIgnoreCase(String)}. Only the low
+	 * 16 bits of each code point are compared, as when the code points are
+	 * contracted with {@link Utf16#contract(int[])}. Nothing is allocated.
+	 * 
+	 * @param aInput
+	 *        an array of Unicode code points
+	 * @param aOffset
+	 *        the index of the first code point of the range
+	 * @param aLength
+	 *        the number of code points of the range
+	 * @return true if the range starts with the prefix
+	 */
+	public boolean startsWithPrefix ( int[] aInput, int aOffset, int aLength ) {
+		final char[] prefix = this.foldedPrefix;
+		if ( aLength < prefix.length ) {
+			return false;
+		}
+		for ( int i = 0; i < prefix.length; i++ ) {
+			if ( foldCase( (char) aInput[ aOffset + i ] ) != prefix[ i ] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Checks if a range of characters starts with the prefix for this Ace,
+	 * ignoring case like {@link String#equalsIgnoreCase(String)}. Nothing is
+	 * allocated.
+	 * 
+	 * @param aInput
+	 *        a UTF16 character array
+	 * @param aOffset
+	 *        the index of the first character of the range
+	 * @param aLength
+	 *        the number of characters of the range
+	 * @return true if the range starts with the prefix
+	 */
+	public boolean startsWithPrefix ( char[] aInput, int aOffset, int aLength ) {
+		final char[] prefix = this.foldedPrefix;
+		if ( aLength < prefix.length ) {
+			return false;
+		}
+		for ( int i = 0; i < prefix.length; i++ ) {
+			if ( foldCase( aInput[ aOffset + i ] ) != prefix[ i ] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Checks if a range of ASCII bytes starts with the prefix for this Ace, like
+	 * {@link #startsWithPrefix(char[], int, int)}.
+	 * 
+	 * @param aInput
+	 *        a byte array
+	 * @param aOffset
+	 *        the index of the first byte of the range
+	 * @param aLength
+	 *        the number of bytes of the range
+	 * @return true if the range starts with the prefix
+	 */
+	public boolean startsWithPrefix ( byte[] aInput, int aOffset, int aLength ) {
+		final char[] prefix = this.foldedPrefix;
+		if ( aLength < prefix.length ) {
 			return false;
 		}
-		final int[] input32 = new int[length];
-		System.arraycopy( aInput, 0, input32, 0, length );
-		final String input16 = new String( Utf16.contract( input32 ) );
-		return this.prefix.equalsIgnoreCase( input16 );
+		for ( int i = 0; i < prefix.length; i++ ) {
+			if ( foldCase( (char) (aInput[ aOffset + i ] & 0xff) ) != prefix[ i ] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Checks if a range of characters holds an encoded label, that is the
+	 * prefix for this Ace followed by at least one character.
+	 */
+	protected boolean hasPrefix ( char[] aInput, int aOffset, int aLength ) {
+		return aLength > this.foldedPrefix.length
+				&& startsWithPrefix( aInput, aOffset, aLength );
+	}
+
+
+	/**
+	 * Checks if a range of ASCII bytes holds an encoded label, like
+	 * {@link #hasPrefix(char[], int, int)}.
+	 */
+	protected boolean hasPrefix ( byte[] aInput, int aOffset, int aLength ) {
+		return aLength > this.foldedPrefix.length
+				&& startsWithPrefix( aInput, aOffset, aLength );
+	}
+
+
+	/**
+	 * Fold the case of a character so that two characters are equal ignoring
+	 * case, as {@link String#equalsIgnoreCase(String)} compares them, if and
+	 * only if their folded values are equal.
+	 */
+	static private char foldCase ( char aChar ) {
+		if ( aChar < 0x80 ) {
+			return aChar >= 'A' && aChar <= 'Z' ? (char) (aChar + 0x20) : aChar;
+		}
+		return Character.toLowerCase( Character.toUpperCase( aChar ) );
 	}
 
 }
\ No newline at end of file
@@ -13,9 +13,10 @@
 
 package com.vgrs.xcode.idna;
 
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Set;
 
+import com.vgrs.xcode.common.unicodedata.BidiClass;
 import com.vgrs.xcode.common.unicodedata.UnicodeData;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
@@ -23,8 +24,10 @@ import com.vgrs.xcode.util.XcodeException;
 /**
  * This class implements the IDNA2008 BIDI rules. The BIDI class associated with
  * each of the Unicode code points is retrieved from {@link UnicodeData}
- * <code>getBidiClass()</code> method to ensure compliance with the IDNA 2008
- * BIDI rules.
+ * <code>getBidiClassValue()</code> method to ensure compliance with the IDNA
+ * 2008 BIDI rules. A code point whose BIDI class is not known to
+ * {@link BidiClass}, read from the data files of a newer Unicode version, has
+ * a null BIDI class and violates every rule it is checked against.
  * 
  * @author nchigurupati
  * @version 1.0 May 5, 2010
@@ -47,38 +50,22 @@ public class Bidi {
 	public static final String BIDI_BN = "BN";
 	public static final String BIDI_NSM = "NSM";
 
-	private static final Set<String> RTL_LABEL = new HashSet<String>();
-	static {
-		RTL_LABEL.add( BIDI_R );
-		RTL_LABEL.add( BIDI_AL );
-		RTL_LABEL.add( BIDI_AN );
-	}
+	private static final Set<BidiClass> RTL_LABEL = EnumSet.of(
+			BidiClass.RIGHT_TO_LEFT, BidiClass.ARABIC_LETTER,
+			BidiClass.ARABIC_NUMBER );
 
-	private static final Set<String> RTL_BIDI_PROPERTIES = new HashSet<String>();
-	static {
-		RTL_BIDI_PROPERTIES.add( BIDI_R );
-		RTL_BIDI_PROPERTIES.add( BIDI_AL );
-		RTL_BIDI_PROPERTIES.add( BIDI_AN );
-		RTL_BIDI_PROPERTIES.add( BIDI_EN );
-		RTL_BIDI_PROPERTIES.add( BIDI_ES );
-		RTL_BIDI_PROPERTIES.add( BIDI_CS );
-		RTL_BIDI_PROPERTIES.add( BIDI_ET );
-		RTL_BIDI_PROPERTIES.add( BIDI_ON );
-		RTL_BIDI_PROPERTIES.add( BIDI_BN );
-		RTL_BIDI_PROPERTIES.add( BIDI_NSM );
-	}
+	private static final Set<BidiClass> RTL_BIDI_PROPERTIES = EnumSet.of(
+			BidiClass.RIGHT_TO_LEFT, BidiClass.ARABIC_LETTER,
+			BidiClass.ARABIC_NUMBER, BidiClass.EUROPEAN_NUMBER,
+			BidiClass.EUROPEAN_SEPARATOR, BidiClass.COMMON_SEPARATOR,
+			BidiClass.EUROPEAN_TERMINATOR, BidiClass.OTHER_NEUTRAL,
+			BidiClass.BOUNDARY_NEUTRAL, BidiClass.NONSPACING_MARK );
 
-	private static final Set<String> LTR_BIDI_PROPERTIES = new HashSet<String>();
-	static {
-		LTR_BIDI_PROPERTIES.add( BIDI_L );
-		LTR_BIDI_PROPERTIES.add( BIDI_EN );
-		LTR_BIDI_PROPERTIES.add( BIDI_ES );
-		LTR_BIDI_PROPERTIES.add( BIDI_CS );
-		LTR_BIDI_PROPERTIES.add( BIDI_ET );
-		LTR_BIDI_PROPERTIES.add( BIDI_ON );
-		LTR_BIDI_PROPERTIES.add( BIDI_BN );
-		LTR_BIDI_PROPERTIES.add( BIDI_NSM );
-	}
+	private static final Set<BidiClass> LTR_BIDI_PROPERTIES = EnumSet.of(
+			BidiClass.LEFT_TO_RIGHT, BidiClass.EUROPEAN_NUMBER,
+			BidiClass.EUROPEAN_SEPARATOR, BidiClass.COMMON_SEPARATOR,
+			BidiClass.EUROPEAN_TERMINATOR, BidiClass.OTHER_NEUTRAL,
+			BidiClass.BOUNDARY_NEUTRAL, BidiClass.NONSPACING_MARK );
 
 
 	/**
@@ -114,7 +101,7 @@ public class Bidi {
 	public static boolean isBidiDomain ( int[] aCodePoints ) {
 		boolean isBidiDomain = false;
 		for ( final int codePoint : aCodePoints ) {
-			final String bidiClass = UnicodeData.getBidiClass( codePoint );
+			final BidiClass bidiClass = UnicodeData.getBidiClassValue( codePoint );
 			if ( RTL_LABEL.contains( bidiClass ) ) {
 				isBidiDomain = true;
 				break;
@@ -138,14 +125,14 @@ public class Bidi {
 		boolean europeanNumberPresent = false;
 
 		for ( final int codePoint : aCodePoints ) {
-			final String cat = UnicodeData.getBidiClass( codePoint );
-			if ( !RTL_BIDI_PROPERTIES.contains( cat ) ) {
+			final BidiClass cat = UnicodeData.getBidiClassValue( codePoint );
+			if ( cat == null || !RTL_BIDI_PROPERTIES.contains( cat ) ) {
 				throw XcodeError.BIDI_RULE_2_VIOLATION();
 			}
-			if ( cat.equals( BIDI_AN ) ) {
+			if ( cat == BidiClass.ARABIC_NUMBER ) {
 				arabicNumberPresent = true;
 			}
-			if ( cat.equals( BIDI_EN ) ) {
+			if ( cat == BidiClass.EUROPEAN_NUMBER ) {
 				europeanNumberPresent = true;
 			}
 			if ( arabicNumberPresent && europeanNumberPresent ) {
@@ -160,11 +147,12 @@ public class Bidi {
 		// start at the end of the label
 		boolean rtlLabelPropertyFound = false;
 		for ( int i = aCodePoints.length - 1; i >= 0; i-- ) {
-			final String cat = UnicodeData.getBidiClass( aCodePoints[ i ] );
-			if ( !cat.equals( BIDI_NSM ) ) {
+			final BidiClass cat = UnicodeData.getBidiClassValue( aCodePoints[ i ] );
+			if ( cat != BidiClass.NONSPACING_MARK ) {
 				rtlLabelPropertyFound =
-						cat.equals( BIDI_R ) || cat.equals( BIDI_AL )
-								|| cat.equals( BIDI_EN ) || cat.equals( BIDI_AN );
+						cat == BidiClass.RIGHT_TO_LEFT || cat == BidiClass.ARABIC_LETTER
+								|| cat == BidiClass.EUROPEAN_NUMBER
+								|| cat == BidiClass.ARABIC_NUMBER;
 				break;
 			}
 		}
@@ -185,8 +173,8 @@ public class Bidi {
 			throws XcodeException {
 
 		for ( final int codePoint : aCodePoints ) {
-			final String cat = UnicodeData.getBidiClass( codePoint );
-			if ( !LTR_BIDI_PROPERTIES.contains( cat ) ) {
+			final BidiClass cat = UnicodeData.getBidiClassValue( codePoint );
+			if ( cat == null || !LTR_BIDI_PROPERTIES.contains( cat ) ) {
 				throw XcodeError.BIDI_RULE_5_VIOLATION();
 			}
 		}
@@ -197,9 +185,10 @@ public class Bidi {
 		// start at the end of the label
 		boolean ltrLabelPropertyFound = false;
 		for ( int i = aCodePoints.length - 1; i >= 0; i-- ) {
-			final String cat = UnicodeData.getBidiClass( aCodePoints[ i ] );
-			if ( !cat.equals( BIDI_NSM ) ) {
-				ltrLabelPropertyFound = cat.equals( BIDI_L ) || cat.equals( BIDI_EN );
+			final BidiClass cat = UnicodeData.getBidiClassValue( aCodePoints[ i ] );
+			if ( cat != BidiClass.NONSPACING_MARK ) {
+				ltrLabelPropertyFound =
+						cat == BidiClass.LEFT_TO_RIGHT || cat == BidiClass.EUROPEAN_NUMBER;
 				break;
 			}
 		}
@@ -225,12 +214,13 @@ public class Bidi {
 		}
 
 		boolean isRTLLabel = true;
-		final String firstCpBidiCat = UnicodeData.getBidiClass( aCodePoints[ 0 ] );
-		if ( firstCpBidiCat.equals( BIDI_L ) ) {
+		final BidiClass firstCpBidiCat =
+				UnicodeData.getBidiClassValue( aCodePoints[ 0 ] );
+		if ( firstCpBidiCat == BidiClass.LEFT_TO_RIGHT ) {
 			isRTLLabel = false;
 		}
-		else if ( firstCpBidiCat.equals( BIDI_R )
-				|| firstCpBidiCat.equals( BIDI_AL ) ) {
+		else if ( firstCpBidiCat == BidiClass.RIGHT_TO_LEFT
+				|| firstCpBidiCat == BidiClass.ARABIC_LETTER ) {
 			isRTLLabel = true;
 		}
 		else {
@@ -7,6 +7,8 @@ package com.vgrs.xcode.idna;
 import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.StringTokenizer;
 
 import com.vgrs.xcode.common.UnicodeTokenizer;
@@ -294,6 +296,132 @@ public final class Idna {
 	}
 
 
+	/**
+	 * Converts a domain name held as ASCII bytes, such as a name read from a DNS
+	 * message in presentation format, without converting it to chars first. Each
+	 * byte is read as the character of the same value, and labels are delimited
+	 * by the ASCII full stop. The result is the same as
+	 * {@link #domainToUnicode(char[])} for the same characters.
+	 * 
+	 * @param input
+	 *        a byte array holding the domain name
+	 * @param offset
+	 *        the index of the first byte of the domain name
+	 * @param length
+	 *        the number of bytes of the domain name
+	 * @return an int array
+	 * @throws XcodeException
+	 *         if the input is null or empty
+	 */
+	public int[] domainToUnicode ( byte[] input, int offset, int length )
+			throws XcodeException {
+		if ( input == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( length == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final TIntList output = new TIntArrayList( length );
+		final int end = offset + length;
+		int start = offset;
+		for ( int i = offset; i <= end; i++ ) {
+			if ( i == end || input[ i ] == ACE_DELIMITER ) {
+				if ( i > start ) {
+					output.add( toUnicode( input, start, i - start ) );
+				}
+				if ( i < end ) {
+					output.add( ACE_DELIMITER );
+				}
+				start = i + 1;
+			}
+		}
+
+		final int[] unicode = output.toArray();
+
+		// Apply Bidi rules
+		if ( this.isRegistrationProtocol ) {
+			applyIdna2008BidiRules( unicode );
+		}
+		return unicode;
+	}
+
+
+	/**
+	 * Converts a domain name held as ASCII bytes from the position of a buffer to
+	 * its limit, like {@link #domainToUnicode(byte[], int, int)}. The position of
+	 * the buffer is moved to its limit. The bytes of a buffer backed by an
+	 * accessible array are read in place.
+	 * 
+	 * @param input
+	 *        a buffer holding the domain name
+	 * @return an int array
+	 * @throws XcodeException
+	 *         if the input is null or empty
+	 */
+	public int[] domainToUnicode ( ByteBuffer input ) throws XcodeException {
+		if ( input == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final int length = input.remaining();
+		final int[] output;
+		if ( input.hasArray() ) {
+			output =
+					domainToUnicode( input.array(), input.arrayOffset()
+							+ input.position(), length );
+			input.position( input.limit() );
+		}
+		else {
+			final byte[] bytes = new byte[length];
+			input.get( bytes );
+			output = domainToUnicode( bytes, 0, length );
+		}
+		return output;
+	}
+
+
+	/**
+	 * Converts a domain name in DNS wire format, a sequence of labels each
+	 * preceded by its length in one byte, up to the empty label of the root. The
+	 * converted labels are delimited by the ASCII full stop, without a final one
+	 * for the root, so that the result is the same as
+	 * {@link #domainToUnicode(char[])} for the name in presentation format. The
+	 * name is read from the position of the buffer, which is moved past the root
+	 * label. Compressed names must be expanded by the caller.
+	 * 
+	 * @param input
+	 *        a buffer holding the domain name
+	 * @return an int array, empty for the root
+	 * @throws XcodeException
+	 *         if the input is null or is not a valid uncompressed name
+	 */
+	public int[] domainToUnicodeWire ( ByteBuffer input ) throws XcodeException {
+		if ( input == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+
+		final TIntList output = new TIntArrayList();
+		final byte[] bytes =
+				input.hasArray() ? input.array()
+						: new byte[Ace.MAX_WIRE_LABEL_LENGTH];
+		for ( int length; (length = Ace.nextWireLabel( input )) > 0; ) {
+			if ( !output.isEmpty() ) {
+				output.add( ACE_DELIMITER );
+			}
+			output.add( toUnicode( bytes, Ace.getWireLabel( input, length, bytes ),
+					length ) );
+		}
+
+		final int[] unicode = output.toArray();
+
+		// Apply Bidi rules
+		if ( this.isRegistrationProtocol && unicode.length > 0 ) {
+			applyIdna2008BidiRules( unicode );
+		}
+		return unicode;
+	}
+
+
 	/**
 	 * toAscii - IETF Idna draft documents a method of converting unicode data
 	 * into a DNS compliant domain. <br>
@@ -388,6 +516,53 @@ public final class Idna {
 	}
 
 
+	/**
+	 * toUnicode of a label held as ASCII bytes, like
+	 * {@link #toUnicode(char[])}.
+	 */
+	private int[] toUnicode ( final byte[] input, final int offset,
+			final int length ) throws XcodeException {
+
+		try {
+
+			// This encoding is intended for DNS Registration; Step 4. Assert Dns
+			// compatibility
+			if ( this.isRegistrationProtocol
+					&& length > MAX_DOMAIN_LABEL_LENGTH_IN_OCTETS ) {
+				throw XcodeError.IDNA_LABEL_LENGTH_RESTRICTION();
+			}
+
+			// Step 3. Decode from Ace
+			final int[] decoded = new int[length];
+			final int[] output =
+					Arrays.copyOf( decoded, this.ace.decode( input, offset, length,
+							decoded, 0 ) );
+
+			if ( this.isRegistrationProtocol ) {
+
+				// Step 2. Assert Idna compliance (MUST not alter input)
+				idna2008Protocol( output );
+
+				// Step 1. Assert normalization
+				UnicodeData.assertNormalized( output );
+			}
+
+			return output;
+		}
+
+		catch ( final XcodeException x ) {
+			if ( this.toUnicodeExceptionFlag ) {
+				throw x;
+			}
+			final int[] output = new int[length];
+			for ( int i = 0; i < length; i++ ) {
+				output[ i ] = input[ offset + i ] & 0xff;
+			}
+			return output;
+		}
+	}
+
+
 	/**
 	 * Method to apply IDNA2008 Protocol rules on the given set of Unicode code
 	 * points. The BIDI rules are not applied in this method. They are applied in
@@ -4,51 +4,144 @@
 
 package com.vgrs.xcode.idna;
 
-import gnu.trove.list.TIntList;
+import gnu.trove.iterator.TIntObjectIterator;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.map.TIntIntMap;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.TLongIntMap;
-import gnu.trove.set.TIntSet;
+import gnu.trove.map.hash.TIntIntHashMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.vgrs.xcode.common.unicodedata.CodePointProperties;
 import com.vgrs.xcode.common.unicodedata.UnicodeData;
+import com.vgrs.xcode.common.unicodedata.UnicodeDataConstants;
+import com.vgrs.xcode.util.InitializationReport;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
 
 /**
- * This class perform NFKC normalization
+ * This class perform NFKC normalization. Precomposed Hangul syllables are
+ * decomposed and composed arithmetically, as described in section 3.12 of The
+ * Unicode Standard, rather than through the decomposition and composition
+ * tables. The full compatibility decomposition of every other code point is
+ * computed once, when the class loads, so that decomposing a code point is a
+ * single lookup followed by a copy.
+ * <p>
+ * The input is first scanned with the NFKC_Quick_Check property. Input that is
+ * already normalized is returned as is, and otherwise only the part following
+ * the last starter before the first code point that may need normalizing is
+ * decomposed and recomposed.
+ * <p>
+ * The normalization can also be written into an array supplied by the caller,
+ * with {@link #execute(int[], int, int, int[], int)}. Decomposition, canonical
+ * reordering and composition then all work in that array, so normalizing
+ * allocates nothing.
+ * <p>
+ * Whether a sequence is already normalized is answered by
+ * {@link #verify(int[], int, int)}, which only builds a normalized copy of the
+ * part of the input that the NFKC_Quick_Check values leave in question.
+ * <p>
+ * Very long inputs can be normalized on a fork/join pool with
+ * {@link #execute(int[], ForkJoinPool)}, which splits them at safe boundaries
+ * and normalizes the segments at the same time.
  */
 public class Normalize {
 
 	/**
-	 * Set containing the compatible code points for each of the assigned Unicode
-	 * code points.
+	 * Number of Hangul syllables sharing a leading consonant (588)
+	 */
+	static private final int N_COUNT =
+			UnicodeDataConstants.V_COUNT * UnicodeDataConstants.T_COUNT;
+
+	/**
+	 * Number of precomposed Hangul syllables (11172)
+	 */
+	static private final int S_COUNT = UnicodeDataConstants.L_COUNT * N_COUNT;
+
+	/**
+	 * The largest number of code points a single code point decomposes to, which
+	 * is 18 for U+FDFA ARABIC LIGATURE SALLALLAHOU ALAYHE WASALLAM. An output
+	 * array of aLength * MAX_EXPANSION code points is always large enough for
+	 * {@link #execute(int[], int, int, int[], int)}.
+	 */
+	static public final int MAX_EXPANSION = 18;
+
+	/**
+	 * The smallest number of code points normalized by one task of
+	 * {@link #execute(int[], ForkJoinPool)}
+	 */
+	static private final int MIN_PARALLEL_SEGMENT = 4096;
+
+	/**
+	 * The code points that are the first of a pair composing into a primary
+	 * composite
+	 */
+	private static BitSet CAN_BE_FIRST;
+
+	/**
+	 * The code points that are the second of a pair composing into a primary
+	 * composite
 	 */
-	private static TIntSet COMPATIBILITY_TABLE;
+	private static BitSet CAN_BE_SECOND;
 
 	/**
-	 * A map containing the assigned Unicode code point and it's canonical
-	 * equivalent
+	 * The position of the compositions of each code point that can be first in
+	 * COMPOSITION_SECONDS and COMPOSITIONS, shifted left by
+	 * COMPOSITION_COUNT_BITS, or'ed with their number
 	 */
-	private static TIntIntMap CANONICAL_CLASS_TABLE;
+	private static TIntIntMap COMPOSITION_INDEX;
 
 	/**
-	 * A map containing the assigned Unicode code point and it's composition
-	 * characters used to during the composition phase of the NFC normalization
-	 * process.
+	 * The second code point of each composition, sorted for each first code
+	 * point
 	 */
-	private static TLongIntMap COMPOSE_TABLE;
+	private static int[] COMPOSITION_SECONDS;
 
 	/**
-	 * A map containing the assigned Unicode code point and it's decomposition
-	 * characters used to during the decomposition phase of the NFC normalization
-	 * process.
+	 * The primary composite of each composition
 	 */
-	private static TIntObjectMap<int[]> DECOMPOSE_TABLE;
+	private static int[] COMPOSITIONS;
+
+	static private final int COMPOSITION_COUNT_BITS = 16;
+
+	static private final int COMPOSITION_COUNT_MASK =
+			(1 << COMPOSITION_COUNT_BITS) - 1;
+
+	/**
+	 * The full compatibility decompositions of all the code points with a
+	 * decomposition, one after the other
+	 */
+	private static int[] DECOMPOSITIONS;
+
+	/**
+	 * The position of the decomposition of each code point in DECOMPOSITIONS,
+	 * shifted left by DECOMPOSITION_LENGTH_BITS, or'ed with its length. Code
+	 * points without a decomposition are not in the map.
+	 */
+	private static TIntIntMap DECOMPOSITION_INDEX;
+
+	static private final int DECOMPOSITION_LENGTH_BITS = 5;
+
+	static private final int DECOMPOSITION_LENGTH_MASK =
+			(1 << DECOMPOSITION_LENGTH_BITS) - 1;
+
+	/**
+	 * The packed properties of each code point, holding its canonical combining
+	 * class and NFKC quick check value
+	 */
+	private static CodePointProperties PROPERTIES;
 
 	static {
 		try {
+			final long start = InitializationReport.start();
 			init();
+			InitializationReport.step( "Normalize.init", start );
 		}
 		catch ( final XcodeException x ) {
 			throw new RuntimeException( x.getMessage() );
@@ -57,10 +150,114 @@ public class Normalize {
 
 
 	static private void init () throws XcodeException {
-		COMPATIBILITY_TABLE = UnicodeData.getCompatibilityTable();
-		CANONICAL_CLASS_TABLE = UnicodeData.getCanonicalClassTable();
-		COMPOSE_TABLE = UnicodeData.getComposeTable();
-		DECOMPOSE_TABLE = UnicodeData.getDecomposeTable();
+		PROPERTIES = UnicodeData.getCodePointProperties();
+		flattenDecompositions( UnicodeData.getDecomposeTable() );
+		indexCompositions( UnicodeData.getComposeTable() );
+	}
+
+
+	/**
+	 * Group the compositions of the composition table by their first code point,
+	 * and store them in COMPOSITION_INDEX, COMPOSITION_SECONDS and COMPOSITIONS.
+	 * 
+	 * @param aComposeTable
+	 *        the primary composite of each pair of code points, keyed by the
+	 *        first code point shifted left by 32, or'ed with the second
+	 */
+	static private void indexCompositions ( TLongIntMap aComposeTable ) {
+		final long start = InitializationReport.start();
+		final long[] pairs = aComposeTable.keys();
+		Arrays.sort( pairs );
+		final BitSet canBeFirst = new BitSet();
+		final BitSet canBeSecond = new BitSet();
+		final TIntIntHashMap index = new TIntIntHashMap();
+		final int[] seconds = new int[pairs.length];
+		final int[] compositions = new int[pairs.length];
+		for ( int i = 0; i < pairs.length; ) {
+			final int first = (int) (pairs[ i ] >>> 32);
+			final int offset = i;
+			for ( ; i < pairs.length && (int) (pairs[ i ] >>> 32) == first; i++ ) {
+				seconds[ i ] = (int) pairs[ i ];
+				compositions[ i ] = aComposeTable.get( pairs[ i ] );
+				canBeSecond.set( seconds[ i ] );
+			}
+			canBeFirst.set( first );
+			index.put( first, offset << COMPOSITION_COUNT_BITS | i - offset );
+		}
+		CAN_BE_FIRST = canBeFirst;
+		CAN_BE_SECOND = canBeSecond;
+		COMPOSITION_INDEX = index;
+		COMPOSITION_SECONDS = seconds;
+		COMPOSITIONS = compositions;
+		InitializationReport.step( "Normalize.indexCompositions", start );
+		InitializationReport.table( "Normalize.COMPOSITIONS", pairs.length,
+				pairs.length * 8L + index.capacity() * (4 + 4 + 1L)
+						+ (canBeFirst.size() + canBeSecond.size()) / 8 );
+	}
+
+
+	/**
+	 * Expand the decomposition of every code point in the decomposition table
+	 * recursively, and store the results in DECOMPOSITIONS and
+	 * DECOMPOSITION_INDEX.
+	 * 
+	 * @param aDecomposeTable
+	 *        the decomposition of each code point, as listed in UnicodeData.txt
+	 */
+	static private void flattenDecompositions (
+			TIntObjectMap<int[]> aDecomposeTable ) throws XcodeException {
+		final long start = InitializationReport.start();
+		final TIntIntHashMap index = new TIntIntHashMap( aDecomposeTable.size() );
+		final TIntArrayList pool =
+				new TIntArrayList( aDecomposeTable.size() * 2 );
+		final int[] buffer = new int[MAX_EXPANSION];
+		for ( final TIntObjectIterator<int[]> i = aDecomposeTable.iterator(); i
+				.hasNext(); ) {
+			i.advance();
+			int length = 0;
+			for ( final int element : i.value() ) {
+				length = flatten( aDecomposeTable, element, buffer, length );
+			}
+			index.put( i.key(), pool.size() << DECOMPOSITION_LENGTH_BITS | length );
+			pool.add( buffer, 0, length );
+		}
+		DECOMPOSITIONS = pool.toArray();
+		DECOMPOSITION_INDEX = index;
+		InitializationReport.step( "Normalize.flattenDecompositions", start );
+		InitializationReport.table( "Normalize.DECOMPOSITIONS", index.size(),
+				DECOMPOSITIONS.length * 4L + index.capacity()
+						* (4 + 4 + 1L) );
+	}
+
+
+	/**
+	 * flatten - recursive decomposition for one unicode character, used to build
+	 * DECOMPOSITIONS
+	 * 
+	 * @return the position in aOutput following the decomposition
+	 */
+	static private int flatten ( final TIntObjectMap<int[]> aDecomposeTable,
+			final int aCodePoint, final int[] aOutput, final int aPosition )
+			throws XcodeException {
+		final int sIndex = aCodePoint - UnicodeDataConstants.S_BASE;
+		if ( sIndex >= 0 && sIndex < S_COUNT ) {
+			return decomposeHangul( sIndex, aOutput, aPosition );
+		}
+
+		final int[] decomposeItem = aDecomposeTable.get( aCodePoint );
+		if ( decomposeItem != null ) {
+			int position = aPosition;
+			for ( final int element : decomposeItem ) {
+				position = flatten( aDecomposeTable, element, aOutput, position );
+			}
+			return position;
+		}
+
+		if ( aPosition >= aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		aOutput[ aPosition ] = aCodePoint;
+		return aPosition + 1;
 	}
 
 
@@ -69,7 +266,8 @@ public class Normalize {
 	 * 
 	 * @param aInput
 	 *        Unicode sequence to normalize
-	 * @return Normalized Unicode sequence
+	 * @return Normalized Unicode sequence, which is aInput itself if it is
+	 *         already normalized
 	 * @throws XcodeException
 	 *         if the input string is null or with length == 0 or the input
 	 *         sequence cannot be normalized.
@@ -82,162 +280,618 @@ public class Normalize {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
-		return kcCompose( kcDecompose( aInput ) );
-
-		// int value = UnicodeData.isNormalizationNeeded( input );
-		//
-		// switch (value) {
-		//
-		// case UnicodeDataConstants.NORMALIZATION_NEEDED: {
-		// return kcCompose( kcDecompose( input ) );
-		// }
-		//
-		// case UnicodeDataConstants.CANNOT_BE_NORMALIZED: {
-		// throw XcodeError.NORMALIZE_INVALID_CHARACTER();
-		// }
-		//
-		// default:
-		// return input;
-		// }
+		final int start = quickCheck( aInput, 0, aInput.length );
+		if ( start == aInput.length ) {
+			return aInput;
+		}
+
+		final int[] output =
+				new int[start
+						+ getDecomposedLength( aInput, start, aInput.length - start )];
+		System.arraycopy( aInput, 0, output, 0, start );
+		final int end =
+				compose( output, start, decompose( aInput, start, aInput.length
+						- start, output, start ) );
+		return end == output.length ? output : Arrays.copyOf( output, end );
+	}
+
+
+	/**
+	 * Execute the normalization algorithm on a fork/join pool. The input is
+	 * split into segments at safe boundaries, where a starter with no pending
+	 * composition begins (see {@link #isSafeBoundary(int)}), and the segments
+	 * are normalized at the same time. Since nothing before a safe boundary can
+	 * compose with or be reordered past the code points after it, the result is
+	 * identical to that of {@link #execute(int[])}. Inputs too short to be worth
+	 * splitting are normalized on the calling thread.
+	 * 
+	 * @param aInput
+	 *        Unicode sequence to normalize
+	 * @param aPool
+	 *        the pool running the segments
+	 * @return Normalized Unicode sequence
+	 * @throws XcodeException
+	 *         if the input string is null or with length == 0 or the input
+	 *         sequence cannot be normalized. The error reported is the one
+	 *         {@link #execute(int[])} would report.
+	 */
+	static public int[] execute ( int[] aInput, ForkJoinPool aPool )
+			throws XcodeException {
+		if ( aInput == null || aPool == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aInput.length == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final int count =
+				Math.min( aInput.length / MIN_PARALLEL_SEGMENT,
+						aPool.getParallelism() * 4 );
+		if ( count < 2 ) {
+			return execute( aInput );
+		}
+
+		final List<Segment> segments = new ArrayList<Segment>( count );
+		int from = 0;
+		for ( int i = 1; i < count; i++ ) {
+			int to = Math.max( from + 1, (int) ((long) aInput.length * i / count) );
+			while ( to < aInput.length && !isSafeBoundary( aInput[ to ] ) ) {
+				to++;
+			}
+			if ( to >= aInput.length ) {
+				break;
+			}
+			segments.add( new Segment( aInput, from, to - from ) );
+			from = to;
+		}
+		segments.add( new Segment( aInput, from, aInput.length - from ) );
+
+		aPool.invoke( new RecursiveAction() {
+
+			private static final long serialVersionUID = 1L;
+
+
+			@Override
+			protected void compute () {
+				invokeAll( segments );
+			}
+		} );
+
+		int length = 0;
+		for ( final Segment segment : segments ) {
+			if ( segment.error != null ) {
+				throw segment.error;
+			}
+			length += segment.length;
+		}
+		final int[] output = new int[length];
+		int position = 0;
+		for ( final Segment segment : segments ) {
+			System.arraycopy( segment.output, 0, output, position, segment.length );
+			position += segment.length;
+		}
+		return output;
+	}
+
+
+	/**
+	 * A segment of the input of {@link Normalize#execute(int[], ForkJoinPool)}
+	 * and its normalization
+	 */
+	static private final class Segment extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[] input;
+
+		private final int offset;
+
+		private final int count;
+
+		int[] output;
+
+		int length;
+
+		XcodeException error;
+
+
+		Segment ( int[] aInput, int aOffset, int aCount ) {
+			this.input = aInput;
+			this.offset = aOffset;
+			this.count = aCount;
+		}
+
+
+		@Override
+		protected void compute () {
+			try {
+				this.output =
+						new int[getDecomposedLength( this.input, this.offset,
+								this.count )];
+				this.length =
+						Normalize.execute( this.input, this.offset, this.count, this.output,
+								0 );
+			}
+			catch ( final XcodeException x ) {
+				this.error = x;
+			}
+		}
+	}
+
+
+	/**
+	 * A safe boundary is a starter with no pending composition: a code point
+	 * with a canonical combining class of 0 whose full decomposition begins with
+	 * a code point of canonical combining class 0 that is never the second of a
+	 * composing pair. Nothing before it can be reordered past its decomposition
+	 * or compose with it, so the input can be normalized in parts split before
+	 * it. Compatibility characters such as fullwidth and halfwidth forms are
+	 * safe boundaries, although their NFKC_Quick_Check value is No, since they
+	 * decompose to such starters.
+	 * 
+	 * @param aCodePoint
+	 * @return true if the code point is a safe boundary
+	 */
+	static boolean isSafeBoundary ( int aCodePoint ) {
+		if ( CodePointProperties.getCanonicalClass(
+				PROPERTIES.get( aCodePoint ) ) != 0 ) {
+			return false;
+		}
+
+		int first = aCodePoint;
+		final int sIndex = aCodePoint - UnicodeDataConstants.S_BASE;
+		if ( sIndex < 0 || sIndex >= S_COUNT ) {
+			final int decomposition = DECOMPOSITION_INDEX.get( aCodePoint );
+			if ( decomposition != 0 ) {
+				first = DECOMPOSITIONS[ decomposition >>> DECOMPOSITION_LENGTH_BITS ];
+				if ( CodePointProperties.getCanonicalClass(
+						PROPERTIES.get( first ) ) != 0 ) {
+					return false;
+				}
+			}
+		}
+		return !canBeSecond( first );
+	}
+
+
+	/**
+	 * @return true if a code point is the second of a pair composing into a
+	 *         primary composite, including the vowels and trailing consonants
+	 *         composed with Hangul syllables
+	 */
+	static private boolean canBeSecond ( int aCodePoint ) {
+		if ( aCodePoint < 0 ) {
+			return false;
+		}
+		final int vIndex = aCodePoint - UnicodeDataConstants.V_BASE;
+		final int tIndex = aCodePoint - UnicodeDataConstants.T_BASE;
+		return CAN_BE_SECOND.get( aCodePoint ) || vIndex >= 0
+				&& vIndex < UnicodeDataConstants.V_COUNT || tIndex > 0
+				&& tIndex < UnicodeDataConstants.T_COUNT;
+	}
+
+
+	/**
+	 * Execute the normalization algorithm, writing the normalized sequence into
+	 * an array supplied by the caller. The array is also used as the work space
+	 * of the decomposition, so it must be able to hold the decomposed input,
+	 * whose length is given by {@link #getDecomposedLength(int[], int, int)} and
+	 * is never more than aLength * MAX_EXPANSION. Nothing is allocated.
+	 * 
+	 * @param aInput
+	 *        Unicode sequence to normalize
+	 * @param aOffset
+	 *        the position of the first code point to normalize
+	 * @param aLength
+	 *        the number of code points to normalize
+	 * @param aOutput
+	 *        the array receiving the normalized sequence
+	 * @param aOutputOffset
+	 *        the position in aOutput of the first normalized code point
+	 * @return the number of code points written to aOutput
+	 * @throws XcodeException
+	 *         if an argument is null, aLength is 0, aOutput is too small or the
+	 *         input sequence cannot be normalized. aOutput then holds no useful
+	 *         data.
+	 */
+	static public int execute ( int[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		final int start = quickCheck( aInput, aOffset, aLength );
+		if ( aOutputOffset + start > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		System.arraycopy( aInput, aOffset, aOutput, aOutputOffset, start );
+		if ( start == aLength ) {
+			return aLength;
+		}
+		final int end =
+				compose( aOutput, aOutputOffset + start, decompose( aInput, aOffset
+						+ start, aLength - start, aOutput, aOutputOffset + start ) );
+		return end - aOutputOffset;
+	}
+
+
+	/**
+	 * Count the code points of the NFKC decomposition of a Unicode sequence,
+	 * which is the space that {@link #execute(int[], int, int, int[], int)}
+	 * needs to normalize it.
+	 * 
+	 * @param aInput
+	 *        Unicode sequence
+	 * @param aOffset
+	 *        the position of the first code point
+	 * @param aLength
+	 *        the number of code points
+	 * @return the length of the decomposed sequence
+	 */
+	static public int getDecomposedLength ( int[] aInput, int aOffset,
+			int aLength ) {
+		int length = 0;
+		for ( int i = aOffset; i < aOffset + aLength; i++ ) {
+			length += getDecomposedLength( aInput[ i ] );
+		}
+		return length;
+	}
+
 
+	/**
+	 * Find where normalization has to start. Every code point must have an
+	 * NFKC_Quick_Check value of Yes and the canonical combining classes of each
+	 * run of combining marks must be in order for the input to be normalized.
+	 * The null character, and a combining mark following a code point without a
+	 * canonical combining class, are also left to the full algorithm so that it
+	 * reports them as errors.
+	 * 
+	 * @param aInput
+	 *        Unicode sequence to check
+	 * @param aOffset
+	 *        the position of the first code point to check
+	 * @param aLength
+	 *        the number of code points to check
+	 * @return aLength if the input is normalized, or else the offset from
+	 *         aOffset of the last starter with an NFKC_Quick_Check value of Yes
+	 *         before the first code point that may need normalizing, or 0 if
+	 *         there is none; no code point before that position is changed by
+	 *         normalization
+	 */
+	static private int quickCheck ( final int[] aInput, final int aOffset,
+			final int aLength ) {
+		int start = 0;
+		int lastClass = 0;
+		boolean lastListed = true;
+		for ( int i = 0; i < aLength; i++ ) {
+			final int codePoint = aInput[ aOffset + i ];
+			final int properties = PROPERTIES.get( codePoint );
+			final int cClass = CodePointProperties.getCanonicalClass( properties );
+			if ( codePoint == 0
+					|| CodePointProperties.getNfkcQuickCheck( properties ) != CodePointProperties.NFKC_QC_YES ) {
+				return start;
+			}
+			if ( cClass == 0 ) {
+				start = i;
+			}
+			else if ( lastClass > cClass || !lastListed ) {
+				return start;
+			}
+			lastClass = cClass;
+			lastListed = CodePointProperties.isListed( properties );
+		}
+		return aLength;
 	}
 
 
 	/**
-	 * Form KC decomposition
+	 * Verify that a Unicode sequence is normalized. The NFKC_Quick_Check values
+	 * and the order of the canonical combining classes of each run of combining
+	 * marks answer the question for almost every normalized input, without
+	 * building a normalized copy. Only when they leave it open is the input
+	 * normalized from the last starter before the first code point in question,
+	 * into a temporary array, and compared.
+	 * 
+	 * @param aInput
+	 *        Unicode sequence to verify
+	 * @param aOffset
+	 *        the position of the first code point to verify
+	 * @param aLength
+	 *        the number of code points to verify
+	 * @return aLength if the input is normalized, or else the offset from
+	 *         aOffset of the first code point that normalization changes
+	 * @throws XcodeException
+	 *         if the input is null or with length == 0 or the input sequence
+	 *         cannot be normalized, as {@link #execute(int[])} would
 	 */
-	static private int[] kcDecompose ( final int[] aInput ) throws XcodeException {
+	static public int verify ( int[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
 
-		final TIntList output = new TIntArrayList();
-		int[] buf = null;
-		int charI = 0;
-		int charJ = 0;
-		int cClass = -1;
-		int cursor = -1;
-		int pCanonicalItem = 0;
+		final int start = quickCheck( aInput, aOffset, aLength );
+		if ( start == aLength ) {
+			return aLength;
+		}
+		return compare( aInput, aOffset, aLength, start );
+	}
 
-		for ( final int element : aInput ) {
-			charI = element;
+
+	/**
+	 * @param aInput
+	 *        Unicode sequence to verify
+	 * @return true if the input is normalized
+	 * @throws XcodeException
+	 *         if the input is null or with length == 0 or the input sequence
+	 *         cannot be normalized
+	 */
+	static public boolean isNormalized ( int[] aInput ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return verify( aInput, 0, aInput.length ) == aInput.length;
+	}
+
+
+	/**
+	 * Normalize a Unicode sequence from one of its starters and compare the
+	 * result with the input.
+	 * 
+	 * @param aStart
+	 *        the offset from aOffset of a starter preceding the code points
+	 *        whose normalization is in question
+	 * @return aLength if the input is normalized, or else the offset from
+	 *         aOffset of the first code point that normalization changes
+	 */
+	static private int compare ( final int[] aInput, final int aOffset,
+			final int aLength, final int aStart ) throws XcodeException {
+		final int from = aOffset + aStart;
+		final int length = aLength - aStart;
+		final int[] output = new int[getDecomposedLength( aInput, from, length )];
+		final int end =
+				compose( output, 0, decompose( aInput, from, length, output, 0 ) );
+		for ( int i = 0; i < Math.min( end, length ); i++ ) {
+			if ( output[ i ] != aInput[ from + i ] ) {
+				return aStart + i;
+			}
+		}
+		return end == length ? aLength : aStart + Math.min( end, length );
+	}
+
+
+	/**
+	 * Form KC decomposition. Each code point is decomposed at the end of the
+	 * output, and each combining mark it decomposes to is then moved back past
+	 * the marks of higher canonical combining class before it. Marks already in
+	 * canonical order are therefore never moved, and a mark is only ever moved
+	 * within its own run of combining marks.
+	 * 
+	 * @param aInput
+	 *        Unicode sequence to decompose
+	 * @param aOffset
+	 *        the position of the first code point to decompose
+	 * @param aLength
+	 *        the number of code points to decompose
+	 * @param aOutput
+	 *        the array receiving the decomposition
+	 * @param aOutputOffset
+	 *        the position in aOutput of the first decomposed code point
+	 * @return the position in aOutput following the decomposition
+	 */
+	static private int decompose ( final int[] aInput, final int aOffset,
+			final int aLength, final int[] aOutput, final int aOutputOffset )
+			throws XcodeException {
+
+		int end = aOutputOffset;
+		for ( int i = aOffset; i < aOffset + aLength; i++ ) {
+			final int charI = aInput[ i ];
 
 			if ( charI == 0 ) {
 				throw XcodeError.NORMALIZE_NULL_CHARACTER_PRESENT();
 			}
 
-			buf = doDecomposition( charI, false );
+			final int first = end;
+			end = doDecomposition( charI, aOutput, end );
 
-			for ( final int element2 : buf ) {
-				charJ = element2;
-				if ( CANONICAL_CLASS_TABLE.containsKey( charJ ) ) {
-					pCanonicalItem = CANONICAL_CLASS_TABLE.get( charJ );
-					cClass = pCanonicalItem;
-				}
-				else {
-					cClass = 0;
-				}
+			for ( int j = first; j < end; j++ ) {
+				final int charJ = aOutput[ j ];
+				final int cClass =
+						CodePointProperties.getCanonicalClass( PROPERTIES.get( charJ ) );
 
-				cursor = output.size();
+				int cursor = j;
 
 				if ( cClass != 0 ) {
-					for ( ; cursor > 0; --cursor ) {
-						final int canonicalIndex = output.get( cursor - 1 );
-						if ( !CANONICAL_CLASS_TABLE.containsKey( canonicalIndex ) ) {
+					for ( ; cursor > aOutputOffset; --cursor ) {
+						final int properties = PROPERTIES.get( aOutput[ cursor - 1 ] );
+						if ( !CodePointProperties.isListed( properties ) ) {
 							throw XcodeError.NORMALIZE_CANONICAL_LOOKUP_ERROR();
 						}
-						pCanonicalItem = CANONICAL_CLASS_TABLE.get( canonicalIndex );
-						if ( pCanonicalItem <= cClass ) {
+						if ( CodePointProperties.getCanonicalClass( properties ) <= cClass ) {
 							break;
 						}
+						aOutput[ cursor ] = aOutput[ cursor - 1 ];
 					}
 				}
-				output.insert( cursor, charJ );
+				aOutput[ cursor ] = charJ;
 			}
 		}
-		return output.toArray();
+		return end;
 
-	} // END kcDecompose()
+	} // END decompose()
 
 
 	/**
-	 * doDecomposition - recursive decomposition for one unicode character
+	 * doDecomposition - decomposition for one unicode character
+	 * 
+	 * @return the position in aOutput following the decomposition
 	 */
-	static private int[] doDecomposition ( final int aCodePoint,
-			boolean aCanonical ) {
-		final TIntList output = new TIntArrayList();
-		int[] decomposeItem = null;
-		boolean compatExists = false;
-
-		decomposeItem = DECOMPOSE_TABLE.get( aCodePoint );
-		compatExists = COMPATIBILITY_TABLE.contains( aCodePoint );
+	static private int doDecomposition ( final int aCodePoint,
+			final int[] aOutput, final int aPosition ) throws XcodeException {
+		final int sIndex = aCodePoint - UnicodeDataConstants.S_BASE;
+		if ( sIndex >= 0 && sIndex < S_COUNT ) {
+			return decomposeHangul( sIndex, aOutput, aPosition );
+		}
 
-		if ( decomposeItem != null && !(aCanonical && compatExists) ) {
-			for ( final int element : decomposeItem ) {
-				output.add( doDecomposition( element, aCanonical ) );
-			}
+		final int decomposition = DECOMPOSITION_INDEX.get( aCodePoint );
+		final int length =
+				decomposition == 0 ? 1 : decomposition & DECOMPOSITION_LENGTH_MASK;
+		if ( aPosition + length > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		if ( decomposition == 0 ) {
+			aOutput[ aPosition ] = aCodePoint;
 		}
 		else {
-			output.add( aCodePoint );
+			System.arraycopy( DECOMPOSITIONS,
+					decomposition >>> DECOMPOSITION_LENGTH_BITS, aOutput, aPosition,
+					length );
 		}
-
-		return output.toArray();
+		return aPosition + length;
 
 	} // END doDecomposition()
 
 
 	/**
-	 * Form KC recomposition
+	 * @return the number of code points doDecomposition() writes for a code
+	 *         point
 	 */
-	static private int[] kcCompose ( final int[] output ) {
-		int startCh = 0;
-		int pCanonical = 0;
-		int pCompose = 0;
-		int lastClass = -1;
-		int decompPos = -1;
-		int startPos = 0;
-		int compPos = 1;
+	static private int getDecomposedLength ( final int aCodePoint ) {
+		final int sIndex = aCodePoint - UnicodeDataConstants.S_BASE;
+		if ( sIndex >= 0 && sIndex < S_COUNT ) {
+			return sIndex % UnicodeDataConstants.T_COUNT == 0 ? 2 : 3;
+		}
 
-		int[] outputArray = new int[output.length];
-		System.arraycopy( output, 0, outputArray, 0, output.length );
+		final int decomposition = DECOMPOSITION_INDEX.get( aCodePoint );
+		return decomposition == 0 ? 1 : decomposition & DECOMPOSITION_LENGTH_MASK;
+	}
 
-		startCh = outputArray[ 0 ];
 
-		if ( CANONICAL_CLASS_TABLE.containsKey( startCh ) ) {
-			pCanonical = CANONICAL_CLASS_TABLE.get( startCh );
-			if ( pCanonical != 0 ) {
-				lastClass = 256;
-			}
-			else {
-				lastClass = 0;
-			}
+	/**
+	 * Decompose a precomposed Hangul syllable into its conjoining jamo
+	 * 
+	 * @param aSIndex
+	 *        offset of the syllable from S_BASE
+	 * @param aOutput
+	 *        the array receiving the leading consonant, vowel and trailing
+	 *        consonant, if any
+	 * @param aPosition
+	 *        the position in aOutput of the leading consonant
+	 * @return the position in aOutput following the jamo
+	 */
+	static private int decomposeHangul ( final int aSIndex, final int[] aOutput,
+			final int aPosition ) throws XcodeException {
+		final int t = aSIndex % UnicodeDataConstants.T_COUNT;
+		final int end = aPosition + (t == 0 ? 2 : 3);
+		if ( end > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
 		}
-		else {
-			lastClass = 0;
-		}
-
-		final int outputArrayLength = outputArray.length;
-		for ( decompPos = 1; decompPos < outputArrayLength; decompPos++ ) {
-			int chClass = -1;
-			int composite = -1;
-			final int ch = outputArray[ decompPos ];
-			long pair = -1;
-			if ( CANONICAL_CLASS_TABLE.containsKey( ch ) ) {
-				pCanonical = CANONICAL_CLASS_TABLE.get( ch );
-				chClass = pCanonical;
-			}
-			else {
-				chClass = 0;
+		aOutput[ aPosition ] = UnicodeDataConstants.L_BASE + aSIndex / N_COUNT;
+		aOutput[ aPosition + 1 ] =
+				UnicodeDataConstants.V_BASE + aSIndex % N_COUNT
+						/ UnicodeDataConstants.T_COUNT;
+		if ( t != 0 ) {
+			aOutput[ aPosition + 2 ] = UnicodeDataConstants.T_BASE + t;
+		}
+		return end;
+	}
+
+
+	/**
+	 * Look up the primary composite of a pair of code points. Pairs whose first
+	 * code point is not the first of any composition, or whose second is not the
+	 * second of any, are rejected by a single bit test each.
+	 * 
+	 * @return the primary composite, or 0xffffffff if the two code points do not
+	 *         compose
+	 */
+	static private int getComposition ( final int aFirst, final int aSecond ) {
+		if ( aFirst >= 0 && aSecond >= 0 && CAN_BE_SECOND.get( aSecond )
+				&& CAN_BE_FIRST.get( aFirst ) ) {
+			final int compositions = COMPOSITION_INDEX.get( aFirst );
+			final int offset = compositions >>> COMPOSITION_COUNT_BITS;
+			final int found =
+					Arrays.binarySearch( COMPOSITION_SECONDS, offset, offset
+							+ (compositions & COMPOSITION_COUNT_MASK), aSecond );
+			if ( found >= 0 ) {
+				return COMPOSITIONS[ found ];
 			}
+		}
+		return composeHangul( aFirst, aSecond );
+	}
 
-			pair = (long) startCh << 32 | ch;
-			if ( COMPOSE_TABLE.containsKey( pair ) ) {
-				pCompose = COMPOSE_TABLE.get( pair );
-				composite = pCompose;
+
+	/**
+	 * Compose a leading consonant and a vowel into an LV syllable, or an LV
+	 * syllable and a trailing consonant into an LVT syllable.
+	 * 
+	 * @return the composed Hangul syllable, or 0xffffffff if the two code points
+	 *         do not compose
+	 */
+	static private int composeHangul ( final int aFirst, final int aSecond ) {
+		final int lIndex = aFirst - UnicodeDataConstants.L_BASE;
+		if ( lIndex >= 0 && lIndex < UnicodeDataConstants.L_COUNT ) {
+			final int vIndex = aSecond - UnicodeDataConstants.V_BASE;
+			if ( vIndex >= 0 && vIndex < UnicodeDataConstants.V_COUNT ) {
+				return UnicodeDataConstants.S_BASE
+						+ (lIndex * UnicodeDataConstants.V_COUNT + vIndex)
+						* UnicodeDataConstants.T_COUNT;
 			}
-			else {
-				composite = 0xffffffff;
+			return 0xffffffff;
+		}
+
+		final int sIndex = aFirst - UnicodeDataConstants.S_BASE;
+		if ( sIndex >= 0 && sIndex < S_COUNT
+				&& sIndex % UnicodeDataConstants.T_COUNT == 0 ) {
+			final int tIndex = aSecond - UnicodeDataConstants.T_BASE;
+			if ( tIndex > 0 && tIndex < UnicodeDataConstants.T_COUNT ) {
+				return aFirst + tIndex;
 			}
+		}
+		return 0xffffffff;
+	}
+
+
+	/**
+	 * Form KC recomposition, in place
+	 * 
+	 * @param aOutput
+	 *        the array holding the decomposed sequence
+	 * @param aStart
+	 *        the position of the first code point of the sequence
+	 * @param aEnd
+	 *        the position following the last code point of the sequence
+	 * @return the position following the last code point of the composed
+	 *         sequence
+	 */
+	static private int compose ( final int[] aOutput, final int aStart,
+			final int aEnd ) {
+		if ( aStart == aEnd ) {
+			return aEnd;
+		}
+
+		int startCh = aOutput[ aStart ];
+		int lastClass =
+				CodePointProperties.getCanonicalClass( PROPERTIES.get( startCh ) ) != 0 ? 256
+						: 0;
+		int startPos = aStart;
+		int compPos = aStart + 1;
+
+		for ( int decompPos = aStart + 1; decompPos < aEnd; decompPos++ ) {
+			final int ch = aOutput[ decompPos ];
+			final int chClass =
+					CodePointProperties.getCanonicalClass( PROPERTIES.get( ch ) );
+
+			final int composite = getComposition( startCh, ch );
 
 			if ( composite != 0xffffffff && (lastClass < chClass || lastClass == 0) ) {
-				outputArray[ startPos ] = composite;
+				aOutput[ startPos ] = composite;
 				startCh = composite;
 			}
 			else {
@@ -246,18 +900,12 @@ public class Normalize {
 					startCh = ch;
 				}
 				lastClass = chClass;
-				outputArray[ compPos++ ] = ch;
+				aOutput[ compPos++ ] = ch;
 			}
 		}
 
-		if ( compPos != outputArray.length ) {
-			final int[] buf = new int[compPos];
-			System.arraycopy( outputArray, 0, buf, 0, compPos );
-			outputArray = buf;
-		}
-
-		return outputArray;
+		return compPos;
 
-	} // END kcCompose()
+	} // END compose()
 
 }
@@ -0,0 +1,294 @@
+/*
+ * (c) VeriSign Inc., 2005, All rights reserved
+ */
+
+package com.vgrs.xcode.idna;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.vgrs.xcode.util.XcodeError;
+import com.vgrs.xcode.util.XcodeException;
+
+/**
+ * A Reader returning the NFKC normalization of the text read from another
+ * Reader or from a CharSequence, as {@link Normalize} computes it, so that
+ * texts of any size can be normalized incrementally.
+ * <p>
+ * The text is normalized in chunks ending before a safe boundary: a starter
+ * with no pending composition, which nothing before it can compose with or be
+ * reordered past (see {@link Normalize#isSafeBoundary(int)}). The output is
+ * therefore identical to normalizing the whole text at once with
+ * {@link Normalize#execute(int[])}. Since a chunk can only end at a safe
+ * boundary, the number of code points between two boundaries is limited to
+ * MAX_SEGMENT_LENGTH, which keeps the memory used bounded whatever the size
+ * of the text; longer runs are reported as an error.
+ * <p>
+ * Errors of the normalization are reported as an IOException whose cause is
+ * the XcodeException thrown by {@link Normalize}, when the chunk holding the
+ * code point in error is normalized; the chunks before it have already been
+ * returned by then.
+ */
+public class NormalizeReader extends Reader {
+
+	/**
+	 * The largest number of code points between two safe boundaries
+	 */
+	static public final int MAX_SEGMENT_LENGTH = 1024;
+
+	/**
+	 * The number of code points collected before a chunk is normalized
+	 */
+	static private final int CHUNK_LENGTH = 1024;
+
+	/**
+	 * The source of the text, if it is a Reader
+	 */
+	private Reader reader;
+
+	/**
+	 * The source of the text, if it is a CharSequence
+	 */
+	private CharSequence text;
+
+	/**
+	 * The characters read from the Reader and not yet decoded
+	 */
+	private final char[] input;
+
+	private int inputPosition;
+
+	private int inputLength;
+
+	/**
+	 * A code point decoded past the end of the current chunk, or -1
+	 */
+	private int next = -1;
+
+	/**
+	 * The code points of the current chunk
+	 */
+	private final int[] chunk = new int[CHUNK_LENGTH + MAX_SEGMENT_LENGTH];
+
+	/**
+	 * The normalized code points of the last chunk
+	 */
+	private int[] output = new int[CHUNK_LENGTH];
+
+	private int outputPosition;
+
+	private int outputLength;
+
+	/**
+	 * The low surrogate of a supplementary code point whose high surrogate was
+	 * returned, or 0
+	 */
+	private char lowSurrogate;
+
+	private boolean eof;
+
+	private final char[] surrogates = new char[2];
+
+
+	/**
+	 * @param aReader
+	 *        the text to normalize
+	 */
+	public NormalizeReader ( Reader aReader ) {
+		super( aReader );
+		this.reader = aReader;
+		this.input = new char[CHUNK_LENGTH];
+	}
+
+
+	/**
+	 * @param aText
+	 *        the text to normalize
+	 */
+	public NormalizeReader ( CharSequence aText ) {
+		this.text = aText;
+		this.input = null;
+	}
+
+
+	@Override
+	public int read ( char[] aBuffer, int aOffset, int aLength )
+			throws IOException {
+		synchronized ( this.lock ) {
+			ensureOpen();
+			if ( aLength == 0 ) {
+				return 0;
+			}
+			int count = 0;
+			while ( count < aLength ) {
+				if ( this.lowSurrogate != 0 ) {
+					aBuffer[ aOffset + count++ ] = this.lowSurrogate;
+					this.lowSurrogate = 0;
+					continue;
+				}
+				if ( this.outputPosition == this.outputLength && !fill() ) {
+					break;
+				}
+				final int codePoint = this.output[ this.outputPosition++ ];
+				if ( Character.isSupplementaryCodePoint( codePoint ) ) {
+					final char[] surrogates = this.surrogates;
+					Character.toChars( codePoint, surrogates, 0 );
+					aBuffer[ aOffset + count++ ] = surrogates[ 0 ];
+					this.lowSurrogate = surrogates[ 1 ];
+				}
+				else {
+					aBuffer[ aOffset + count++ ] = (char) codePoint;
+				}
+			}
+			return count == 0 ? -1 : count;
+		}
+	}
+
+
+	@Override
+	public boolean ready () throws IOException {
+		synchronized ( this.lock ) {
+			ensureOpen();
+			return this.lowSurrogate != 0 || this.outputPosition < this.outputLength;
+		}
+	}
+
+
+	@Override
+	public void close () throws IOException {
+		synchronized ( this.lock ) {
+			if ( this.reader != null ) {
+				this.reader.close();
+			}
+			this.reader = null;
+			this.text = null;
+		}
+	}
+
+
+	private void ensureOpen () throws IOException {
+		if ( this.reader == null && this.text == null ) {
+			throw new IOException( "Stream closed" );
+		}
+	}
+
+
+	/**
+	 * Collect the code points up to the first safe boundary following
+	 * CHUNK_LENGTH code points, or up to the end of the text, and normalize
+	 * them into the output.
+	 *
+	 * @return false at the end of the text
+	 */
+	private boolean fill () throws IOException {
+		int length = 0;
+		int boundary = 0;
+		if ( this.next >= 0 ) {
+			this.chunk[ length++ ] = this.next;
+			this.next = -1;
+		}
+		while ( !this.eof ) {
+			final int codePoint = decode();
+			if ( codePoint < 0 ) {
+				break;
+			}
+			if ( Normalize.isSafeBoundary( codePoint ) ) {
+				if ( length >= CHUNK_LENGTH ) {
+					this.next = codePoint;
+					break;
+				}
+				boundary = length;
+			}
+			else if ( length - boundary >= MAX_SEGMENT_LENGTH ) {
+				throw error( XcodeError.INVALID_ARGUMENT( "more than "
+						+ MAX_SEGMENT_LENGTH + " code points without a safe boundary" ) );
+			}
+			this.chunk[ length++ ] = codePoint;
+		}
+		if ( length == 0 ) {
+			return false;
+		}
+
+		final int needed = Normalize.getDecomposedLength( this.chunk, 0, length );
+		if ( needed > this.output.length ) {
+			this.output = new int[needed];
+		}
+		try {
+			this.outputLength =
+					Normalize.execute( this.chunk, 0, length, this.output, 0 );
+		}
+		catch ( final XcodeException x ) {
+			throw error( x );
+		}
+		this.outputPosition = 0;
+		return true;
+	}
+
+
+	/**
+	 * Read the next code point of the text. An unpaired surrogate is returned
+	 * as is.
+	 *
+	 * @return the code point, or -1 at the end of the text
+	 */
+	private int decode () throws IOException {
+		final int high = nextChar();
+		if ( high < 0 || !Character.isHighSurrogate( (char) high ) ) {
+			return high;
+		}
+		final int low = nextChar();
+		if ( low >= 0 && Character.isLowSurrogate( (char) low ) ) {
+			return Character.toCodePoint( (char) high, (char) low );
+		}
+		if ( low >= 0 ) {
+			unread();
+		}
+		return high;
+	}
+
+
+	/**
+	 * @return the next character of the text, or -1 at the end of the text
+	 */
+	private int nextChar () throws IOException {
+		if ( this.text != null ) {
+			if ( this.inputPosition < this.text.length() ) {
+				return this.text.charAt( this.inputPosition++ );
+			}
+			this.eof = true;
+			return -1;
+		}
+		if ( this.inputPosition == this.inputLength ) {
+			// keep the last character, which unread() may need
+			if ( this.inputLength > 0 ) {
+				this.input[ 0 ] = this.input[ this.inputLength - 1 ];
+				this.inputPosition = this.inputLength = 1;
+			}
+			final int read =
+					this.reader.read( this.input, this.inputLength, this.input.length
+							- this.inputLength );
+			if ( read < 0 ) {
+				this.eof = true;
+				return -1;
+			}
+			this.inputLength += read;
+		}
+		return this.input[ this.inputPosition++ ];
+	}
+
+
+	/**
+	 * Push back the last character returned by nextChar()
+	 */
+	private void unread () {
+		this.inputPosition--;
+	}
+
+
+	static private IOException error ( XcodeException aException ) {
+		final IOException x = new IOException( aException.getMessage() );
+		x.initCause( aException );
+		return x;
+	}
+
+}
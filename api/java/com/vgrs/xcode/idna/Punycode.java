@@ -4,10 +4,8 @@
 
 package com.vgrs.xcode.idna;
 
-import gnu.trove.list.TIntList;
-import gnu.trove.list.array.TIntArrayList;
-
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
 
 import com.vgrs.xcode.common.Utf16;
 import com.vgrs.xcode.util.XcodeError;
@@ -46,31 +44,52 @@ public final class Punycode extends Ace {
 	/*
 	 * Bootstring parameters for Punycode algorithm
 	 */
-	private static final int BASE = 36;
+	static final int BASE = 36;
 
-	private static final int T_MIN = 1;
+	static final int T_MIN = 1;
 
-	private static final int T_MAX = 26;
+	static final int T_MAX = 26;
 
 	private static final int SKEW = 38;
 
 	private static final int DAMP = 700;
 
-	private static final int INITIAL_BIAS = 72;
+	static final int INITIAL_BIAS = 72;
 
-	private static final int INITIAL_N = 0x80;
+	static final int INITIAL_N = 0x80;
 
 	private static final int DELIMITER = 0x2D;
 
-	private static final int MAX_INT = Integer.MAX_VALUE;
+	static final int MAX_INT = Integer.MAX_VALUE;
 
-	private static final int PUNYCODE_MAX_LENGTH = 256;
+	static final int PUNYCODE_MAX_LENGTH = 256;
 
 	private static final int LOBASE = BASE - T_MIN;
 
 	private static final int CUTOFF = LOBASE * T_MAX / 2;
 
-	private static final int MAX_UNICODE = 0x10FFFF;
+	static final int MAX_UNICODE = 0x10FFFF;
+
+	/**
+	 * The sort keys and the binary indexed tree of the encoder, kept for each
+	 * thread. A label longer than PUNYCODE_MAX_LENGTH cannot be encoded, so they
+	 * are large enough for any label which can.
+	 */
+	static private final ThreadLocal<Scratch> SCRATCH =
+			new ThreadLocal<Scratch>() {
+				@Override
+				protected Scratch initialValue () {
+					return new Scratch();
+				}
+			};
+
+
+	static private final class Scratch {
+
+		final long[] keys = new long[PUNYCODE_MAX_LENGTH];
+
+		final int[] tree = new int[PUNYCODE_MAX_LENGTH + 1];
+	}
 
 
 	/**
@@ -117,7 +136,23 @@ public final class Punycode extends Ace {
 	 */
 	@Override
 	protected char[] internalEncode ( int[] aInput ) throws XcodeException {
-		return encode( aInput, null );
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final char[] output =
+				new char[Math.max( aInput.length + 1, PUNYCODE_MAX_LENGTH )];
+		return Arrays.copyOf( output, encodeLabel( aInput, 0, aInput.length, null,
+				output, 0 ) );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int internalEncode ( int[] aInput, int aOffset, int aLength,
+			char[] aOutput, int aOutputOffset ) throws XcodeException {
+		return encodeLabel( aInput, aOffset, aLength, null, aOutput, aOutputOffset );
 	}
 
 
@@ -126,7 +161,206 @@ public final class Punycode extends Ace {
 	 */
 	@Override
 	protected int[] internalDecode ( char[] input ) throws XcodeException {
-		return decode( input, null );
+		if ( input == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return internalDecode( input, 0, input.length );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int[] internalDecode ( char[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		final int[] output = new int[Math.min( aLength, PUNYCODE_MAX_LENGTH )];
+		return Arrays.copyOf( output, decodeLabel( aInput, null, aOffset, aLength,
+				null, output, 0 ) );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int internalDecode ( char[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		return decodeLabel( aInput, null, aOffset, aLength, null, aOutput,
+				aOutputOffset );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int internalDecode ( byte[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return decodeLabel( null, aInput, aOffset, aLength, null, aOutput,
+				aOutputOffset );
+	}
+
+
+	/**
+	 * Encode a single domain label like {@link #encode(int[])}, with the mixed
+	 * case annotation of RFC 3492. A letter of the encoded label is uppercase if
+	 * the flag of its code point is set and lowercase otherwise: for a basic
+	 * code point the letter is the code point itself, and for a non-basic code
+	 * point the last character of its delta. This lets the case a name was
+	 * displayed with be restored by {@link #decode(char[], BitSet)} once the
+	 * name has been case folded.
+	 * 
+	 * @param aInput
+	 *        An int array representing a domain label
+	 * @param aCaseFlags
+	 *        the flags of the code points, set for uppercase
+	 * @return A char array with the Punycode encoded label
+	 * @throws XcodeException
+	 *         in the same cases as {@link #encode(int[])}
+	 */
+	public char[] encode ( int[] aInput, BitSet aCaseFlags )
+			throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final char[] output =
+				new char[getPrefix().length()
+						+ Math.max( aInput.length + 1, PUNYCODE_MAX_LENGTH )];
+		return Arrays.copyOf( output, encode( aInput, 0, aInput.length,
+				aCaseFlags, output, 0 ) );
+	}
+
+
+	/**
+	 * Encode a single domain label with the mixed case annotation into a
+	 * caller-supplied array, like {@link #encode(int[], BitSet)}.
+	 * 
+	 * @param aInput
+	 *        An int array holding the domain label
+	 * @param aOffset
+	 *        the index of the first code point of the label
+	 * @param aLength
+	 *        the number of code points of the label
+	 * @param aCaseFlags
+	 *        the flags of the code points of the label, set for uppercase, the
+	 *        first at index 0
+	 * @param aOutput
+	 *        the array receiving the Punycode encoded label
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first character to write
+	 * @return the number of characters written
+	 * @throws XcodeException
+	 *         in the same cases as {@link #encode(int[])}, or when aOutput is
+	 *         too small
+	 */
+	public int encode ( int[] aInput, int aOffset, int aLength,
+			BitSet aCaseFlags, char[] aOutput, int aOutputOffset )
+			throws XcodeException {
+		if ( aCaseFlags == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+
+		if ( !checkEncode( aInput, aOffset, aLength ) ) {
+			if ( aOutputOffset + aLength > aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			for ( int i = 0; i < aLength; i++ ) {
+				aOutput[ aOutputOffset + i ] =
+						(char) encodeBasic( aInput[ aOffset + i ], aCaseFlags.get( i ) );
+			}
+			return aLength;
+		}
+
+		final int length = putPrefix( aOutput, aOutputOffset );
+		return length
+				+ encodeLabel( aInput, aOffset, aLength, aCaseFlags, aOutput,
+						aOutputOffset + length );
+	}
+
+
+	/**
+	 * Decode a single domain label like {@link #decode(char[])}, with the mixed
+	 * case annotation of RFC 3492: the flag of each decoded code point is set
+	 * if the letter giving its case, as described in
+	 * {@link #encode(int[], BitSet)}, is uppercase.
+	 * 
+	 * @param aInput
+	 *        A char array representing an encoded domain label
+	 * @param aCaseFlags
+	 *        the set receiving the flags of the code points, which is cleared
+	 *        first
+	 * @return An int array with unicode codepoints
+	 * @throws XcodeException
+	 *         in the same cases as {@link #decode(char[])}
+	 */
+	public int[] decode ( char[] aInput, BitSet aCaseFlags )
+			throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final int[] output = new int[aInput.length];
+		return Arrays.copyOf( output, decode( aInput, 0, aInput.length,
+				aCaseFlags, output, 0 ) );
+	}
+
+
+	/**
+	 * Decode a single domain label with the mixed case annotation into a
+	 * caller-supplied array, like {@link #decode(char[], BitSet)}.
+	 * 
+	 * @param aInput
+	 *        A char array holding the encoded domain label
+	 * @param aOffset
+	 *        the index of the first character of the label
+	 * @param aLength
+	 *        the number of characters of the label
+	 * @param aCaseFlags
+	 *        the set receiving the flags of the code points, which is cleared
+	 *        first
+	 * @param aOutput
+	 *        the array receiving the Unicode code points
+	 * @param aOutputOffset
+	 *        the index in aOutput of the first code point to write
+	 * @return the number of code points written
+	 * @throws XcodeException
+	 *         in the same cases as {@link #decode(char[])}, or when aOutput is
+	 *         too small
+	 */
+	public int decode ( char[] aInput, int aOffset, int aLength,
+			BitSet aCaseFlags, int[] aOutput, int aOutputOffset )
+			throws XcodeException {
+		if ( aInput == null || aCaseFlags == null || aOutput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		if ( aLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+
+		aCaseFlags.clear();
+		final int length;
+		if ( hasPrefix( aInput, aOffset, aLength ) ) {
+			final int prefixLength = getPrefix().length();
+			length =
+					decodeLabel( aInput, null, aOffset + prefixLength, aLength
+							- prefixLength, aCaseFlags, aOutput, aOutputOffset );
+		}
+		else {
+			if ( aOutputOffset + aLength > aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			for ( int i = 0; i < aLength; i++ ) {
+				aOutput[ aOutputOffset + i ] = aInput[ aOffset + i ];
+				aCaseFlags.set( i, isFlagged( aInput[ aOffset + i ] ) );
+			}
+			length = aLength;
+		}
+		checkDecoded( aOutput, aOutputOffset, length );
+
+		return length;
 	}
 
 
@@ -137,17 +371,21 @@ public final class Punycode extends Ace {
 	 *        the code point to check
 	 * @return boolean indicating if the given code point is a DELIMITER
 	 */
-	private static boolean isDelimiter ( int aCodePoint ) {
+	static boolean isDelimiter ( int aCodePoint ) {
 		return aCodePoint == DELIMITER;
 	}
 
 
+	/**
+	 * Checks if a basic code point is flagged as uppercase, that is if it is an
+	 * uppercase letter
+	 */
 	private static boolean isFlagged ( int aCodePoint ) {
-		return aCodePoint - 65 < 26;
+		return aCodePoint >= 0x41 && aCodePoint <= 0x5A;
 	}
 
 
-	private static int decodeDigit ( char aDigit ) throws XcodeException {
+	static int decodeDigit ( char aDigit ) throws XcodeException {
 		if ( aDigit >= 0x30 && aDigit <= 0x39 ) {
 			return aDigit - 0x16;
 		}
@@ -182,10 +420,10 @@ public final class Punycode extends Ace {
 
 		int outBcp = bcp;
 
-		if ( outBcp - 97 < 26 ) {
+		if ( outBcp >= 0x61 && outBcp <= 0x7A ) {
 			outBcp -= 32;
 		}
-		if ( !ucFlag && outBcp - 65 < 26 ) {
+		if ( !ucFlag && outBcp >= 0x41 && outBcp <= 0x5A ) {
 			outBcp += 32;
 		}
 
@@ -193,7 +431,7 @@ public final class Punycode extends Ace {
 	}
 
 
-	private static int adapt ( final int aDelta, final int aCodePointCount,
+	static int adapt ( final int aDelta, final int aCodePointCount,
 			boolean aFirstTime ) {
 		int outDelta = aDelta;
 
@@ -209,24 +447,32 @@ public final class Punycode extends Ace {
 	}
 
 
-	private static char[] encode ( int[] aInput, List<Boolean> aUcFlags )
+	/**
+	 * Encode a label into a caller-supplied array. The non-basic code points are
+	 * sorted once, with their positions, and handled in ascending order, as RFC
+	 * 3492 requires. The number of code points already handled before each
+	 * position, which the deltas are made of, is kept in a binary indexed tree
+	 * over the positions, so that a label of n code points is encoded in O(n log
+	 * n) time instead of scanning the whole label once per distinct code point.
+	 * The sort keys and the tree are kept from one call to the next in the
+	 * SCRATCH of the calling thread.
+	 *
+	 * @return the number of characters written
+	 */
+	private static int encodeLabel ( int[] aInput, int aOffset, int aLength,
+			BitSet aUcFlags, char[] aOutput, int aOutputOffset )
 			throws XcodeException {
 		int currentLargestCP = 0;
 		int delta = 0;
 		int cpsHandled = 0;
 		int bias = 0;
-		int nextLargerCP = 0;
-		int currentDelta = 0;
-		int currentBase = 0;
-		int threshold = 0;
 		int basicCPsCount = 0;
+		int length = 0;
 
-		final StringBuffer encodedString = new StringBuffer();
-
-		if ( aInput == null ) {
+		if ( aInput == null || aOutput == null ) {
 			throw XcodeError.NULL_ARGUMENT();
 		}
-		if ( aInput.length == 0 ) {
+		if ( aLength == 0 ) {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
@@ -239,40 +485,87 @@ public final class Punycode extends Ace {
 		//
 		// add all the basic code points to the output string
 		//
-		for ( int i = 0; i < aInput.length; i++ ) {
-			int inputChar = aInput[ i ];
+		for ( int i = 0; i < aLength; i++ ) {
+			int inputChar = aInput[ aOffset + i ];
 			if ( Utf16.isAscii( inputChar ) ) {
 				if ( aUcFlags != null ) {
-					final boolean ucFlag = aUcFlags.get( i ).booleanValue();
-					inputChar = encodeBasic( inputChar, ucFlag );
+					inputChar = encodeBasic( inputChar, aUcFlags.get( i ) );
 				}
-				encodedString.append( (char) inputChar );
+				put( aOutput, aOutputOffset + length++, inputChar );
 			}
 		}
 
-		basicCPsCount = encodedString.length();
+		basicCPsCount = length;
 		cpsHandled = basicCPsCount;
 
 		if ( basicCPsCount > 0 ) {
-			encodedString.append( (char) DELIMITER );
+			put( aOutput, aOutputOffset + length++, DELIMITER );
 		}
 
 		//
-		// Main encoding loop
+		// Sort the non-basic code points, keyed by code point and then position,
+		// and count the code points smaller than the first of them at each
+		// position
 		//
-		while ( cpsHandled < aInput.length ) {
+		final long[] nonBasicCPs;
+		final int[] handled;
+		if ( aLength <= PUNYCODE_MAX_LENGTH ) {
+			final Scratch scratch = SCRATCH.get();
+			nonBasicCPs = scratch.keys;
+			handled = scratch.tree;
+		}
+		else {
+			nonBasicCPs = new long[aLength];
+			handled = new int[aLength + 1];
+		}
+		Arrays.fill( handled, 0, aLength + 1, 0 );
+		int nonBasicCPsCount = 0;
+		for ( int i = 0; i < aLength; i++ ) {
+			final int inputChar = aInput[ aOffset + i ];
+			if ( Utf16.isAscii( inputChar ) ) {
+				count( handled, aLength, i );
+			}
+			else {
+				nonBasicCPs[ nonBasicCPsCount++ ] = (long) inputChar << 32 | i;
+			}
+		}
+		Arrays.sort( nonBasicCPs, 0, nonBasicCPsCount );
 
-			//
-			// All non-basic code points < n have been
-			// handled already. Find the next larger one:
-			//
-			nextLargerCP = MAX_INT;
-			for ( int j = 0; j < aInput.length; ++j ) {
-				final int inputChar = aInput[ j ];
-				if ( inputChar >= currentLargestCP && inputChar < nextLargerCP ) {
-					nextLargerCP = inputChar;
+		//
+		// Values below zero are smaller than every code point
+		//
+		int next = 0;
+		for ( ; next < nonBasicCPsCount && nonBasicCPs[ next ] < 0; next++ ) {
+			count( handled, aLength, (int) nonBasicCPs[ next ] );
+		}
+		final int negativeCPsCount = next;
+		int end = nonBasicCPsCount;
+
+		//
+		// Main encoding loop, once per distinct non-basic code point
+		//
+		while ( cpsHandled < aLength ) {
+			if ( next == end ) {
+				//
+				// Only values below zero are left. They are handled once
+				// currentLargestCP has wrapped around past MAX_INT, and then only
+				// the values below each of them count as smaller.
+				//
+				if ( currentLargestCP != Integer.MIN_VALUE ) {
+					if ( MAX_INT - currentLargestCP > (MAX_INT - delta)
+							/ (cpsHandled + 1) ) {
+						throw XcodeError.PUNYCODE_OVERFLOW();
+					}
+					delta += (MAX_INT - currentLargestCP) * (cpsHandled + 1);
+					delta = addDelta( delta, aLength );
+					++delta;
+					currentLargestCP = Integer.MIN_VALUE;
 				}
+				Arrays.fill( handled, 0, aLength + 1, 0 );
+				next = 0;
+				end = negativeCPsCount;
 			}
+			final int nextLargerCP = (int) (nonBasicCPs[ next ] >> 32);
 
 			//
 			// Increase delta enough to advance the decoder's
@@ -286,120 +579,169 @@ public final class Punycode extends Ace {
 			delta += (nextLargerCP - currentLargestCP) * (cpsHandled + 1);
 			currentLargestCP = nextLargerCP;
 
-			for ( int j = 0; j < aInput.length; ++j ) {
-				final int inputChar = aInput[ j ];
+			final int first = next;
+			int position = 0;
+			for ( ; next < end
+					&& (int) (nonBasicCPs[ next ] >> 32) == currentLargestCP; next++ ) {
+				final int j = (int) nonBasicCPs[ next ];
 
-				if ( inputChar < currentLargestCP && ++delta == 0 ) {
-					throw XcodeError.PUNYCODE_BIG_OUTPUT();
-				}
+				//
+				// count the smaller code points since the last one handled
+				//
+				delta = addDelta( delta, countBefore( handled, j ) - position );
+				position = countBefore( handled, j );
 
-				if ( inputChar == currentLargestCP ) {
+				for ( int currentDelta = delta, currentBase = BASE;; currentBase += BASE ) {
+					if ( length >= PUNYCODE_MAX_LENGTH ) {
+						throw XcodeError.PUNYCODE_BIG_OUTPUT();
+					}
 
-					for ( currentDelta = delta, currentBase = BASE;; currentBase += BASE ) {
-						if ( encodedString.length() >= PUNYCODE_MAX_LENGTH ) {
-							throw XcodeError.PUNYCODE_BIG_OUTPUT();
-						}
+					//
+					// calculate the threshold
+					//
+					final int threshold;
+					if ( currentBase <= bias ) {
+						threshold = T_MIN;
+					}
+					else if ( currentBase >= bias + T_MAX ) {
+						threshold = T_MAX;
+					}
+					else {
+						threshold = currentBase - bias;
+					}
 
+					if ( currentDelta < threshold ) {
 						//
-						// calculate the threshold
+						// determine the current uppercase flag
 						//
-						if ( currentBase <= bias ) {
-							threshold = T_MIN;
-						}
-						else {
-							if ( currentBase >= bias + T_MAX ) {
-								threshold = T_MAX;
-							}
-							else {
-								threshold = currentBase - bias;
-							}
-						}
-
-						if ( currentDelta < threshold ) {
-							final int outputDelta = currentDelta;
-
-							//
-							// determine the current uppercase flag
-							//
-							boolean ucFlag = false;
-							if ( aUcFlags != null ) {
-								ucFlag = aUcFlags.get( j ).booleanValue();
-							}
-
-							//
-							// encode the delta
-							//
-							final char encodedDelta =
-									(char) encodeDigit( outputDelta, ucFlag );
-
-							//
-							// append the encoded delta to output
-							//
-							encodedString.append( encodedDelta );
-
-							break;
-						}
-						else {
-							final int outputDelta =
-									threshold + (currentDelta - threshold) % (BASE - threshold);
-							final boolean ucFlag = false;
-
-							//
-							// encode the delta
-							//
-							final char encodedDelta =
-									(char) encodeDigit( outputDelta, ucFlag );
-
-							//
-							// append the encoded delta to output
-							//
-							encodedString.append( encodedDelta );
-
-							//
-							// adjust the delta value for next iteration
-							//
-							currentDelta = (currentDelta - threshold) / (BASE - threshold);
+						boolean ucFlag = false;
+						if ( aUcFlags != null ) {
+							ucFlag = aUcFlags.get( j );
 						}
+						put( aOutput, aOutputOffset + length++, encodeDigit(
+								currentDelta, ucFlag ) );
+						break;
 					}
+					put( aOutput, aOutputOffset + length++, encodeDigit( threshold
+							+ (currentDelta - threshold) % (BASE - threshold), false ) );
+					currentDelta = (currentDelta - threshold) / (BASE - threshold);
+				}
 
-					//
-					// Adapt the bias:
-					//
-					bias = adapt( delta, cpsHandled + 1, cpsHandled == basicCPsCount );
+				//
+				// Adapt the bias:
+				//
+				bias = adapt( delta, cpsHandled + 1, cpsHandled == basicCPsCount );
 
-					delta = 0;
-					++cpsHandled;
-				}
+				delta = 0;
+				++cpsHandled;
+			}
+
+			//
+			// count the smaller code points after the last one handled, then
+			// count the code points just handled as smaller for the next round
+			//
+			delta = addDelta( delta, countBefore( handled, aLength ) - position );
+			for ( int k = first; k < next; k++ ) {
+				count( handled, aLength, (int) nonBasicCPs[ k ] );
 			}
 
 			++delta;
 			++currentLargestCP;
 		}
 
-		if ( encodedString.length() > PUNYCODE_MAX_LENGTH ) {
+		if ( length > PUNYCODE_MAX_LENGTH ) {
 			throw XcodeError.PUNYCODE_BIG_OUTPUT();
 		}
 
-		return encodedString.toString().toCharArray();
+		return length;
 
 	} // encode()
 
 
-	private static int[] decode ( char[] aInput, List<Boolean> aUcFlags )
+	/**
+	 * Write a character to a caller-supplied array.
+	 */
+	private static void put ( char[] aOutput, int aPosition, int aChar )
 			throws XcodeException {
+		if ( aPosition >= aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
+		aOutput[ aPosition ] = (char) aChar;
+	}
 
-		if ( aInput == null ) {
+
+	/**
+	 * Add to delta the number of smaller code points skipped, one at a time, as
+	 * RFC 3492 does, which fails if delta wraps around to 0.
+	 */
+	private static int addDelta ( int aDelta, int aCount ) throws XcodeException {
+		if ( aDelta < 0 && (long) aDelta + aCount >= 0 ) {
+			throw XcodeError.PUNYCODE_BIG_OUTPUT();
+		}
+		return aDelta + aCount;
+	}
+
+
+	/**
+	 * Insert a flag at a position of the first aSize flags of a set, moving the
+	 * flags after it one position up.
+	 */
+	private static void insert ( BitSet aFlags, int aSize, int aPosition,
+			boolean aFlag ) {
+		for ( int i = aSize; i > aPosition; i-- ) {
+			aFlags.set( i, aFlags.get( i - 1 ) );
+		}
+		aFlags.set( aPosition, aFlag );
+	}
+
+
+	/**
+	 * Record a position in a binary indexed tree of counts over aSize
+	 * positions.
+	 */
+	private static void count ( int[] aTree, int aSize, int aPosition ) {
+		for ( int i = aPosition + 1; i <= aSize; i += i & -i ) {
+			aTree[ i ]++;
+		}
+	}
+
+
+	/**
+	 * @return the number of positions recorded in a binary indexed tree of
+	 *         counts before a position
+	 */
+	private static int countBefore ( int[] aTree, int aPosition ) {
+		int count = 0;
+		for ( int i = aPosition; i > 0; i -= i & -i ) {
+			count += aTree[ i ];
+		}
+		return count;
+	}
+
+
+	/**
+	 * Decode a label into a caller-supplied array. Each code point is inserted
+	 * at its position in the array, after the ones decoded before it. The label
+	 * is read from aChars, or from the ASCII bytes of aBytes if aChars is null.
+	 *
+	 * @return the number of code points written
+	 */
+	private static int decodeLabel ( char[] aChars, byte[] aBytes, int aOffset,
+			int aLength, BitSet aUcFlags, int[] aOutput, int aOutputOffset )
+			throws XcodeException {
+
+		if ( aChars == null && aBytes == null || aOutput == null ) {
 			throw XcodeError.NULL_ARGUMENT();
 		}
-		if ( aInput.length == 0 ) {
+		if ( aLength == 0 ) {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
-		if ( isDelimiter( aInput[ aInput.length - 1 ] ) ) {
+		if ( isDelimiter( charAt( aChars, aBytes, aOffset + aLength - 1 ) ) ) {
 			throw XcodeError.PUNYCODE_DECODE_DNS_COMPATIBLE();
 		}
 
-		final TIntList decoded = new TIntArrayList();
+		int decoded = 0;
 
 		int decodedVal = 0;
 		// int out = 0;
@@ -429,8 +771,8 @@ public final class Punycode extends Ace {
 		// copy the first b code points to the output.
 		//
 
-		for ( basicCPsCount = 0, j = 0; j < aInput.length; j++ ) {
-			final char inputChar = aInput[ j ];
+		for ( basicCPsCount = 0, j = 0; j < aLength; j++ ) {
+			final char inputChar = charAt( aChars, aBytes, aOffset + j );
 			if ( isDelimiter( inputChar ) ) {
 				basicCPsCount = j;
 			}
@@ -441,14 +783,17 @@ public final class Punycode extends Ace {
 		}
 
 		for ( j = 0; j < basicCPsCount; ++j ) {
-			final char inputChar = aInput[ j ];
+			final char inputChar = charAt( aChars, aBytes, aOffset + j );
 			if ( aUcFlags != null ) {
-				aUcFlags.add( new Boolean( isFlagged( inputChar ) ) );
+				aUcFlags.set( j, isFlagged( inputChar ) );
 			}
 			if ( !Utf16.isAscii( inputChar ) ) {
 				throw XcodeError.PUNYCODE_BAD_OUTPUT();
 			}
-			decoded.add( inputChar );
+			if ( aOutputOffset + decoded >= aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			aOutput[ aOutputOffset + decoded++ ] = inputChar;
 		}
 
 		//
@@ -462,7 +807,7 @@ public final class Punycode extends Ace {
 		else {
 			indx = 0;
 		}
-		while ( indx < aInput.length ) {
+		while ( indx < aLength ) {
 
 			//
 			// indx is the index of the next character to be consumed, and
@@ -481,11 +826,11 @@ public final class Punycode extends Ace {
 			currentBase = BASE;
 			for ( ;; currentBase += BASE ) {
 
-				if ( indx >= aInput.length ) {
+				if ( indx >= aLength ) {
 					throw XcodeError.PUNYCODE_BAD_OUTPUT();
 				}
 
-				digit = decodeDigit( aInput[ indx++ ] );
+				digit = decodeDigit( charAt( aChars, aBytes, aOffset + indx++ ) );
 				if ( digit >= BASE ) {
 					throw XcodeError.PUNYCODE_BAD_OUTPUT();
 				}
@@ -523,7 +868,7 @@ public final class Punycode extends Ace {
 			// Adapt the bias:
 			//
 			delta = oldIndx == 0 ? opIndx / DAMP : opIndx - oldIndx >>> 1;
-			delta += delta / (decoded.size() + 1);
+			delta += delta / (decoded + 1);
 			for ( bias = 0; delta > CUTOFF; bias += BASE ) {
 				delta /= LOBASE;
 			}
@@ -534,13 +879,13 @@ public final class Punycode extends Ace {
 			// incrementing n each time, so we'll fix that now:
 			//
 
-			if ( opIndx / (decoded.size() + 1) > MAX_INT - decodedVal ) {
+			if ( opIndx / (decoded + 1) > MAX_INT - decodedVal ) {
 				throw XcodeError.PUNYCODE_OVERFLOW();
 			}
-			decodedVal += opIndx / (decoded.size() + 1);
-			opIndx %= decoded.size() + 1;
+			decodedVal += opIndx / (decoded + 1);
+			opIndx %= decoded + 1;
 
-			if ( decoded.size() >= PUNYCODE_MAX_LENGTH ) {
+			if ( decoded >= PUNYCODE_MAX_LENGTH ) {
 				throw XcodeError.PUNYCODE_BIG_OUTPUT();
 			}
 
@@ -548,7 +893,8 @@ public final class Punycode extends Ace {
 				//
 				// Case of last character determines uppercase flag:
 				//
-				aUcFlags.add( opIndx, new Boolean( isFlagged( aInput[ indx - 1 ] ) ) );
+				insert( aUcFlags, decoded, opIndx, isFlagged( charAt( aChars, aBytes,
+						aOffset + indx - 1 ) ) );
 			}
 
 			//
@@ -565,10 +911,25 @@ public final class Punycode extends Ace {
 				throw XcodeError.PUNYCODE_DECODE_INTERNAL_DELIMITER_FOUND( " "
 						+ Integer.toString( decodedVal, 16 ) );
 			}
-			decoded.insert( opIndx++, decodedVal );
+			if ( aOutputOffset + decoded >= aOutput.length ) {
+				throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+			}
+			System.arraycopy( aOutput, aOutputOffset + opIndx, aOutput,
+					aOutputOffset + opIndx + 1, decoded - opIndx );
+			aOutput[ aOutputOffset + opIndx++ ] = decodedVal;
+			decoded++;
 		}
 
-		return decoded.toArray();
+		return decoded;
 
 	} // decode()
+
+
+	/**
+	 * @return the character at an index of aChars, or the byte at that index of
+	 *         aBytes if aChars is null
+	 */
+	private static char charAt ( char[] aChars, byte[] aBytes, int aIndex ) {
+		return aChars != null ? aChars[ aIndex ] : (char) (aBytes[ aIndex ] & 0xff);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,464 @@
+/*
+ * (c) VeriSign Inc., 2005, All rights reserved
+ */
+
+package com.vgrs.xcode.idna;
+
+import java.util.Arrays;
+
+import com.vgrs.xcode.common.Utf16;
+import com.vgrs.xcode.util.XcodeError;
+import com.vgrs.xcode.util.XcodeException;
+
+/**
+ * A decoder of a single domain label which is fed the characters of the label
+ * as they are received, such as one network chunk at a time, instead of the
+ * whole label at once. The Punycode state, that is the code point n, the
+ * insertion index i, the bias and the variable-length integer being read, is
+ * kept from one call to the next, so that the characters already fed are not
+ * decoded again. The code points returned are the same, and the errors thrown
+ * the same, as those of {@link Punycode#decode(char[])} for the whole label,
+ * unless the label is too long, as explained below.
+ * <p>
+ * The code points of a label without the prefix are final as soon as their
+ * characters are fed, and can be read right away. Those of an encoded label
+ * are only final when the label is finished, since any delta may insert a
+ * code point before all those already decoded. The characters before the last
+ * delimiter of an encoded label are its basic code points, so a delimiter
+ * found after some deltas turns the characters read as deltas into basic code
+ * points, and the decoding starts anew after it.
+ * <p>
+ * Errors in an encoded label are reported by {@link #finish()}, when the label
+ * is known to be complete; until then, a later delimiter may still make the
+ * label valid. The code points of a label without the prefix may have been
+ * read when {@link #finish()} reports that they do not follow the STD 3 ASCII
+ * rules.
+ * <p>
+ * The decoder still holds the whole label, because Punycode takes the
+ * characters before the last delimiter as basic code points: a delimiter fed
+ * late turns every character fed before it into a basic code point, and the
+ * characters after it are decoded again. To bound the memory and the time
+ * this takes, a label longer than the prefix plus PUNYCODE_MAX_LENGTH + 1
+ * characters, which the encoder never produces, is not buffered past that
+ * length, and {@link #finish()} rejects it with PUNYCODE_BIG_OUTPUT.
+ */
+public class PunycodeDecoder {
+
+	/**
+	 * The state before the prefix has been recognized
+	 */
+	static private final int UNDECIDED = 0;
+
+	/**
+	 * The state of a label without the prefix
+	 */
+	static private final int PLAIN = 1;
+
+	/**
+	 * The state of a label with the prefix
+	 */
+	static private final int ENCODED = 2;
+
+	static private final int INITIAL_CAPACITY = 64;
+
+	private final Punycode punycode;
+
+	private final int prefixLength;
+
+	/**
+	 * The largest number of characters of a label which is buffered
+	 */
+	private final int maxLength;
+
+	/**
+	 * The characters fed since the start of the label
+	 */
+	private char[] input = new char[INITIAL_CAPACITY];
+
+	private int inputLength;
+
+	/**
+	 * The code points decoded so far
+	 */
+	private int[] output = new int[INITIAL_CAPACITY];
+
+	private int outputLength;
+
+	/**
+	 * The number of code points already read
+	 */
+	private int outputPosition;
+
+	/**
+	 * The number of code points which are final
+	 */
+	private int outputFinal;
+
+	private int state;
+
+	private boolean finished;
+
+	/**
+	 * Whether more than maxLength characters have been fed
+	 */
+	private boolean tooLong;
+
+	/**
+	 * The first error found in the deltas following the last delimiter, which
+	 * stops the decoding until another delimiter is found
+	 */
+	private XcodeException error;
+
+	/*
+	 * The Punycode state of an encoded label
+	 */
+	private int decodedVal;
+
+	private int opIndx;
+
+	private int bias;
+
+	/*
+	 * The state of the variable-length integer being read, if readingDelta
+	 */
+	private boolean readingDelta;
+
+	private int oldIndx;
+
+	private int weight;
+
+	private int currentBase;
+
+
+	/**
+	 * Construct a decoder for the default Punycode.
+	 */
+	public PunycodeDecoder () {
+		this( new Punycode() );
+	}
+
+
+	/**
+	 * @param aPunycode
+	 *        the Punycode giving the prefix and whether the STD 3 ASCII rules
+	 *        are checked
+	 */
+	public PunycodeDecoder ( Punycode aPunycode ) {
+		this.punycode = aPunycode;
+		this.prefixLength = aPunycode.getPrefix().length();
+		this.maxLength = this.prefixLength + Punycode.PUNYCODE_MAX_LENGTH + 1;
+	}
+
+
+	/**
+	 * Feed the next character of the label.
+	 *
+	 * @param aChar
+	 *        the character
+	 * @throws XcodeException
+	 *         if the label is finished
+	 */
+	public void feed ( char aChar ) throws XcodeException {
+		if ( this.finished ) {
+			throw XcodeError.INVALID_ARGUMENT( "the label is finished" );
+		}
+		if ( this.tooLong ) {
+			return;
+		}
+		if ( this.inputLength == this.maxLength ) {
+			this.tooLong = true;
+			return;
+		}
+
+		if ( this.inputLength == this.input.length ) {
+			this.input = Arrays.copyOf( this.input, this.inputLength * 2 );
+		}
+		final int index = this.inputLength++;
+		this.input[ index ] = aChar;
+
+		if ( this.state == UNDECIDED ) {
+			if ( this.inputLength < this.prefixLength ) {
+				return;
+			}
+			if ( !this.punycode.startsWithPrefix( this.input, 0,
+					this.prefixLength ) ) {
+				this.state = PLAIN;
+				for ( int i = 0; i < this.inputLength; i++ ) {
+					append( this.input[ i ] );
+				}
+				this.outputFinal = this.outputLength;
+				return;
+			}
+			if ( this.inputLength == this.prefixLength ) {
+				return;
+			}
+			this.state = ENCODED;
+			restart( 0 );
+			return;
+		}
+
+		if ( this.state == PLAIN ) {
+			append( aChar );
+			this.outputFinal = this.outputLength;
+		}
+		else if ( Punycode.isDelimiter( aChar ) ) {
+			restart( index - this.prefixLength );
+		}
+		else if ( this.error == null ) {
+			try {
+				decode( aChar );
+			}
+			catch ( final XcodeException x ) {
+				this.error = x;
+			}
+		}
+	}
+
+
+	/**
+	 * Feed the next characters of the label.
+	 *
+	 * @param aInput
+	 *        an array holding the characters
+	 * @param aOffset
+	 *        the index of the first character
+	 * @param aLength
+	 *        the number of characters
+	 * @throws XcodeException
+	 *         if the input is null or the label is finished
+	 */
+	public void feed ( char[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		for ( int i = 0; i < aLength; i++ ) {
+			feed( aInput[ aOffset + i ] );
+		}
+	}
+
+
+	/**
+	 * Finish the label, after its last character has been fed. All its code
+	 * points are final when this method returns.
+	 *
+	 * @return the number of code points of the label
+	 * @throws XcodeException
+	 *         in the same cases as {@link Punycode#decode(char[])} for the
+	 *         whole label, or if the label is too long or already finished
+	 */
+	public int finish () throws XcodeException {
+		if ( this.finished ) {
+			throw XcodeError.INVALID_ARGUMENT( "the label is finished" );
+		}
+		this.finished = true;
+
+		if ( this.inputLength == 0 ) {
+			throw XcodeError.EMPTY_ARGUMENT();
+		}
+		if ( this.tooLong ) {
+			throw XcodeError.PUNYCODE_BIG_OUTPUT();
+		}
+		if ( this.state == UNDECIDED ) {
+			this.state = PLAIN;
+			for ( int i = 0; i < this.inputLength; i++ ) {
+				append( this.input[ i ] );
+			}
+		}
+		else if ( this.state == ENCODED ) {
+			if ( Punycode.isDelimiter( this.input[ this.inputLength - 1 ] ) ) {
+				throw XcodeError.PUNYCODE_DECODE_DNS_COMPATIBLE();
+			}
+			if ( this.error != null ) {
+				throw this.error;
+			}
+			if ( this.readingDelta ) {
+				throw XcodeError.PUNYCODE_BAD_OUTPUT();
+			}
+		}
+
+		this.punycode.checkDecoded( this.output, 0, this.outputLength );
+		this.outputFinal = this.outputLength;
+		return this.outputLength;
+	}
+
+
+	/**
+	 * @return the number of final code points which have not been read yet
+	 */
+	public int available () {
+		return this.outputFinal - this.outputPosition;
+	}
+
+
+	/**
+	 * Read the final code points which have not been read yet.
+	 *
+	 * @param aOutput
+	 *        the array receiving the code points
+	 * @param aOffset
+	 *        the index in aOutput of the first code point to write
+	 * @param aLength
+	 *        the largest number of code points to read
+	 * @return the number of code points read, 0 if none is available
+	 */
+	public int read ( int[] aOutput, int aOffset, int aLength ) {
+		final int length = Math.min( aLength, available() );
+		System.arraycopy( this.output, this.outputPosition, aOutput, aOffset,
+				length );
+		this.outputPosition += length;
+		return length;
+	}
+
+
+	/**
+	 * Forget the current label, so that the decoder can be fed a new one. The
+	 * arrays of the decoder are kept for the new label.
+	 */
+	public void reset () {
+		this.inputLength = 0;
+		this.outputLength = 0;
+		this.outputPosition = 0;
+		this.outputFinal = 0;
+		this.state = UNDECIDED;
+		this.finished = false;
+		this.tooLong = false;
+		this.error = null;
+		this.readingDelta = false;
+	}
+
+
+	/**
+	 * Start decoding an encoded label anew, after a delimiter at aDelimiter,
+	 * or from the start if aDelimiter is 0, like decoding the whole label
+	 * starts after its last delimiter. The characters before the delimiter are
+	 * copied as basic code points, then the characters following it which have
+	 * already been fed are decoded.
+	 *
+	 * @param aDelimiter
+	 *        the index of the delimiter, the first character after the prefix
+	 *        being 0
+	 */
+	private void restart ( int aDelimiter ) {
+		this.outputLength = 0;
+		this.error = null;
+		this.readingDelta = false;
+		this.decodedVal = Punycode.INITIAL_N;
+		this.opIndx = 0;
+		this.bias = Punycode.INITIAL_BIAS;
+
+		try {
+			if ( aDelimiter > Punycode.PUNYCODE_MAX_LENGTH ) {
+				throw XcodeError.PUNYCODE_BIG_OUTPUT();
+			}
+			final int start = this.prefixLength;
+			for ( int j = 0; j < aDelimiter; j++ ) {
+				final char inputChar = this.input[ start + j ];
+				if ( !Utf16.isAscii( inputChar ) ) {
+					throw XcodeError.PUNYCODE_BAD_OUTPUT();
+				}
+				append( inputChar );
+			}
+			final int first = aDelimiter > 0 ? start + aDelimiter + 1 : start;
+			for ( int j = first; j < this.inputLength; j++ ) {
+				decode( this.input[ j ] );
+			}
+		}
+		catch ( final XcodeException x ) {
+			this.error = x;
+		}
+	}
+
+
+	/**
+	 * Decode the next character of a generalized variable-length integer, and
+	 * insert the code point it ends with, like {@link Punycode#decode(char[])}.
+	 */
+	private void decode ( char aChar ) throws XcodeException {
+		if ( !this.readingDelta ) {
+			this.readingDelta = true;
+			this.oldIndx = this.opIndx;
+			this.weight = 1;
+			this.currentBase = Punycode.BASE;
+		}
+
+		final int digit = Punycode.decodeDigit( aChar );
+		if ( digit >= Punycode.BASE ) {
+			throw XcodeError.PUNYCODE_BAD_OUTPUT();
+		}
+		if ( digit > (Punycode.MAX_INT - this.opIndx) / this.weight ) {
+			throw XcodeError.PUNYCODE_OVERFLOW();
+		}
+		this.opIndx += digit * this.weight;
+
+		//
+		// calculate the threshold
+		//
+		final int threshold;
+		if ( this.currentBase <= this.bias ) {
+			threshold = Punycode.T_MIN;
+		}
+		else if ( this.currentBase - this.bias >= Punycode.T_MAX ) {
+			threshold = Punycode.T_MAX;
+		}
+		else {
+			threshold = this.currentBase - this.bias;
+		}
+
+		if ( digit >= threshold ) {
+			if ( this.weight > Punycode.MAX_INT / (Punycode.BASE - threshold) ) {
+				throw XcodeError.PUNYCODE_OVERFLOW();
+			}
+			this.weight *= Punycode.BASE - threshold;
+			this.currentBase += Punycode.BASE;
+			return;
+		}
+		this.readingDelta = false;
+
+		final int decoded = this.outputLength;
+		this.bias =
+				Punycode.adapt( this.opIndx - this.oldIndx, decoded + 1,
+						this.oldIndx == 0 );
+
+		if ( this.opIndx / (decoded + 1) > Punycode.MAX_INT - this.decodedVal ) {
+			throw XcodeError.PUNYCODE_OVERFLOW();
+		}
+		this.decodedVal += this.opIndx / (decoded + 1);
+		this.opIndx %= decoded + 1;
+
+		if ( decoded >= Punycode.PUNYCODE_MAX_LENGTH ) {
+			throw XcodeError.PUNYCODE_BIG_OUTPUT();
+		}
+
+		//
+		// check if the number corresponds to a valid unicode character
+		//
+		if ( this.decodedVal > Punycode.MAX_UNICODE ) {
+			throw XcodeError.PUNYCODE_BIG_OUTPUT();
+		}
+
+		//
+		// Insert decodedVal at position i of the output:
+		//
+		if ( Idna.isDelimiter( this.decodedVal ) ) {
+			throw XcodeError.PUNYCODE_DECODE_INTERNAL_DELIMITER_FOUND( " "
+					+ Integer.toString( this.decodedVal, 16 ) );
+		}
+		append( 0 );
+		System.arraycopy( this.output, this.opIndx, this.output, this.opIndx + 1,
+				decoded - this.opIndx );
+		this.output[ this.opIndx++ ] = this.decodedVal;
+	}
+
+
+	/**
+	 * Append a code point to the output.
+	 */
+	private void append ( int aCodePoint ) {
+		if ( this.outputLength == this.output.length ) {
+			this.output = Arrays.copyOf( this.output, this.outputLength * 2 );
+		}
+		this.output[ this.outputLength++ ] = aCodePoint;
+	}
+
+}
@@ -4,6 +4,8 @@
 
 package com.vgrs.xcode.idna;
 
+import java.util.Arrays;
+
 import com.vgrs.xcode.common.Base32;
 import com.vgrs.xcode.common.Unicode;
 import com.vgrs.xcode.common.Utf16;
@@ -39,6 +41,25 @@ public final class Race extends Ace {
 
 	static public final int MAX_COMPRESSION_SIZE = 36;
 
+	/**
+	 * The largest number of Base32 characters of an encoded label
+	 */
+	static private final int MAX_ENCODED_SIZE = (MAX_COMPRESSION_SIZE * 8 + 4) / 5;
+
+	/**
+	 * The UTF-16 characters of a decompressed label, kept for each thread. A
+	 * label of more than MAX_COMPRESSION_SIZE bytes cannot be decompressed, and
+	 * each byte yields at most one character, so it is large enough for any
+	 * label which can.
+	 */
+	static private final ThreadLocal<char[]> SCRATCH =
+			new ThreadLocal<char[]>() {
+				@Override
+				protected char[] initialValue () {
+					return new char[MAX_COMPRESSION_SIZE];
+				}
+			};
+
 
 	/**
 	 * Race constructed using default values
@@ -84,7 +105,12 @@ public final class Race extends Ace {
 	 */
 	@Override
 	protected char[] internalEncode ( int[] aInput ) throws XcodeException {
-		return Base32.encode( compress( Unicode.decode( aInput ) ) );
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final char[] output = new char[MAX_ENCODED_SIZE];
+		return Arrays.copyOf( output, encodeLabel( aInput, 0, aInput.length,
+				output, 0 ) );
 	}
 
 
@@ -93,148 +119,255 @@ public final class Race extends Ace {
 	 */
 	@Override
 	protected int[] internalDecode ( char[] aInput ) throws XcodeException {
-		return Unicode.encode( decompress( Base32.decode( aInput ) ) );
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return internalDecode( aInput, 0, aInput.length );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int[] internalDecode ( char[] aInput, int aOffset, int aLength )
+			throws XcodeException {
+		final int[] output = new int[MAX_COMPRESSION_SIZE];
+		return Arrays.copyOf( output, decodeLabel( aInput, null, aOffset, aLength,
+				output, 0 ) );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int internalEncode ( int[] aInput, int aOffset, int aLength,
+			char[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return encodeLabel( aInput, aOffset, aLength, aOutput, aOutputOffset );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int internalDecode ( char[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return decodeLabel( aInput, null, aOffset, aLength, aOutput,
+				aOutputOffset );
+	}
+
+
+	/*
+	 * By contract with Ace
+	 */
+	@Override
+	protected int internalDecode ( byte[] aInput, int aOffset, int aLength,
+			int[] aOutput, int aOutputOffset ) throws XcodeException {
+		if ( aInput == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		return decodeLabel( null, aInput, aOffset, aLength, aOutput,
+				aOutputOffset );
 	}
 
 
 	/**
-	 * compress - The race algorithm contains two main steps. The Utf16 input data
-	 * is passed into a compression which yields a sequence of bytes. This byte
-	 * sequence is then encoded using Base32 to ensure that the data is dns
-	 * compatible.
+	 * encodeLabel - The race algorithm contains two main steps. The Utf16 form
+	 * of the input is passed into a compression which yields a sequence of
+	 * bytes. This byte sequence is then encoded using Base32 to ensure that the
+	 * data is dns compatible. Both steps are done here without storing the Utf16
+	 * characters or the bytes: the input is checked and the length of the
+	 * compressed bytes computed first, then each compressed byte is shifted into
+	 * the Base32 characters as soon as it is produced.
+	 *
+	 * @return the number of characters written
 	 */
-	private byte[] compress ( char[] aInput ) throws XcodeException {
+	private int encodeLabel ( int[] aInput, int aOffset, int aLength,
+			char[] aOutput, int aOutputOffset ) throws XcodeException {
 		// Input checking
-		if ( aInput == null ) {
+		if ( aOutput == null ) {
 			throw XcodeError.NULL_ARGUMENT();
 		}
-		if ( aInput.length == 0 ) {
+		if ( aLength == 0 ) {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
-		// Initialize
-		// Debug.log(" compress -> " + Hex.encode(new String(input)));
-
 		// Decarations
-		final byte[] tmp = new byte[aInput.length * 2 + 1];
-		// The tmp array stores the output temporarily before we know the exact
-		// length. The worst case length for compressed output is input*2 + 1.
-		byte[] output;
-		int output_offset;
+		final int end = aOffset + aLength;
+		int units;
+		int length;
 		byte hi, u1, u2, n1;
 		boolean isCompressible;
 
-		// Should we compress? What is the common high byte (u1)?
+		// Should we compress? What is the common high byte (u1)? The two
+		// surrogates of a supplementary code point have different high bytes,
+		// so a label holding one is never compressed.
 		u1 = ZERO;
 		isCompressible = true;
-		for ( final char element : aInput ) {
-			hi = Utf16.getHighByte( element );
-			if ( hi != ZERO ) {
+		units = 0;
+		for ( int i = aOffset; i < end; i++ ) {
+			final int element = aInput[ i ];
+			if ( element > 0xFFFF ) {
+				if ( element > 0x10ffff ) {
+					throw XcodeError.UNICODE_DECODE_INVALID_VALUE( " "
+							+ Integer.toString( element, 16 ) );
+				}
+				isCompressible = false;
+				units += 2;
+				continue;
+			}
+			hi = Utf16.getHighByte( (char) element );
+			if ( hi != ZERO && isCompressible ) {
 				if ( u1 == ZERO ) {
 					u1 = hi;
 				}
 				else if ( hi != u1 ) {
 					isCompressible = false;
-					break;
 				}
 			}
+			units++;
 		}
 
-		// Compress the input
-		output_offset = 0;
-		try {
-			if ( isCompressible ) {
+		// Check the input and compute the length of the compressed bytes
+		if ( isCompressible ) {
 
-				final char char_u1 = (char) (u1 & 0x00ff);
-				if ( char_u1 >= 0x00d8 && char_u1 <= 0x00df ) {
-					throw XcodeError.RACE_ENCODE_BAD_SURROGATE_USE();
+			final char char_u1 = (char) (u1 & 0x00ff);
+			if ( char_u1 >= 0x00d8 && char_u1 <= 0x00df ) {
+				throw XcodeError.RACE_ENCODE_BAD_SURROGATE_USE();
+			}
+
+			length = 1;
+			for ( int i = aOffset; i < end; i++ ) {
+				final char element = (char) aInput[ i ];
+				if ( element == DOUBLE_ESCAPE ) {
+					throw XcodeError.RACE_ENCODE_DOUBLE_ESCAPE_PRESENT();
+				}
+				if ( Idna.isDelimiter( element ) ) {
+					throw XcodeError.RACE_DECODE_INTERNAL_DELIMITER_FOUND( " "
+							+ Integer.toString( element, 16 ) );
 				}
+				u2 = Utf16.getHighByte( element );
+				n1 = Utf16.getLowByte( element );
+				length += u2 == u1 && n1 != DOUBLE_F ? 1 : 2;
+			}
+		}
+		else {
+			length = 1 + units * 2;
+		}
 
-				tmp[ output_offset++ ] = u1;
-				for ( final char element : aInput ) {
-					if ( element == DOUBLE_ESCAPE ) {
-						throw XcodeError.RACE_ENCODE_DOUBLE_ESCAPE_PRESENT();
-					}
-					if ( Idna.isDelimiter( element ) ) {
-						throw XcodeError.RACE_DECODE_INTERNAL_DELIMITER_FOUND( " "
-								+ Integer.toString( element, 16 ) );
-					}
+		// Ensure compression does not exceed allowed length
+		if ( length > MAX_COMPRESSION_SIZE ) {
+			throw XcodeError.RACE_ENCODE_COMPRESSION_OVERFLOW();
+		}
+		if ( aOutputOffset + (length * 8 + 4) / 5 > aOutput.length ) {
+			throw XcodeError.INVALID_ARGUMENT( "output array too small" );
+		}
 
-					u2 = Utf16.getHighByte( element );
-					n1 = Utf16.getLowByte( element );
-					if ( u2 == u1 ) {
-						if ( n1 != DOUBLE_F ) {
-							tmp[ output_offset++ ] = n1;
-						}
-						else {
-							tmp[ output_offset++ ] = DOUBLE_F;
-							tmp[ output_offset++ ] = DOUBLE_9;
-						}
-					}
-					else {
-						tmp[ output_offset++ ] = DOUBLE_F;
-						tmp[ output_offset++ ] = n1;
-					}
-				}
+		// Compress the input. The low bitCount bits of bits are the compressed
+		// bits not yet written as Base32 characters.
+		int output_offset = aOutputOffset;
+		int bits = isCompressible ? u1 : NULL_COMPRESSION_FLAG;
+		int bitCount = 8;
+		int i = aOffset;
+		char low = 0;
+		for ( ;; ) {
+			while ( bitCount >= 5 ) {
+				bitCount -= 5;
+				aOutput[ output_offset++ ] =
+						Base32.map( (byte) (bits >> bitCount & 0x1f) );
 			}
-			else {
-				tmp[ output_offset++ ] = NULL_COMPRESSION_FLAG;
-				for ( final char element : aInput ) {
-					tmp[ output_offset++ ] = Utf16.getHighByte( element );
-					tmp[ output_offset++ ] = Utf16.getLowByte( element );
-				}
+			if ( low == 0 && i == end ) {
+				break;
 			}
 
-			if ( output_offset != tmp.length ) {
-				output = new byte[output_offset];
-				System.arraycopy( tmp, 0, output, 0, output_offset );
-				// Debug.log(" copied ["+tmp.length+"] to ["+output_offset+"]");
+			final char element;
+			if ( low != 0 ) {
+				element = low;
+				low = 0;
+			}
+			else if ( aInput[ i ] > 0xFFFF ) {
+				element = (char) ((aInput[ i ] - 0x10000 >> 10) + 0xd800);
+				low = (char) ((aInput[ i++ ] - 0x10000 & 0x3ff) + 0xdc00);
 			}
 			else {
-				output = tmp;
-				// Debug.log(" no copy ["+tmp.length+"] = ["+output_offset+"]");
+				element = (char) aInput[ i++ ];
 			}
 
+			if ( !isCompressible ) {
+				bits = bits << 16 | element;
+				bitCount += 16;
+				continue;
+			}
+			u2 = Utf16.getHighByte( element );
+			n1 = Utf16.getLowByte( element );
+			if ( u2 == u1 && n1 != DOUBLE_F ) {
+				bits = bits << 8 | n1 & 0xff;
+				bitCount += 8;
+			}
+			else {
+				bits = bits << 16 | (DOUBLE_F & 0xff) << 8
+						| (u2 == u1 ? DOUBLE_9 : n1) & 0xff;
+				bitCount += 16;
+			}
 		}
-		catch ( final IndexOutOfBoundsException x ) {
-			throw XcodeError.RACE_ENCODE_COMPRESSION_OVERFLOW();
-		}
-
-		// Ensure compression does not exceed allowed length
-		if ( output.length > MAX_COMPRESSION_SIZE ) {
-			throw XcodeError.RACE_ENCODE_COMPRESSION_OVERFLOW();
+		if ( bitCount > 0 ) {
+			aOutput[ output_offset++ ] =
+					Base32.map( (byte) (bits << 5 - bitCount & 0x1f) );
 		}
 
-		// Finalize
-		// Debug.log(" compress <- " + Hex.encode(new String(output)));
-		return output;
+		return output_offset - aOutputOffset;
 	}
 
 
 	/**
-	 * decompress - Reverse the Race compression and return a sequence of Utf16
-	 * characters.
+	 * decodeLabel - Reverse the Base32 encoding and the Race compression of a
+	 * label held in either aChars or aBytes. The Base32 characters are checked
+	 * first, then each compressed byte is read directly from them, and the
+	 * decompressed Utf16 characters are converted to code points.
+	 *
+	 * @return the number of code points written
 	 */
-	private char[] decompress ( byte[] aInput ) throws XcodeException {
+	private int decodeLabel ( char[] aChars, byte[] aBytes, int aOffset,
+			int aLength, int[] aOutput, int aOutputOffset ) throws XcodeException {
 		// Input checking
-		if ( aInput == null ) {
+		if ( aOutput == null ) {
 			throw XcodeError.NULL_ARGUMENT();
 		}
-		if ( aInput.length == 0 ) {
+		if ( aLength == 0 ) {
 			throw XcodeError.EMPTY_ARGUMENT();
 		}
 
-		// Initialize
-		// Debug.log(" decompress -> " + Hex.encode(input));
+		//
+		// check the Base32 characters like Base32.decode
+		//
+		final int mod8 = aLength % 8;
+		if ( mod8 == 1 || mod8 == 3 || mod8 == 6 ) {
+			throw XcodeError.BASE32_DECODE_INVALID_SIZE();
+		}
+		byte cursor = ZERO;
+		for ( int i = 0; i < aLength; i++ ) {
+			cursor = Base32.demap( charAt( aChars, aBytes, aOffset + i ) );
+		}
+		final int length = aLength * 5 / 8;
+		if ( (cursor & (1 << aLength * 5 - length * 8) - 1) != 0 ) {
+			throw XcodeError.BASE32_DECODE_INVALID_BIT_SEQUENCE();
+		}
 
 		// Ensure compression does not exceed allowed length
-		if ( aInput.length > MAX_COMPRESSION_SIZE ) {
+		if ( length > MAX_COMPRESSION_SIZE ) {
 			throw XcodeError.RACE_ENCODE_COMPRESSION_OVERFLOW();
 		}
 
 		// Decarations
-		final char[] tmp = new char[aInput.length];
-		char[] output;
+		final char[] tmp = SCRATCH.get();
 		int output_offset;
 		boolean foundInvalidDnsCharacter;
 		boolean foundUnescapedOctet;
@@ -251,23 +384,23 @@ public final class Race extends Ace {
 		output_offset = 0;
 
 		try {
-			if ( aInput.length == 1 ) {
+			if ( length == 1 ) {
 				throw XcodeError.RACE_DECODE_ODD_OCTET_COUNT();
 			}
-			u1 = aInput[ 0 ];
+			u1 = byteAt( aChars, aBytes, aOffset, 0 );
 
 			// No compression was done, so copy the remaining octets into the
 			// output.
 			// Ensure that no Delimiters are found in the output.
 			// Ensure that the output could not have been compressed.
 			if ( u1 == NULL_COMPRESSION_FLAG ) {
-				if ( aInput.length % 2 == 0 ) {
+				if ( length % 2 == 0 ) {
 					throw XcodeError.RACE_DECODE_ODD_OCTET_COUNT();
 				}
 				u1 = ZERO;
-				for ( int i = 1; i < aInput.length; i += 2 ) {
-					hi = aInput[ i ];
-					lo = aInput[ i + 1 ];
+				for ( int i = 1; i < length; i += 2 ) {
+					hi = byteAt( aChars, aBytes, aOffset, i );
+					lo = byteAt( aChars, aBytes, aOffset, i + 1 );
 					delta = (char) (hi << 8 | lo & 0x00ff);
 
 					if ( Idna.isDelimiter( delta ) ) {
@@ -302,8 +435,8 @@ public final class Race extends Ace {
 					throw XcodeError.RACE_DECODE_BAD_SURROGATE_DECOMPRESS();
 				}
 
-				for ( int i = 1; i < aInput.length; i++ ) {
-					n1 = aInput[ i ];
+				for ( int i = 1; i < length; i++ ) {
+					n1 = byteAt( aChars, aBytes, aOffset, i );
 					if ( !foundDoubleF ) {
 						if ( n1 == DOUBLE_F ) {
 							foundDoubleF = true;
@@ -363,24 +496,43 @@ public final class Race extends Ace {
 				throw XcodeError.RACE_DECODE_NO_INVALID_DNS_CHARACTERS();
 			}
 
-			if ( output_offset != tmp.length ) {
-				output = new char[output_offset];
-				System.arraycopy( tmp, 0, output, 0, output_offset );
-				// Debug.log(" copied ["+tmp.length+"] to ["+output_offset+"]");
-			}
-			else {
-				output = tmp;
-				// Debug.log(" no copy ["+tmp.length+"] = ["+output_offset+"]");
-			}
-
 		}
 		catch ( final IndexOutOfBoundsException x ) {
 			throw XcodeError.RACE_DECODE_DECOMPRESSION_OVERFLOW();
 		}
 
-		// Finalize
-		// Debug.log(" decompress <- " + Hex.encode(output));
-		return output;
+		return Unicode.encode( tmp, 0, output_offset, aOutput, aOutputOffset );
+	}
+
+
+	/**
+	 * Read a compressed byte from the Base32 characters of a label, which must
+	 * have been checked.
+	 *
+	 * @param aIndex
+	 *        the index of the byte, the first one of the label being 0
+	 * @return the byte
+	 */
+	static private byte byteAt ( char[] aChars, byte[] aBytes, int aOffset,
+			int aIndex ) throws XcodeException {
+		// the byte holds bits 8 * aIndex to 8 * aIndex + 7 of the label, each
+		// character holding 5 bits
+		final int first = aIndex * 8 / 5;
+		final int last = (aIndex * 8 + 7) / 5;
+		int bits = 0;
+		for ( int i = first; i <= last; i++ ) {
+			bits = bits << 5 | Base32.demap( charAt( aChars, aBytes, aOffset + i ) );
+		}
+		return (byte) (bits >> (last + 1) * 5 - (aIndex + 1) * 8);
+	}
+
+
+	/**
+	 * @return the character at aIndex in aChars, or the character of the ASCII
+	 *         byte at aIndex in aBytes if aChars is null
+	 */
+	static private char charAt ( char[] aChars, byte[] aBytes, int aIndex ) {
+		return aChars != null ? aChars[ aIndex ] : (char) (aBytes[ aIndex ] & 0xff);
 	}
 
-}
\ No newline at end of file
+}
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Set;
 
 import com.vgrs.xcode.util.Datafile;
+import com.vgrs.xcode.util.InitializationReport;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
 
@@ -75,37 +76,45 @@ public class ContextualRulesRegistry {
 		if ( INITIALIZED ) {
 			return;
 		}
+		final long start = InitializationReport.start();
 		Iterator<String> reader = null;
 		reader = Datafile.getIterator( CONTEXTUAL_RULES_DATA );
 		String line = null;
-		while ( reader.hasNext() ) {
-			line = reader.next();
-			if ( line.startsWith( "#" ) || line.trim().isEmpty() ) {
-				continue;
-			}
-			final String[] fields = line.split( "=" );
-			if ( fields.length != 2 ) {
-				continue;
-			}
-			final String ruleName = fields[ 0 ].trim();
-			final String className = fields[ 1 ].trim();
-			ContextualRule rule = null;
-			Class<? extends ContextualRule> ruleClass = null;
-			try {
-				ruleClass = (Class<? extends ContextualRule>) Class.forName( className );
-				rule = ruleClass.newInstance();
-				rule.setRuleName( ruleName );
-				CONTEXTUAL_RULES.put( ruleName, rule );
-			}
-			catch ( final Throwable instantiationException ) {
-				System.err.println( instantiationException.getMessage() );
-				throw XcodeError
-						.IDNSDK_INITIALIZATION_ERROR( "Unable to instantiate class \""
-								+ className + "\" specified for rule \"" + ruleName + "\": "
-								+ instantiationException.getMessage() );
+		try {
+			while ( reader.hasNext() ) {
+				line = reader.next();
+				if ( line.startsWith( "#" ) || line.trim().isEmpty() ) {
+					continue;
+				}
+				final String[] fields = line.split( "=" );
+				if ( fields.length != 2 ) {
+					continue;
+				}
+				final String ruleName = fields[ 0 ].trim();
+				final String className = fields[ 1 ].trim();
+				ContextualRule rule = null;
+				Class<? extends ContextualRule> ruleClass = null;
+				try {
+					ruleClass = (Class<? extends ContextualRule>) Class.forName( className );
+					rule = ruleClass.newInstance();
+					rule.setRuleName( ruleName );
+					CONTEXTUAL_RULES.put( ruleName, rule );
+				}
+				catch ( final Throwable instantiationException ) {
+					System.err.println( instantiationException.getMessage() );
+					throw XcodeError
+							.IDNSDK_INITIALIZATION_ERROR( "Unable to instantiate class \""
+									+ className + "\" specified for rule \"" + ruleName + "\": "
+									+ instantiationException.getMessage() );
+				}
 			}
 		}
+		catch ( final IllegalStateException x ) {
+			Datafile.checkReadError( x );
+			throw x;
+		}
 		INITIALIZED = true;
+		InitializationReport.step( "ContextualRulesRegistry.init", start );
 	}
 
 
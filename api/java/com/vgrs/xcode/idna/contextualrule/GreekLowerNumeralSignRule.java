@@ -13,6 +13,7 @@
 
 package com.vgrs.xcode.idna.contextualrule;
 
+import com.vgrs.xcode.common.unicodedata.Script;
 import com.vgrs.xcode.common.unicodedata.UnicodeData;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
@@ -40,7 +41,7 @@ public class GreekLowerNumeralSignRule extends
 	/**
 	 * Constant for the Greek script as defined in Scripts.txt by Unicode.
 	 */
-	private static final String GREEK_SCRIPT = "Greek";
+	private static final Script GREEK_SCRIPT = Script.GREEK;
 
 
 	/**
@@ -67,12 +68,12 @@ public class GreekLowerNumeralSignRule extends
 							+ ": Index of code point after GREEK_LOWER_NUMERAL_SIGN 0x0375 is > length of array" );
 		}
 
-		final String script = UnicodeData.getScript( aCodePoints[ afterCpIndex ] );
-		if ( !script.equals( GREEK_SCRIPT ) ) {
+		final Script script = UnicodeData.getScriptValue( aCodePoints[ afterCpIndex ] );
+		if ( script != GREEK_SCRIPT ) {
 			throw XcodeError
 					.IDNA_CONTEXTUAL_RULE_VIOLATION( super.getRuleName()
 							+ ": Code point after GREEK_LOWER_NUMERAL_SIGN 0x0375 does not belong to the "
-							+ GREEK_SCRIPT
+							+ GREEK_SCRIPT.getValue()
 							+ " script. Offending code point is "
 							+ Integer
 									.toHexString( aCodePoints[ afterCpIndex ] )
@@ -13,6 +13,7 @@
 
 package com.vgrs.xcode.idna.contextualrule;
 
+import com.vgrs.xcode.common.unicodedata.Script;
 import com.vgrs.xcode.common.unicodedata.UnicodeData;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
@@ -40,7 +41,7 @@ public class HebrewPunctuationGereshRule extends
 	/**
 	 * Constant for the Hebrew script as defined in Scripts.txt by Unicode.
 	 */
-	private static final String HEBREW_SCRIPT = "Hebrew";
+	private static final Script HEBREW_SCRIPT = Script.HEBREW;
 
 
 	/**
@@ -66,12 +67,12 @@ public class HebrewPunctuationGereshRule extends
 							+ ": Index of code point before HEBREW_PUNCTUATION_GERESH 0x05F3 is < 0" );
 		}
 
-		final String script = UnicodeData.getScript( aCodePoints[ beforeCpIndex ] );
-		if ( !script.equals( HEBREW_SCRIPT ) ) {
+		final Script script = UnicodeData.getScriptValue( aCodePoints[ beforeCpIndex ] );
+		if ( script != HEBREW_SCRIPT ) {
 			throw XcodeError
 					.IDNA_CONTEXTUAL_RULE_VIOLATION( super.getRuleName()
 							+ ": Code point before HEBREW_PUNCTUATION_GERESH 0x05F3 does not belong to the "
-							+ HEBREW_SCRIPT
+							+ HEBREW_SCRIPT.getValue()
 							+ " script. Offending code point is "
 							+ Integer
 									.toHexString( aCodePoints[ beforeCpIndex ] )
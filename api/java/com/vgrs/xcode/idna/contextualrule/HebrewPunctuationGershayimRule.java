@@ -13,6 +13,7 @@
 
 package com.vgrs.xcode.idna.contextualrule;
 
+import com.vgrs.xcode.common.unicodedata.Script;
 import com.vgrs.xcode.common.unicodedata.UnicodeData;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
@@ -41,7 +42,7 @@ public class HebrewPunctuationGershayimRule extends
 	/**
 	 * Constant for the Hebrew script as defined in Scripts.txt by Unicode.
 	 */
-	private static final String HEBREW_SCRIPT = "Hebrew";
+	private static final Script HEBREW_SCRIPT = Script.HEBREW;
 
 
 	/**
@@ -68,12 +69,12 @@ public class HebrewPunctuationGershayimRule extends
 							+ ": Index of code point before HEBREW_PUNCTUATION_GERSHAYIM 0x05F4 is < 0" );
 		}
 
-		final String script = UnicodeData.getScript( aCodePoints[ beforeCpIndex ] );
-		if ( !script.equals( HEBREW_SCRIPT ) ) {
+		final Script script = UnicodeData.getScriptValue( aCodePoints[ beforeCpIndex ] );
+		if ( script != HEBREW_SCRIPT ) {
 			throw XcodeError
 					.IDNA_CONTEXTUAL_RULE_VIOLATION( super.getRuleName()
 							+ ": Code point before HEBREW_PUNCTUATION_GERSHAYIM 0x05F4 does not belong to the "
-							+ HEBREW_SCRIPT
+							+ HEBREW_SCRIPT.getValue()
 							+ " script. Offending code point is "
 							+ Integer
 									.toHexString( aCodePoints[ beforeCpIndex ] )
@@ -13,8 +13,11 @@
 
 package com.vgrs.xcode.idna.contextualrule;
 
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Set;
 
+import com.vgrs.xcode.common.unicodedata.Script;
 import com.vgrs.xcode.common.unicodedata.UnicodeData;
 import com.vgrs.xcode.util.XcodeError;
 import com.vgrs.xcode.util.XcodeException;
@@ -38,30 +41,22 @@ public class KatakanaMiddleDotRule extends AbstractAllCodePointsEvaluated {
 	 */
 	private static final int KATAKANA_MIDDLE_DOT = 0x30FB;
 	/**
-	 * Constant for the Han script as defined in Scripts.txt by Unicode.
-	 */
-	private static final String HAN_SCRIPT = "Han";
-
-	/**
-	 * Constant for the Hiragana script as defined in Scripts.txt by Unicode.
-	 */
-	private static final String HIRAGANA_SCRIPT = "Hiragana";
-
-	/**
-	 * Constant for the Katakana script as defined in Scripts.txt by Unicode.
+	 * Set contanining the allowable scripts when Katakana Middle Dot is present.
 	 */
-	private static final String KATAKANA_SCRIPT = "Katakana";
+	private static final Set<Script> scriptsRequiredWhenKatakanaMiddleDotPresent =
+			EnumSet.of( Script.HAN, Script.HIRAGANA, Script.KATAKANA );
 
 	/**
-	 * Set contanining the allowable scripts when Katakana Middle Dot is present.
+	 * Names of the allowable scripts as defined in Scripts.txt by Unicode, used
+	 * in the error message.
 	 */
-	private static final HashSet<String> scriptsRequiredWhenKatakanaMiddleDotPresent =
+	private static final HashSet<String> scriptNamesRequiredWhenKatakanaMiddleDotPresent =
 			new HashSet<String>();
 
 	static {
-		scriptsRequiredWhenKatakanaMiddleDotPresent.add( HAN_SCRIPT );
-		scriptsRequiredWhenKatakanaMiddleDotPresent.add( HIRAGANA_SCRIPT );
-		scriptsRequiredWhenKatakanaMiddleDotPresent.add( KATAKANA_SCRIPT );
+		for ( final Script script : scriptsRequiredWhenKatakanaMiddleDotPresent ) {
+			scriptNamesRequiredWhenKatakanaMiddleDotPresent.add( script.getValue() );
+		}
 	}
 
 
@@ -92,7 +87,7 @@ public class KatakanaMiddleDotRule extends AbstractAllCodePointsEvaluated {
 				continue;
 			}
 
-			final String script = UnicodeData.getScript( codePoint );
+			final Script script = UnicodeData.getScriptValue( codePoint );
 			if ( scriptsRequiredWhenKatakanaMiddleDotPresent.contains( script ) ) {
 				foundHiraganaKatanaOrHanCharacter = true;
 				break;
@@ -104,7 +99,7 @@ public class KatakanaMiddleDotRule extends AbstractAllCodePointsEvaluated {
 			throw XcodeError.IDNA_CONTEXTUAL_RULE_VIOLATION( super.getRuleName()
 					+ ": At least one character in a label that has a Katakana Middle Dot (0x30FB) "
 					+ "must belong to any of the "
-					+ scriptsRequiredWhenKatakanaMiddleDotPresent + " scripts." );
+					+ scriptNamesRequiredWhenKatakanaMiddleDotPresent + " scripts." );
 		}
 	}
 
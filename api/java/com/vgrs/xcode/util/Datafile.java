@@ -4,20 +4,23 @@
 
 package com.vgrs.xcode.util;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipInputStream;
 
 /**
- * Utility methods for retrieving data from files or resources.
+ * Utility methods for retrieving data from files or resources. The iterators
+ * returned here read and decode one line at a time using {@link LineIterator},
+ * so even very large input files are never held in memory as a whole. Since
+ * the lines are read after the iterator has been returned, an error reading
+ * them is thrown by the iterator as an IllegalStateException, which
+ * {@link #checkReadError(Throwable)} turns back into FILE_IO.
  */
 public class Datafile {
 
@@ -40,7 +43,7 @@ public class Datafile {
 	static public Iterator<String> getGzipIterator ( File aFile )
 			throws XcodeException {
 		try {
-			return readData( new GZIPInputStream( getResource( aFile ) ) ).iterator();
+			return new LineIterator( new GZIPInputStream( getResource( aFile ) ) );
 		}
 		catch ( final IOException e ) {
 			throw XcodeError.FILE_IO( ": '" + aFile + "'" );
@@ -60,8 +63,7 @@ public class Datafile {
 	static public Iterator<String> getGzipIterator ( String aResource )
 			throws XcodeException {
 		try {
-			return readData( new GZIPInputStream( getResource( aResource ) ) )
-					.iterator();
+			return new LineIterator( new GZIPInputStream( getResource( aResource ) ) );
 		}
 		catch ( final IOException e ) {
 			throw XcodeError.FILE_IO( ": '" + aResource + "'" );
@@ -74,7 +76,8 @@ public class Datafile {
 	 * 
 	 * @param aFile
 	 *        A location on local disk
-	 * @return An Iterator over the lines in <code>file</code>
+	 * @return An Iterator over the lines in <code>file</code>, which throws an
+	 *         IllegalStateException if the lines cannot be read
 	 * @throws XcodeException
 	 *         If the <code>file</code> cannot be read
 	 */
@@ -104,7 +107,8 @@ public class Datafile {
 	 * 
 	 * @param aResource
 	 *        A location on the classpath
-	 * @return An Iterator over the lines in <code>resource</code>
+	 * @return An Iterator over the lines in <code>resource</code>, which throws
+	 *         an IllegalStateException if the lines cannot be read
 	 * @throws XcodeException
 	 *         If the <code>resource</code> cannot be read
 	 */
@@ -128,6 +132,74 @@ public class Datafile {
 	}
 
 
+	/**
+	 * Determine whether <code>resource</code> is present on the classpath.
+	 * 
+	 * @param aResource
+	 *        A location on the classpath
+	 * @return true if the <code>resource</code> can be read
+	 */
+	static public boolean exists ( String aResource ) {
+		if ( aResource == null || aResource.length() == 0 ) {
+			return false;
+		}
+		return loader.getResource( aResource ) != null;
+	}
+
+
+	/**
+	 * Compute a CRC-32 checksum over the raw bytes of each resource in
+	 * <code>resources</code>. The resources are not decompressed, so this is
+	 * much cheaper than reading their lines.
+	 * 
+	 * @param aResources
+	 *        Locations on the classpath
+	 * @return The checksum of all the <code>resources</code>, in order
+	 * @throws XcodeException
+	 *         If any of the <code>resources</code> cannot be read
+	 */
+	static public long checksum ( String[] aResources ) throws XcodeException {
+		if ( aResources == null ) {
+			throw XcodeError.NULL_ARGUMENT();
+		}
+		final CRC32 crc = new CRC32();
+		final byte[] buffer = new byte[8192];
+		for ( final String resource : aResources ) {
+			final InputStream in = getResource( resource );
+			try {
+				int read;
+				while ( (read = in.read( buffer )) > 0 ) {
+					crc.update( buffer, 0, read );
+				}
+				in.close();
+			}
+			catch ( final IOException x ) {
+				throw XcodeError.FILE_IO( ": '" + resource + "'" );
+			}
+		}
+		return crc.getValue();
+	}
+
+
+	/**
+	 * Throw FILE_IO if an exception caught while iterating over the lines of a
+	 * file reports that the file could not be read, like the
+	 * IllegalStateException thrown by {@link LineIterator}.
+	 * 
+	 * @param aException
+	 *        The exception caught
+	 * @throws XcodeException
+	 *         FILE_IO if <code>aException</code> reports a read error
+	 */
+	static public void checkReadError ( Throwable aException )
+			throws XcodeException {
+		if ( aException instanceof IllegalStateException
+				&& aException.getCause() instanceof IOException ) {
+			throw XcodeError.FILE_IO( ": " + aException.getMessage() );
+		}
+	}
+
+
 	/**
 	 * Retrieve an Iterator over the lines in <code>file</code>.
 	 * 
@@ -139,12 +211,7 @@ public class Datafile {
 	 */
 	static public Iterator<String> getTxtIterator ( File aFile )
 			throws XcodeException {
-		try {
-			return readData( getResource( aFile ) ).iterator();
-		}
-		catch ( final IOException e ) {
-			throw XcodeError.FILE_IO( ": '" + aFile + "'" );
-		}
+		return new LineIterator( getResource( aFile ) );
 	}
 
 
@@ -159,12 +226,7 @@ public class Datafile {
 	 */
 	static public Iterator<String> getTxtIterator ( String aResource )
 			throws XcodeException {
-		try {
-			return readData( getResource( aResource ) ).iterator();
-		}
-		catch ( final IOException e ) {
-			throw XcodeError.FILE_IO( ": '" + aResource + "'" );
-		}
+		return new LineIterator( getResource( aResource ) );
 	}
 
 
@@ -219,11 +281,7 @@ public class Datafile {
 	 */
 	static public Iterator<String> getZipIterator ( ZipInputStream aStream )
 			throws IOException {
-		final ArrayList<String> lines = new ArrayList<String>();
-		while ( aStream.getNextEntry() != null ) {
-			lines.addAll( readData( aStream ) );
-		}
-		return lines.iterator();
+		return new LineIterator( aStream );
 	}
 
 
@@ -264,39 +322,4 @@ public class Datafile {
 		}
 		return inputStream;
 	}
-
-
-	/**
-	 * Traverse a BufferedReader object yielding an ArrayList of lines.
-	 * 
-	 * @param aBuffer
-	 *        A BufferedReader object
-	 * @return List of lines in the <code>buffer</code>
-	 * @throws IOException
-	 *         If the <code>buffer</code> cannot be read
-	 */
-	static private ArrayList<String> readData ( BufferedReader aBuffer )
-			throws IOException {
-		final ArrayList<String> lines = new ArrayList<String>();
-		String line = null;
-		while ( (line = aBuffer.readLine()) != null ) {
-			lines.add( line );
-		}
-		return lines;
-	}
-
-
-	/**
-	 * Traverse an InputStream object yielding an ArrayList of lines.
-	 * 
-	 * @param aStream
-	 *        An InputStream object
-	 * @return List of lines in the <code>stream</code>
-	 * @throws IOException
-	 *         If the <code>stream</code> cannot be read
-	 */
-	static private ArrayList<String> readData ( InputStream aStream )
-			throws IOException {
-		return readData( new BufferedReader( new InputStreamReader( aStream ) ) );
-	}
-}
\ No newline at end of file
+}
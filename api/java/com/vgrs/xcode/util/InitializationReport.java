@@ -0,0 +1,231 @@
+/*
+ * (c) VeriSign Inc., 2005, All rights reserved
+ */
+
+package com.vgrs.xcode.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records where the time and memory go while the SDK initializes its tables.
+ * Each step of the initialization, such as loading one of the Unicode data
+ * files, records its wall time, and each table built records its number of
+ * entries and approximate retained heap.
+ * <p>
+ * Recording is off by default. It is turned on with
+ * {@link #setEnabled(boolean)}, which must be called before the SDK classes
+ * are first used, or by setting the "com.vgrs.xcode.initReport" system
+ * property to "true", in which case every entry is also logged to standard
+ * error as it is recorded. The recorded entries are returned by
+ * {@link #getEntries()}, so that a deployment can check them against a
+ * startup budget.
+ */
+public final class InitializationReport {
+
+	/**
+	 * System property turning the report on
+	 */
+	static public final String PROPERTY = "com.vgrs.xcode.initReport";
+
+	/**
+	 * true if each entry is logged as it is recorded
+	 */
+	static private final boolean LOG = Boolean.getBoolean( PROPERTY );
+
+	static private volatile boolean enabled = LOG;
+
+	static private final List<Entry> ENTRIES = new ArrayList<Entry>();
+
+	/**
+	 * A step of the initialization or a table built by it. Steps have a wall
+	 * time and tables have a number of entries and a size; the values that do
+	 * not apply are -1.
+	 */
+	static public final class Entry {
+
+		private final String name;
+
+		private final long nanos;
+
+		private final long entries;
+
+		private final long bytes;
+
+
+		Entry ( String aName, long aNanos, long aEntries, long aBytes ) {
+			this.name = aName;
+			this.nanos = aNanos;
+			this.entries = aEntries;
+			this.bytes = aBytes;
+		}
+
+
+		/**
+		 * @return the name of the step or table
+		 */
+		public String getName () {
+			return this.name;
+		}
+
+
+		/**
+		 * @return the wall time of the step in milliseconds, or -1 for a table
+		 */
+		public double getMillis () {
+			return this.nanos < 0 ? -1 : this.nanos / 1000000.0;
+		}
+
+
+		/**
+		 * @return the number of entries of the table, or -1 for a step
+		 */
+		public long getEntries () {
+			return this.entries;
+		}
+
+
+		/**
+		 * @return the approximate retained heap of the table in bytes, or -1 for
+		 *         a step
+		 */
+		public long getBytes () {
+			return this.bytes;
+		}
+
+
+		/**
+		 * @return true if this entry is a table rather than a step
+		 */
+		public boolean isTable () {
+			return this.nanos < 0;
+		}
+
+
+		@Override
+		public String toString () {
+			if ( isTable() ) {
+				return "table " + this.name + ": " + this.entries + " entries, ~"
+						+ this.bytes + " bytes";
+			}
+			return "step " + this.name + ": "
+					+ String.format( "%.1f", Double.valueOf( getMillis() ) ) + " ms";
+		}
+	}
+
+
+	private InitializationReport () {}
+
+
+	/**
+	 * Turn recording on or off.
+	 *
+	 * @param aEnabled
+	 */
+	static public void setEnabled ( boolean aEnabled ) {
+		enabled = aEnabled;
+	}
+
+
+	/**
+	 * @return true if the entries are being recorded
+	 */
+	static public boolean isEnabled () {
+		return enabled;
+	}
+
+
+	/**
+	 * Mark the start of a step.
+	 *
+	 * @return the value to pass to {@link #step(String, long)} when the step
+	 *         ends
+	 */
+	static public long start () {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+
+	/**
+	 * Record the end of a step.
+	 *
+	 * @param aName
+	 *        the name of the step
+	 * @param aStart
+	 *        the value returned by {@link #start()} when the step began
+	 */
+	static public void step ( String aName, long aStart ) {
+		if ( enabled ) {
+			add( new Entry( aName, System.nanoTime() - aStart, -1, -1 ) );
+		}
+	}
+
+
+	/**
+	 * Record a table.
+	 *
+	 * @param aName
+	 *        the name of the table
+	 * @param aEntries
+	 *        the number of entries in the table
+	 * @param aBytes
+	 *        the approximate retained heap of the table in bytes
+	 */
+	static public void table ( String aName, long aEntries, long aBytes ) {
+		if ( enabled ) {
+			add( new Entry( aName, -1, aEntries, aBytes ) );
+		}
+	}
+
+
+	/**
+	 * @return the entries recorded so far, in the order they were recorded
+	 */
+	static public synchronized List<Entry> getEntries () {
+		return new ArrayList<Entry>( ENTRIES );
+	}
+
+
+	/**
+	 * @return the approximate retained heap of all the tables recorded so far
+	 */
+	static public synchronized long getTotalBytes () {
+		long total = 0;
+		for ( final Entry entry : ENTRIES ) {
+			if ( entry.isTable() ) {
+				total += entry.getBytes();
+			}
+		}
+		return total;
+	}
+
+
+	/**
+	 * Discard the entries recorded so far.
+	 */
+	static public synchronized void clear () {
+		ENTRIES.clear();
+	}
+
+
+	/**
+	 * @return the entries recorded so far, one per line
+	 */
+	static public synchronized String format () {
+		final StringBuilder out = new StringBuilder();
+		for ( final Entry entry : ENTRIES ) {
+			out.append( entry ).append( '\n' );
+		}
+		out.append( "total ~" ).append( getTotalBytes() ).append( " bytes\n" );
+		return out.toString();
+	}
+
+
+	static private synchronized void add ( Entry aEntry ) {
+		ENTRIES.add( aEntry );
+		if ( LOG ) {
+			Debug.log( "xcode init " + aEntry );
+		}
+	}
+
+}
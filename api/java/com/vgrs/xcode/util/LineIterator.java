@@ -0,0 +1,129 @@
+/*
+ * (c) VeriSign Inc., 2005, All rights reserved
+ */
+
+package com.vgrs.xcode.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Create an iterator over the lines of an InputStream object. Lines are decoded
+ * as UTF-8 one at a time as the iterator advances, so memory use does not grow
+ * with the size of the input. The stream is closed once its last line has been
+ * read. A ZipInputStream is read entry by entry, yielding the lines of every
+ * entry in turn.
+ */
+public class LineIterator implements Iterator<String> {
+
+	static public final Charset UTF8 = Charset.forName( "UTF-8" );
+
+	static private final int BUFFER_SIZE = 64 * 1024;
+
+	private final InputStream stream;
+
+	private BufferedReader reader = null;
+
+	private String next = null;
+
+	private boolean eof = false;
+
+
+	public LineIterator ( InputStream aStream ) {
+		this.stream = aStream;
+		this.reader = newReader();
+	}
+
+
+	/**
+	 * Determine if there is another line to read.
+	 *
+	 * @return <code>true</code> if the InputStream has more lines.
+	 * @throws IllegalStateException
+	 *         If the InputStream cannot be read. The cause is the IOException,
+	 *         and {@link Datafile#checkReadError(Throwable)} turns it into
+	 *         FILE_IO.
+	 */
+	public boolean hasNext () {
+		if ( this.next != null ) {
+			return true;
+		}
+		if ( this.eof ) {
+			return false;
+		}
+		try {
+			this.next = this.reader.readLine();
+			while ( this.next == null && this.stream instanceof ZipInputStream
+					&& ((ZipInputStream) this.stream).getNextEntry() != null ) {
+				this.reader = newReader();
+				this.next = this.reader.readLine();
+			}
+			if ( this.next == null ) {
+				close();
+			}
+		}
+		catch ( final IOException x ) {
+			close();
+			throw new IllegalStateException( x.getMessage(), x );
+		}
+		return this.next != null;
+	}
+
+
+	/**
+	 * Retrieve the next line of content.
+	 *
+	 * @return The next line of content in a String object.
+	 * @throws NoSuchElementException
+	 *         If the InputStream has been read completely.
+	 * @throws IllegalStateException
+	 *         If the InputStream cannot be read.
+	 */
+	public String next () throws NoSuchElementException {
+		if ( !hasNext() ) {
+			throw new NoSuchElementException();
+		}
+		final String line = this.next;
+		this.next = null;
+		return line;
+	}
+
+
+	/**
+	 * Removes from the underlying collection the last element returned by the
+	 * iterator. (Not Supported)
+	 *
+	 * @throws UnsupportedOperationException
+	 *         This exception is always thrown.
+	 */
+	public void remove () throws UnsupportedOperationException {
+		throw new UnsupportedOperationException();
+	}
+
+
+	/**
+	 * Stop reading and close the underlying InputStream.
+	 */
+	public void close () {
+		this.eof = true;
+		this.next = null;
+		try {
+			this.stream.close();
+		}
+		catch ( final IOException x ) {
+			// Nothing more will be read from the stream
+		}
+	}
+
+
+	private BufferedReader newReader () {
+		return new BufferedReader( new InputStreamReader( this.stream, UTF8 ),
+				BUFFER_SIZE );
+	}
+}
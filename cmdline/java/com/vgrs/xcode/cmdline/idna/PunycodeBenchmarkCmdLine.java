@@ -0,0 +1,354 @@
+/*
+ * (c) VeriSign Inc., 2005, All rights reserved
+ */
+
+package com.vgrs.xcode.cmdline.idna;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import com.vgrs.xcode.cmdline.CmdLine;
+import com.vgrs.xcode.cmdline.CommandLineArgs;
+import com.vgrs.xcode.common.Hex;
+import com.vgrs.xcode.common.Utf16;
+import com.vgrs.xcode.idna.Punycode;
+import com.vgrs.xcode.util.XcodeError;
+import com.vgrs.xcode.util.XcodeException;
+
+/**
+ * This tool compares the time taken by {@link Punycode} to encode labels of
+ * the largest length it accepts with the time taken by the original encoder,
+ * which scans the whole label once per distinct non-basic code point. A copy
+ * of the original encoder is kept here for that purpose. The labels are made
+ * of consecutive CJK code points, of random distinct CJK code points and of
+ * random CJK code points mixed with ASCII letters, and each is checked to be
+ * encoded identically by both encoders before it is timed.
+ * <p>
+ * <tt>Usage:</tt> com.vgrs.xcode.cmdline.idna.PunycodeBenchmarkCmdLine
+ * [count=[number of rounds]]
+ */
+public class PunycodeBenchmarkCmdLine extends CmdLine {
+
+	/**
+	 * Command line argument to specify the number of rounds.
+	 */
+	static private final String SWITCH_COUNT = "count";
+
+	static private final int DEFAULT_COUNT = 20000;
+
+	static private final int CJK_FIRST = 0x4E00;
+
+	static private final int CJK_LAST = 0x9FFF;
+
+	/*
+	 * Bootstring parameters for Punycode algorithm
+	 */
+	private static final int BASE = 36;
+
+	private static final int T_MIN = 1;
+
+	private static final int T_MAX = 26;
+
+	private static final int SKEW = 38;
+
+	private static final int DAMP = 700;
+
+	private static final int INITIAL_BIAS = 72;
+
+	private static final int INITIAL_N = 0x80;
+
+	private static final int DELIMITER = 0x2D;
+
+	private static final int MAX_INT = Integer.MAX_VALUE;
+
+	private static final int PUNYCODE_MAX_LENGTH = 256;
+
+	private static final int LOBASE = BASE - T_MIN;
+
+	private static final int CUTOFF = LOBASE * T_MAX / 2;
+
+
+	/**
+	 * @param args
+	 *        the command line arguments.
+	 */
+	public PunycodeBenchmarkCmdLine ( String[] args ) {
+		super( args );
+	}
+
+
+	static public void main ( String args[] ) {
+		final PunycodeBenchmarkCmdLine cmd = new PunycodeBenchmarkCmdLine( args );
+		final CommandLineArgs options = cmd.getOptions();
+
+		int count = DEFAULT_COUNT;
+		if ( options.has( SWITCH_COUNT ) ) {
+			try {
+				count = Integer.parseInt( options.get( SWITCH_COUNT ) );
+			}
+			catch ( final NumberFormatException x ) {
+				cmd.showUsage();
+				return;
+			}
+		}
+
+		try {
+			final Random random = new Random( 0 );
+			benchmark( "consecutive CJK", longestLabel( new int[] { CJK_FIRST },
+					random, false ), count );
+			benchmark( "random CJK", longestLabel( new int[0], random, false ),
+					count );
+			benchmark( "random CJK and ASCII", longestLabel( new int[0], random,
+					true ), count );
+		}
+		catch ( final XcodeException x ) {
+			x.printStackTrace();
+		}
+	}
+
+
+	/**
+	 * Build the longest label which can be encoded, one code point at a time.
+	 *
+	 * @param aStart
+	 *        the first code point, to continue with consecutive code points, or
+	 *        an empty array to continue with random distinct code points
+	 * @param aRandom
+	 *        the source of the random code points
+	 * @param aMixed
+	 *        true to follow each random code point with an ASCII letter
+	 * @return the label
+	 */
+	static private int[] longestLabel ( int[] aStart, Random aRandom,
+			boolean aMixed ) {
+		int[] label = aStart;
+		for ( ;; ) {
+			final int[] longer = Arrays.copyOf( label, label.length + 1 );
+			if ( aStart.length > 0 ) {
+				longer[ label.length ] = label[ label.length - 1 ] + 1;
+			}
+			else if ( aMixed && label.length % 2 == 1 ) {
+				longer[ label.length ] = 'a' + aRandom.nextInt( 26 );
+			}
+			else {
+				longer[ label.length ] =
+						CJK_FIRST + aRandom.nextInt( CJK_LAST - CJK_FIRST + 1 );
+				if ( contains( label, longer[ label.length ] ) ) {
+					continue;
+				}
+			}
+			try {
+				referenceEncode( longer );
+			}
+			catch ( final XcodeException x ) {
+				return label;
+			}
+			label = longer;
+		}
+	}
+
+
+	static private boolean contains ( int[] aLabel, int aCodePoint ) {
+		for ( final int codePoint : aLabel ) {
+			if ( codePoint == aCodePoint ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	/**
+	 * Check that both encoders encode a label identically, then time them.
+	 *
+	 * @param aName
+	 *        the name of the label to print
+	 * @param aLabel
+	 *        the label
+	 * @param aCount
+	 *        the number of rounds
+	 */
+	static private void benchmark ( String aName, int[] aLabel, int aCount )
+			throws XcodeException {
+		final Punycode punycode = new Punycode();
+		final String expected =
+				Punycode.DEFAULT_PREFIX + new String( referenceEncode( aLabel ) );
+		final String actual = new String( punycode.encode( aLabel ) );
+		if ( !expected.equals( actual ) ) {
+			System.out.println( aName + " MISMATCH " + Hex.encode( aLabel ) + "\n"
+					+ expected + "\n" + actual );
+			return;
+		}
+
+		// run both once before timing them
+		long reference = time( null, aLabel, aCount );
+		long current = time( punycode, aLabel, aCount );
+		reference = time( null, aLabel, aCount );
+		current = time( punycode, aLabel, aCount );
+
+		System.out.println( aName + ": " + aLabel.length + " code points, "
+				+ actual.length() + " characters" );
+		System.out.println( "  original encoder: " + reference / aCount
+				+ " ns/label" );
+		System.out.println( "  current encoder:  " + current / aCount
+				+ " ns/label" );
+	}
+
+
+	/**
+	 * @param aPunycode
+	 *        the encoder to time, or null for the original encoder
+	 * @return the time taken to encode the label aCount times, in nanoseconds
+	 */
+	static private long time ( Punycode aPunycode, int[] aLabel, int aCount )
+			throws XcodeException {
+		final long start = System.nanoTime();
+		for ( int i = 0; i < aCount; i++ ) {
+			if ( aPunycode == null ) {
+				referenceEncode( aLabel );
+			}
+			else {
+				aPunycode.encode( aLabel );
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+
+	private static int encodeDigit ( final int aDigit ) {
+		int outDigit = aDigit;
+
+		outDigit += 22;
+
+		if ( outDigit < 48 ) {
+			outDigit += 75;
+		}
+		return outDigit;
+	}
+
+
+	private static int adapt ( final int aDelta, final int aCodePointCount,
+			boolean aFirstTime ) {
+		int outDelta = aDelta;
+
+		outDelta = aFirstTime ? outDelta / DAMP : outDelta >> 1;
+		outDelta += outDelta / aCodePointCount;
+
+		int i = 0;
+		for ( ; outDelta > CUTOFF; i += BASE ) {
+			outDelta /= LOBASE;
+		}
+
+		return i + (LOBASE + 1) * outDelta / (outDelta + SKEW);
+	}
+
+
+	/**
+	 * The original Punycode encoder, without the case flags, which scans the
+	 * whole label to find the next larger code point and again to emit the
+	 * deltas for each distinct non-basic code point.
+	 */
+	private static char[] referenceEncode ( int[] aInput )
+			throws XcodeException {
+		int currentLargestCP = INITIAL_N;
+		int delta = 0;
+		int cpsHandled = 0;
+		int bias = INITIAL_BIAS;
+		int nextLargerCP = 0;
+		int currentDelta = 0;
+		int currentBase = 0;
+		int threshold = 0;
+		int basicCPsCount = 0;
+
+		final StringBuffer encodedString = new StringBuffer();
+
+		for ( int i = 0; i < aInput.length; i++ ) {
+			if ( Utf16.isAscii( aInput[ i ] ) ) {
+				encodedString.append( (char) aInput[ i ] );
+			}
+		}
+
+		basicCPsCount = encodedString.length();
+		cpsHandled = basicCPsCount;
+
+		if ( basicCPsCount > 0 ) {
+			encodedString.append( (char) DELIMITER );
+		}
+
+		while ( cpsHandled < aInput.length ) {
+			nextLargerCP = MAX_INT;
+			for ( int j = 0; j < aInput.length; ++j ) {
+				final int inputChar = aInput[ j ];
+				if ( inputChar >= currentLargestCP && inputChar < nextLargerCP ) {
+					nextLargerCP = inputChar;
+				}
+			}
+
+			if ( nextLargerCP - currentLargestCP > (MAX_INT - delta)
+					/ (cpsHandled + 1) ) {
+				throw XcodeError.PUNYCODE_OVERFLOW();
+			}
+			delta += (nextLargerCP - currentLargestCP) * (cpsHandled + 1);
+			currentLargestCP = nextLargerCP;
+
+			for ( int j = 0; j < aInput.length; ++j ) {
+				final int inputChar = aInput[ j ];
+
+				if ( inputChar < currentLargestCP && ++delta == 0 ) {
+					throw XcodeError.PUNYCODE_BIG_OUTPUT();
+				}
+
+				if ( inputChar == currentLargestCP ) {
+					for ( currentDelta = delta, currentBase = BASE;; currentBase += BASE ) {
+						if ( encodedString.length() >= PUNYCODE_MAX_LENGTH ) {
+							throw XcodeError.PUNYCODE_BIG_OUTPUT();
+						}
+
+						if ( currentBase <= bias ) {
+							threshold = T_MIN;
+						}
+						else if ( currentBase >= bias + T_MAX ) {
+							threshold = T_MAX;
+						}
+						else {
+							threshold = currentBase - bias;
+						}
+
+						if ( currentDelta < threshold ) {
+							encodedString.append( (char) encodeDigit( currentDelta ) );
+							break;
+						}
+						encodedString.append( (char) encodeDigit( threshold
+								+ (currentDelta - threshold) % (BASE - threshold) ) );
+						currentDelta = (currentDelta - threshold) / (BASE - threshold);
+					}
+
+					bias = adapt( delta, cpsHandled + 1, cpsHandled == basicCPsCount );
+
+					delta = 0;
+					++cpsHandled;
+				}
+			}
+
+			++delta;
+			++currentLargestCP;
+		}
+
+		if ( encodedString.length() > PUNYCODE_MAX_LENGTH ) {
+			throw XcodeError.PUNYCODE_BIG_OUTPUT();
+		}
+
+		return encodedString.toString().toCharArray();
+	}
+
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.vgrs.xcode.cmdline.CmdLine#getUsageOptions()
+	 */
+	@Override
+	public String getUsageOptions () {
+		return " [count=<number of rounds>]";
+	}
+
+}